@@ -45,25 +45,15 @@ import hudson.util.MaskingClassLoader;
 import hudson.util.VersionNumber;
 import jenkins.ClassLoaderReflectionToolkit;
 import jenkins.ExtensionFilter;
-import org.apache.commons.io.output.NullOutputStream;
-import org.apache.tools.ant.BuildException;
 import org.apache.tools.ant.Project;
-import org.apache.tools.ant.taskdefs.Expand;
-import org.apache.tools.ant.taskdefs.Zip;
 import org.apache.tools.ant.types.FileSet;
-import org.apache.tools.ant.types.PatternSet;
-import org.apache.tools.ant.types.Resource;
-import org.apache.tools.ant.types.ZipFileSet;
-import org.apache.tools.ant.types.resources.MappedResourceCollection;
-import org.apache.tools.ant.util.GlobPatternMapper;
-import org.apache.tools.zip.ZipEntry;
-import org.apache.tools.zip.ZipExtraField;
-import org.apache.tools.zip.ZipOutputStream;
 
+import java.io.BufferedOutputStream;
 import java.io.Closeable;
 import java.io.File;
 import java.io.FilenameFilter;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
@@ -80,6 +70,9 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
 import org.jenkinsci.bytecode.Transformer;
 import org.kohsuke.accmod.Restricted;
 import org.kohsuke.accmod.restrictions.NoExternalUse;
@@ -254,8 +247,13 @@ public class ClassicPluginStrategy implements PluginStrategy {
         ClassLoader dependencyLoader = new DependencyClassLoader(coreClassLoader, archive, Util.join(dependencies,optionalDependencies));
         dependencyLoader = getBaseClassLoader(atts, dependencyLoader);
 
+        ClassLoader classLoader = createClassLoader(paths, dependencyLoader, atts);
+        if (classLoader instanceof AntClassLoader) {
+            // kept next to .timestamp2, so it goes away whenever the plugin is exploded again
+            ((AntClassLoader) classLoader).indexJars(expandDir != null ? new File(expandDir, ".jarIndex") : null);
+        }
         return new PluginWrapper(pluginManager, archive, manifest, baseResourceURL,
-                createClassLoader(paths, dependencyLoader, atts), disableFile, dependencies, optionalDependencies);
+                classLoader, disableFile, dependencies, optionalDependencies);
     }
 
     private static void fix(Attributes atts, List<PluginWrapper.Dependency> optionalDependencies) {
@@ -613,7 +611,7 @@ public class ClassicPluginStrategy implements PluginStrategy {
     /**
      * Explodes the plugin into a directory, if necessary.
      */
-    private static void explode(File archive, File destDir) throws IOException {
+    /*package*/ static void explode(File archive, File destDir) throws IOException {
         destDir.mkdirs();
 
         // timestamp check
@@ -623,12 +621,11 @@ public class ClassicPluginStrategy implements PluginStrategy {
 
         // delete the contents so that old files won't interfere with new files
         Util.deleteRecursive(destDir);
+        destDir.mkdirs();
 
         try {
-            Project prj = new Project();
-            unzipExceptClasses(archive, destDir, prj);
-            createClassJarFromWebInfClasses(archive, destDir, prj);
-        } catch (BuildException x) {
+            unzipAndCreateClassJar(archive, destDir);
+        } catch (IOException | RuntimeException x) {
             throw new IOException("Failed to expand " + archive,x);
         }
 
@@ -640,69 +637,70 @@ public class ClassicPluginStrategy implements PluginStrategy {
     }
 
     /**
-     * Repackage classes directory into a jar file to make it remoting friendly.
+     * Unzips everything but {@code WEB-INF/classes/} in a single pass over the archive,
+     * and repackages that directory into {@code WEB-INF/lib/classes.jar} to make it remoting friendly.
      * The remoting layer can cache jar files but not class files.
      */
-    private static void createClassJarFromWebInfClasses(File archive, File destDir, Project prj) throws IOException {
+    private static void unzipAndCreateClassJar(File archive, File destDir) throws IOException {
+        String destPath = destDir.getCanonicalPath() + File.separator;
         File classesJar = new File(destDir, "WEB-INF/lib/classes.jar");
+        // directories get a fixed timestamp to make sure classes.jar always get a consistent checksum
+        long dirTime = archive.lastModified() + 1999; // roundup
+        byte[] buf = new byte[8192];
+        ZipOutputStream classes = null;
+        try (ZipFile zip = new ZipFile(archive)) {
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry e = entries.nextElement();
+                String name = e.getName();
+                if (name.startsWith(CLASSES_DIR)) {
+                    String path = name.substring(CLASSES_DIR.length());
+                    if (path.isEmpty()) {
+                        continue;
+                    }
+                    if (classes == null) {
+                        classesJar.getParentFile().mkdirs();
+                        classes = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(classesJar.toPath())));
+                    }
+                    ZipEntry ze = new ZipEntry(path);
+                    ze.setTime(e.isDirectory() ? dirTime : e.getTime());
+                    classes.putNextEntry(ze);
+                    if (!e.isDirectory()) {
+                        try (InputStream in = zip.getInputStream(e)) {
+                            org.apache.commons.io.IOUtils.copyLarge(in, classes, buf);
+                        }
+                    }
+                    classes.closeEntry();
+                    continue;
+                }
 
-        ZipFileSet zfs = new ZipFileSet();
-        zfs.setProject(prj);
-        zfs.setSrc(archive);
-        zfs.setIncludes("WEB-INF/classes/");
-
-        MappedResourceCollection mapper = new MappedResourceCollection();
-        mapper.add(zfs);
-
-        GlobPatternMapper gm = new GlobPatternMapper();
-        gm.setFrom("WEB-INF/classes/*");
-        gm.setTo("*");
-        mapper.add(gm);
-
-        final long dirTime = archive.lastModified();
-        // this ZipOutputStream is reused and not created for each directory
-        try (ZipOutputStream wrappedZOut = new ZipOutputStream(new NullOutputStream()) {
-            @Override
-            public void putNextEntry(ZipEntry ze) throws IOException {
-                ze.setTime(dirTime+1999);   // roundup
-                super.putNextEntry(ze);
-            }
-        }) {
-            Zip z = new Zip() {
-                /**
-                 * Forces the fixed timestamp for directories to make sure
-                 * classes.jar always get a consistent checksum.
-                 */
-                protected void zipDir(Resource dir, ZipOutputStream zOut, String vPath,
-                                      int mode, ZipExtraField[] extra)
-                    throws IOException {
-                    // use wrappedZOut instead of zOut
-                    super.zipDir(dir,wrappedZOut,vPath,mode,extra);
+                File f = new File(destDir, name);
+                if (!f.getCanonicalPath().startsWith(destPath)) {
+                    throw new IOException("Entry " + name + " would be extracted outside of " + destDir);
                 }
-            };
-            z.setProject(prj);
-            z.setTaskType("zip");
-            classesJar.getParentFile().mkdirs();
-            z.setDestFile(classesJar);
-            z.add(mapper);
-            z.execute();
-        }
-        if (classesJar.isFile()) {
+                if (e.isDirectory()) {
+                    f.mkdirs();
+                } else {
+                    f.getParentFile().mkdirs();
+                    try (InputStream in = zip.getInputStream(e); OutputStream out = Files.newOutputStream(f.toPath())) {
+                        org.apache.commons.io.IOUtils.copyLarge(in, out, buf);
+                    }
+                }
+                if (e.getTime() != -1) {
+                    f.setLastModified(e.getTime());
+                }
+            }
+        } finally {
+            if (classes != null) {
+                classes.close();
+            }
+        }
+        if (classes != null) {
             LOGGER.log(Level.WARNING, "Created {0}; update plugin to a version created with a newer harness", classesJar);
         }
     }
 
-    private static void unzipExceptClasses(File archive, File destDir, Project prj) {
-        Expand e = new Expand();
-        e.setProject(prj);
-        e.setTaskType("unzip");
-        e.setSrc(archive);
-        e.setDest(destDir);
-        PatternSet p = new PatternSet();
-        p.setExcludes("WEB-INF/classes/");
-        e.addPatternset(p);
-        e.execute();
-    }
+    private static final String CLASSES_DIR = "WEB-INF/classes/";
 
     /**
      * Used to load classes from dependency plugins.
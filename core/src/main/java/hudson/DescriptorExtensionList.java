@@ -123,11 +123,9 @@ public class DescriptorExtensionList<T extends Describable<T>, D extends Descrip
      * Finds the descriptor that describes the given type.
      * That is, if this method returns d, {@code d.clazz==type}
      */
+    @SuppressWarnings("unchecked")
     public D find(Class<? extends T> type) {
-        for (D d : this)
-            if (d.clazz==type)
-                return d;
-        return null;
+        return (D) getDescriptorByDescribable(type);
     }
 
     /**
@@ -151,11 +149,9 @@ public class DescriptorExtensionList<T extends Describable<T>, D extends Descrip
      *
      * If none is found, null is returned.
      */
+    @SuppressWarnings("unchecked")
     public @CheckForNull D findByName(String id) {
-        for (D d : this)
-            if(d.getId().equals(id))
-                return d;
-        return null;
+        return (D) getDescriptorById(id);
     }
 
     @Override
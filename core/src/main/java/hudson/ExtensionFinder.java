@@ -54,6 +54,7 @@ import org.kohsuke.accmod.Restricted;
 import org.kohsuke.accmod.restrictions.NoExternalUse;
 import org.springframework.util.ClassUtils;
 
+import javax.annotation.CheckForNull;
 import javax.annotation.PostConstruct;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.AnnotatedElement;
@@ -261,10 +262,18 @@ public abstract class ExtensionFinder implements ExtensionPoint {
          */
         private Map<Class<? extends Annotation>,GuiceExtensionAnnotation<?>> extensionAnnotations = Maps.newHashMap();
 
+        /**
+         * Extensions known to resolve fine from the previous start.
+         */
+        private final ExtensionIndexCache indexCache;
+
         public GuiceFinder() {
             refreshExtensionAnnotations();
 
-            SezpozModule extensions = new SezpozModule(loadSezpozIndices(Jenkins.getInstance().getPluginManager().uberClassLoader));
+            PluginManager pm = Jenkins.getInstance().getPluginManager();
+            indexCache = ExtensionIndexCache.of(pm);
+            ImmutableList<IndexItem<?,Object>> index = loadSezpozIndices(pm.uberClassLoader);
+            SezpozModule extensions = new SezpozModule(index, indexCache);
 
             List<Module> modules = new ArrayList<>();
             modules.add(new AbstractModule() {
@@ -275,20 +284,32 @@ public abstract class ExtensionFinder implements ExtensionPoint {
                     bind(PluginManager.class).toInstance(j.getPluginManager());
                 }
             });
-            modules.add(extensions);
 
             for (ExtensionComponent<Module> ec : moduleFinder.find(Module.class, Hudson.getInstance())) {
                 modules.add(ec.getInstance());
             }
 
             try {
-                container = Guice.createInjector(modules);
+                try {
+                    container = Guice.createInjector(with(modules, extensions));
+                } catch (Throwable e) {
+                    if (!indexCache.isValid()) {
+                        throw e;
+                    }
+                    // something we skipped checking might be at fault, so do not trust the cache
+                    LOGGER.log(Level.WARNING, "Failed to create Guice container from cached extensions; retrying with a full scan", e);
+                    indexCache.invalidate();
+                    annotations.clear();
+                    extensions = new SezpozModule(index, indexCache);
+                    container = Guice.createInjector(with(modules, extensions));
+                }
                 sezpozIndex = extensions.getLoadedIndex();
+                indexCache.save();
             } catch (Throwable e) {
                 LOGGER.log(Level.SEVERE, "Failed to create Guice container from all the plugins",e);
                 // failing to load all bindings are disastrous, so recover by creating minimum that works
                 // by just including the core
-                container = Guice.createInjector(new SezpozModule(loadSezpozIndices(Jenkins.class.getClassLoader())));
+                container = Guice.createInjector(new SezpozModule(loadSezpozIndices(Jenkins.class.getClassLoader()), null));
             }
 
             // expose Injector via lookup mechanism for interop with non-Guice clients
@@ -306,6 +327,12 @@ public abstract class ExtensionFinder implements ExtensionPoint {
             }
         }
 
+        private static List<Module> with(List<Module> modules, SezpozModule extensions) {
+            List<Module> l = new ArrayList<>(modules);
+            l.add(1, extensions);
+            return l;
+        }
+
         private ImmutableList<IndexItem<?, Object>> loadSezpozIndices(ClassLoader classLoader) {
             List<IndexItem<?,Object>> indices = Lists.newArrayList();
             for (GuiceExtensionAnnotation<?> gea : extensionAnnotations.values()) {
@@ -335,7 +362,8 @@ public abstract class ExtensionFinder implements ExtensionPoint {
                 delta.addAll(Sezpoz.listDelta(annotationType,sezpozIndex));
             }
 
-            SezpozModule deltaExtensions = new SezpozModule(delta);
+            indexCache.pluginsChanged(Jenkins.getInstance().getPluginManager());
+            SezpozModule deltaExtensions = new SezpozModule(delta, indexCache);
 
             List<Module> modules = new ArrayList<>();
             modules.add(deltaExtensions);
@@ -349,6 +377,7 @@ public abstract class ExtensionFinder implements ExtensionPoint {
                 List<IndexItem<?, Object>> l = Lists.newArrayList(sezpozIndex);
                 l.addAll(deltaExtensions.getLoadedIndex());
                 sezpozIndex = l;
+                indexCache.save();
 
                 return new ExtensionComponentSet() {
                     @Override
@@ -465,10 +494,12 @@ public abstract class ExtensionFinder implements ExtensionPoint {
         private class SezpozModule extends AbstractModule implements ProvisionListener {
             private final List<IndexItem<?,Object>> index;
             private final List<IndexItem<?,Object>> loadedIndex;
+            private final @CheckForNull ExtensionIndexCache cache;
 
-            public SezpozModule(List<IndexItem<?,Object>> index) {
+            public SezpozModule(List<IndexItem<?,Object>> index, @CheckForNull ExtensionIndexCache cache) {
                 this.index = index;
                 this.loadedIndex = new ArrayList<>();
+                this.cache = cache;
             }
 
             /**
@@ -520,11 +551,15 @@ public abstract class ExtensionFinder implements ExtensionPoint {
                         AnnotatedElement e = item.element();
                         Annotation a = item.annotation();
                         if (!isActive(a,e))   continue;
+                        // checked on a previous start with the very same plugins
+                        boolean known = cache != null && cache.isKnown(a, item);
 
                         Scope scope = optional ? QUIET_FAULT_TOLERANT_SCOPE : FAULT_TOLERANT_SCOPE;
                         if (e instanceof Class) {
                             Key key = Key.get((Class)e);
-                            resolve((Class)e);
+                            if (!known) {
+                                resolve((Class)e);
+                            }
                             annotations.put(key,a);
                             bind(key).in(scope);
                         } else {
@@ -537,7 +572,9 @@ public abstract class ExtensionFinder implements ExtensionPoint {
                             } else
                                 throw new AssertionError();
 
-                            resolve(extType);
+                            if (!known) {
+                                resolve(extType);
+                            }
 
                             // make unique key, because Guice wants that.
                             Key key = Key.get(extType, Names.named(item.className() + "." + item.memberName()));
@@ -549,6 +586,9 @@ public abstract class ExtensionFinder implements ExtensionPoint {
                                 }).in(scope);
                         }
                         loadedIndex.add(item);
+                        if (cache != null) {
+                            cache.add(a, item);
+                        }
                     } catch (Exception|LinkageError e) {
                         // sometimes the instantiation fails in an indirect classloading failure,
                         // which results in a LinkageError
@@ -0,0 +1,292 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2018, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson;
+
+import hudson.remoting.Which;
+import hudson.util.AtomicFileWriter;
+import jenkins.model.Jenkins;
+import jenkins.util.SystemProperties;
+import net.java.sezpoz.IndexItem;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Remembers, across restarts, the extensions that {@link ExtensionFinder.GuiceFinder} found and successfully resolved.
+ *
+ * <p>
+ * Before binding an extension, {@link ExtensionFinder.GuiceFinder} goes through a fair amount of reflection on
+ * its class to detect linkage problems early, which is a noticeable part of the startup time with many plugins.
+ * When the set of plugins, their versions and their archives are all the same as on the previous start,
+ * those checks would only reach the same conclusion again, so they are skipped for the extensions recorded here.
+ * Extensions themselves are still instantiated lazily by Guice, and anything not recorded goes through the full checks.
+ *
+ * <p>
+ * The cache is keyed by a fingerprint of the core version and of every plugin archive's name, version, size and
+ * timestamp; if any of these changed, the cache is ignored and rewritten from a full scan.
+ *
+ * @since TODO
+ */
+final class ExtensionIndexCache {
+
+    /**
+     * Set to true to always resolve every extension.
+     */
+    static boolean DISABLED = SystemProperties.getBoolean(ExtensionIndexCache.class.getName() + ".disabled");
+
+    private final File file;
+
+    /**
+     * Fingerprint of the plugins currently installed.
+     */
+    private volatile String fingerprint;
+
+    /**
+     * Keys of the extensions resolved on the previous start, if that start had the same plugins as this one.
+     */
+    private final Set<String> known;
+
+    /**
+     * Extensions resolved so far, to be saved.
+     */
+    private final Map<String,Entry> entries = new LinkedHashMap<>();
+
+    ExtensionIndexCache(@Nonnull File file, @Nonnull String fingerprint) {
+        this.file = file;
+        this.fingerprint = fingerprint;
+        this.known = Collections.synchronizedSet(load(file, fingerprint));
+    }
+
+    /**
+     * Creates the cache for the plugins currently installed.
+     */
+    static @Nonnull ExtensionIndexCache of(@Nonnull PluginManager pm) {
+        return new ExtensionIndexCache(new File(pm.rootDir, "extensions.cache"), fingerprint(pm));
+    }
+
+    /**
+     * Takes note of dynamically loaded plugins, so that the cache is saved for the new set of plugins.
+     * Extensions resolved on the previous start stay known, since their plugins did not change.
+     */
+    void pluginsChanged(@Nonnull PluginManager pm) {
+        fingerprint = fingerprint(pm);
+    }
+
+    private static String fingerprint(PluginManager pm) {
+        List<String> plugins = new ArrayList<>();
+        for (PluginWrapper p : pm.getPlugins()) {
+            plugins.add(describe(p.getShortName(), p.getVersion(), p.isActive(), p.getArchive()));
+        }
+        File coreJar;
+        try {
+            coreJar = Which.jarFile(Jenkins.class);
+        } catch (IOException | IllegalArgumentException e) {
+            // e.g. running from a classes directory
+            coreJar = null;
+        }
+        return fingerprint(describeCore(Jenkins.VERSION, System.getProperty("java.vendor") + ' ' + System.getProperty("java.version"), coreJar), plugins);
+    }
+
+    /**
+     * Describes Jenkins core and the JVM for {@link #fingerprint(String, Collection)}.
+     * Either of them changing can change which extensions link, even with the same version of core,
+     * such as when a snapshot is rebuilt or when the JVM no longer provides some API.
+     */
+    static @Nonnull String describeCore(@CheckForNull String version, @Nonnull String java, @CheckForNull File jar) {
+        return version + ' ' + java + (jar == null ? "" : " " + jar.length() + ' ' + jar.lastModified());
+    }
+
+    /**
+     * Describes one plugin archive for {@link #fingerprint(String, Collection)}.
+     */
+    static @Nonnull String describe(@Nonnull String shortName, @CheckForNull String version, boolean active, @Nonnull File archive) {
+        return shortName + ' ' + version + ' ' + active + ' ' + archive.length() + ' ' + archive.lastModified();
+    }
+
+    static @Nonnull String fingerprint(@Nonnull String core, @Nonnull Collection<String> plugins) {
+        List<String> sorted = new ArrayList<>(plugins);
+        Collections.sort(sorted);
+        StringBuilder buf = new StringBuilder().append(core);
+        for (String p : sorted) {
+            buf.append('\n').append(p);
+        }
+        return Util.getDigestOf(buf.toString());
+    }
+
+    /**
+     * Whether the cache was written for the same plugins as those installed now.
+     */
+    boolean isValid() {
+        return !known.isEmpty();
+    }
+
+    /**
+     * Whether the given extension was successfully resolved on the previous start with the same plugins,
+     * so that checking it again can be skipped.
+     */
+    boolean isKnown(@Nonnull Annotation a, @Nonnull IndexItem<?,Object> item) {
+        return isKnown(a.annotationType().getName(), item.className(), item.memberName());
+    }
+
+    boolean isKnown(@Nonnull String annotationType, @Nonnull String className, @CheckForNull String memberName) {
+        return known.contains(key(annotationType, className, memberName));
+    }
+
+    /**
+     * Records an extension that was successfully resolved.
+     */
+    void add(@Nonnull Annotation a, @Nonnull IndexItem<?,Object> item) {
+        add(new Entry(a.annotationType().getName(), item.className(), item.memberName()));
+    }
+
+    void add(@Nonnull Entry entry) {
+        synchronized (entries) {
+            entries.put(entry.key(), entry);
+        }
+    }
+
+    /**
+     * Forgets what was loaded from the previous start, so that everything gets resolved again.
+     */
+    void invalidate() {
+        known.clear();
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * Writes what has been recorded so far, for the plugins now installed.
+     */
+    void save() {
+        if (DISABLED) {
+            return;
+        }
+        try {
+            AtomicFileWriter w = new AtomicFileWriter(toPath(file), StandardCharsets.UTF_8);
+            try {
+                w.write(HEADER + fingerprint + '\n');
+                synchronized (entries) {
+                    for (Entry e : entries.values()) {
+                        w.write(e + "\n");
+                    }
+                }
+                w.commit();
+            } finally {
+                w.abort();
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to save " + file, e);
+        }
+    }
+
+    private static Set<String> load(File file, String fingerprint) {
+        Set<String> known = new HashSet<>();
+        if (DISABLED || !file.isFile()) {
+            return known;
+        }
+        try (BufferedReader r = Files.newBufferedReader(toPath(file), StandardCharsets.UTF_8)) {
+            if (!(HEADER + fingerprint).equals(r.readLine())) {
+                LOGGER.fine("Plugins changed since the extension cache was written; scanning all extensions");
+                return known;
+            }
+            String line;
+            while ((line = r.readLine()) != null) {
+                known.add(Entry.parse(line).key());
+            }
+            LOGGER.log(Level.FINE, "Loaded {0} extensions from {1}", new Object[] {known.size(), file});
+            return known;
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.FINE, "Ignoring unreadable " + file, e);
+            return new HashSet<>();
+        }
+    }
+
+    private static String key(String annotationType, String className, @CheckForNull String memberName) {
+        return annotationType + '\t' + className + '\t' + (memberName == null ? "" : memberName);
+    }
+
+    private static Path toPath(File f) throws IOException {
+        try {
+            return f.toPath();
+        } catch (InvalidPathException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * One resolved extension: its annotation type and where it is declared.
+     * Everything else, such as its ordinal, is still read from the sezpoz index, which has to be listed anyway.
+     */
+    static final class Entry {
+        final String annotationType;
+        final String className;
+        final @CheckForNull String memberName;
+
+        Entry(String annotationType, String className, @CheckForNull String memberName) {
+            this.annotationType = annotationType;
+            this.className = className;
+            this.memberName = memberName;
+        }
+
+        String key() {
+            return ExtensionIndexCache.key(annotationType, className, memberName);
+        }
+
+        static Entry parse(String line) {
+            String[] f = line.split("\t", -1);
+            if (f.length != 3) {
+                throw new IllegalArgumentException("Malformed entry: " + line);
+            }
+            return new Entry(f[0], f[1], f[2].isEmpty() ? null : f[2]);
+        }
+
+        @Override
+        public String toString() {
+            return key();
+        }
+    }
+
+    private static final String HEADER = "# ";
+
+    private static final Logger LOGGER = Logger.getLogger(ExtensionIndexCache.class.getName());
+}
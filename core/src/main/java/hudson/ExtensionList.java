@@ -25,6 +25,7 @@ package hudson;
 
 import com.google.common.collect.Lists;
 import hudson.init.InitMilestone;
+import hudson.model.Descriptor;
 import hudson.model.Hudson;
 import jenkins.ExtensionComponentSet;
 import jenkins.model.Jenkins;
@@ -37,6 +38,7 @@ import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -48,6 +50,8 @@ import java.util.logging.Logger;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
 import jenkins.util.io.OnMaster;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
 
 /**
  * Retains the known extension instances for the given type 'T'.
@@ -86,6 +90,13 @@ public class ExtensionList<T> extends AbstractList<T> implements OnMaster {
     @CopyOnWrite
     private volatile List<ExtensionComponent<T>> extensions;
 
+    /**
+     * Lookup tables over {@link #extensions}.
+     * Since that list is replaced rather than modified, the index is rebuilt whenever it is found to be stale,
+     * which covers {@link #refresh(ExtensionComponentSet)} on dynamic plugin load as well as manual registration.
+     */
+    private volatile Index<T> index;
+
     private final List<ExtensionListListener> listeners = new CopyOnWriteArrayList<ExtensionListListener>();
 
     /**
@@ -146,10 +157,7 @@ public class ExtensionList<T> extends AbstractList<T> implements OnMaster {
      * or return null.
      */
     public @CheckForNull <U extends T> U get(@Nonnull Class<U> type) {
-        for (T ext : this)
-            if(ext.getClass()==type)
-                return type.cast(ext);
-        return null;
+        return type.cast(index().byClass.get(type));
     }
 
     /**
@@ -159,10 +167,10 @@ public class ExtensionList<T> extends AbstractList<T> implements OnMaster {
      * Meant to simplify call inside @Extension annotated class to retrieve their own instance.
      */
     public @Nonnull <U extends T> U getInstance(@Nonnull Class<U> type) throws IllegalStateException {
-        for (T ext : this)
-            if(ext.getClass()==type)
-                return type.cast(ext);
-        
+        U ext = get(type);
+        if (ext != null)
+            return ext;
+
         throw new IllegalStateException("The class " + type.getName() + " was not found, potentially not yet loaded");
     }
 
@@ -301,10 +309,75 @@ public class ExtensionList<T> extends AbstractList<T> implements OnMaster {
      * @since 1.349
      */
     public T getDynamic(String className) {
-        for (T t : this)
-            if (t.getClass().getName().equals(className))
-                return t;
-        return null;
+        return index().byClassName.get(className);
+    }
+
+    /**
+     * Finds the {@link Descriptor} in this list with the given {@link Descriptor#getId()}.
+     */
+    @Restricted(NoExternalUse.class)
+    public @CheckForNull Descriptor getDescriptorById(@Nonnull String id) {
+        return index().byId.get(id);
+    }
+
+    /**
+     * Finds the {@link Descriptor}s in this list whose {@link Descriptor#getId()} ends with the given short name,
+     * after a dot.
+     */
+    @Restricted(NoExternalUse.class)
+    public @Nonnull List<Descriptor> getDescriptorsByShortId(@Nonnull String shortId) {
+        List<Descriptor> r = index().byShortId.get(shortId);
+        return r != null ? r : Collections.<Descriptor>emptyList();
+    }
+
+    /**
+     * Finds the {@link Descriptor} in this list whose {@link Descriptor#clazz} is the given type.
+     */
+    @Restricted(NoExternalUse.class)
+    public @CheckForNull Descriptor getDescriptorByDescribable(@Nonnull Class<?> type) {
+        return index().byDescribable.get(type);
+    }
+
+    private Index<T> index() {
+        List<ExtensionComponent<T>> l = ensureLoaded();
+        if (l == legacyInstances) {
+            // still being populated in place, so it cannot be cached
+            return new Index<T>(l);
+        }
+        Index<T> i = index;
+        if (i == null || i.source != l) {
+            index = i = new Index<T>(l);
+        }
+        return i;
+    }
+
+    /**
+     * Extensions keyed by the properties they are commonly looked up by.
+     * Where several extensions share a key, the first one in the list wins, as with a linear search.
+     */
+    private static final class Index<T> {
+        final List<ExtensionComponent<T>> source;
+        final Map<Class<?>,T> byClass = new HashMap<>();
+        final Map<String,T> byClassName = new HashMap<>();
+        final Map<String,Descriptor> byId = new HashMap<>();
+        final Map<String,List<Descriptor>> byShortId = new HashMap<>();
+        final Map<Class<?>,Descriptor> byDescribable = new HashMap<>();
+
+        Index(List<ExtensionComponent<T>> source) {
+            this.source = source;
+            for (ExtensionComponent<T> c : source) {
+                T t = c.getInstance();
+                byClass.putIfAbsent(t.getClass(), t);
+                byClassName.putIfAbsent(t.getClass().getName(), t);
+                if (t instanceof Descriptor) {
+                    Descriptor d = (Descriptor) t;
+                    String id = d.getId();
+                    byId.putIfAbsent(id, d);
+                    byShortId.computeIfAbsent(id.substring(id.lastIndexOf('.') + 1), k -> new ArrayList<>(1)).add(d);
+                    byDescribable.putIfAbsent(d.clazz, d);
+                }
+            }
+        }
     }
 
     private List<ExtensionComponent<T>> ensureLoaded() {
@@ -23,6 +23,8 @@
  */
 package hudson;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import hudson.security.ACLContext;
@@ -60,6 +62,7 @@ import jenkins.YesNoMaybe;
 import jenkins.install.InstallState;
 import jenkins.install.InstallUtil;
 import jenkins.model.Jenkins;
+import jenkins.util.AntClassLoader;
 import jenkins.util.io.OnMaster;
 import jenkins.util.xml.RestrictiveEntityResolver;
 
@@ -126,6 +129,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.UUID;
+import java.util.WeakHashMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
@@ -134,6 +138,8 @@ import java.util.jar.JarFile;
 import java.util.jar.Manifest;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 import org.xml.sax.Attributes;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
@@ -397,11 +403,42 @@ public abstract class PluginManager extends AbstractModelObject implements OnMas
 
                             final Map<String,File> inspectedShortNames = new HashMap<String,File>();
 
+                            // exploding archives and creating class loaders is independent for each plugin, so do it in parallel,
+                            // then go through the results in the original order so that the first of duplicate plugins wins
+                            final Map<File,Object> exploded = new ConcurrentHashMap<File,Object>();
+                            List<Handle> explodes = new ArrayList<Handle>();
+                            // archives with the same base name, like foo.hpi and foo.jpi, are exploded into the same directory,
+                            // so those still need to be exploded one after the other
+                            Map<String,Handle> lastExplodeByBaseName = new HashMap<String,Handle>();
                             for( final File arc : archives ) {
-                                g.followedBy().notFatal().attains(PLUGINS_LISTED).add("Inspecting plugin " + arc, new Executable() {
+                                String baseName = FilenameUtils.getBaseName(arc.getName());
+                                Handle previous = lastExplodeByBaseName.get(baseName);
+                                Handle explode = (previous == null ? g : g.requires(previous)).notFatal().add("Exploding plugin " + arc, new Executable() {
                                     public void run(Reactor session1) throws Exception {
                                         try {
-                                            PluginWrapper p = strategy.createPluginWrapper(arc);
+                                            exploded.put(arc, strategy.createPluginWrapper(arc));
+                                        } catch (IOException e) {
+                                            exploded.put(arc, e);
+                                        }
+                                    }
+                                });
+                                lastExplodeByBaseName.put(baseName, explode);
+                                explodes.add(explode);
+                            }
+
+                            for (int i = 0; i < archives.size(); i++) {
+                                final File arc = archives.get(i);
+                                g.followedBy().requires(explodes.get(i)).notFatal().attains(PLUGINS_LISTED).add("Inspecting plugin " + arc, new Executable() {
+                                    public void run(Reactor session1) throws Exception {
+                                        try {
+                                            Object o = exploded.remove(arc);
+                                            if (o instanceof IOException) {
+                                                throw (IOException) o;
+                                            }
+                                            if (o == null) {
+                                                return; // failed with an unexpected error, already reported
+                                            }
+                                            PluginWrapper p = (PluginWrapper) o;
                                             if (isDuplicate(p)) return;
 
                                             p.isBundled = containsHpiJpi(bundledPlugins, arc.getName());
@@ -868,9 +905,7 @@ public abstract class PluginManager extends AbstractModelObject implements OnMas
             plugins.add(p);
             if (p.isActive())
                 activePlugins.add(p);
-            synchronized (((UberClassLoader) uberClassLoader).loaded) {
-                ((UberClassLoader) uberClassLoader).loaded.clear();
-            }
+            ((UberClassLoader) uberClassLoader).invalidate();
 
             // TODO antimodular; perhaps should have a PluginListener to complement ExtensionListListener?
             CustomClassFilter.Contributed.load();
@@ -1846,8 +1881,14 @@ public abstract class PluginManager extends AbstractModelObject implements OnMas
          * Keyed by the generated class name.
          */
         private ConcurrentMap<String, WeakReference<Class>> generatedClasses = new ConcurrentHashMap<String, WeakReference<Class>>();
-        /** Cache of loaded, or known to be unloadable, classes. */
-        private final Map<String,Class<?>> loaded = new HashMap<String,Class<?>>();
+        /** Cache of loaded classes. */
+        private final ConcurrentMap<String,Class<?>> loaded = new ConcurrentHashMap<String,Class<?>>();
+        /** Names of classes known to be unloadable. */
+        private final Cache<String,Boolean> misses = CacheBuilder.newBuilder().maximumSize(Math.max(NEGATIVE_CACHE_SIZE, 0)).build();
+        /** Directories in the class path of each plugin class loader, or {@link #UNINDEXED}. */
+        private final Map<ClassLoader,Set<String>> directories = Collections.synchronizedMap(new WeakHashMap<ClassLoader,Set<String>>());
+        private final Set<String> UNINDEXED = Collections.unmodifiableSet(new HashSet<String>());
+        private volatile PackageIndex index;
 
         public UberClassLoader() {
             super(PluginManager.class.getClassLoader());
@@ -1857,6 +1898,33 @@ public abstract class PluginManager extends AbstractModelObject implements OnMas
             generatedClasses.put(className,new WeakReference<Class>(c));
         }
 
+        /**
+         * Forgets cached lookups, since a plugin was added.
+         */
+        void invalidate() {
+            loaded.clear();
+            misses.invalidateAll();
+            index = null;
+        }
+
+        /**
+         * Unlike {@link ClassLoader#loadClass(String, boolean)}, does not lock this class loader,
+         * since it never defines classes itself and is used from many threads at once.
+         */
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            Class<?> c;
+            try {
+                c = getParent().loadClass(name);
+            } catch (ClassNotFoundException e) {
+                c = findClass(name);
+            }
+            if (resolve) {
+                resolveClass(c);
+            }
+            return c;
+        }
+
         @Override
         protected Class<?> findClass(String name) throws ClassNotFoundException {
             WeakReference<Class> wc = generatedClasses.get(name);
@@ -1869,38 +1937,39 @@ public abstract class PluginManager extends AbstractModelObject implements OnMas
             if (name.startsWith("SimpleTemplateScript")) { // cf. groovy.text.SimpleTemplateEngine
                 throw new ClassNotFoundException("ignoring " + name);
             }
-            synchronized (loaded) {
-                if (loaded.containsKey(name)) {
-                    Class<?> c = loaded.get(name);
-                    if (c != null) {
-                        return c;
-                    } else {
-                        throw new ClassNotFoundException("cached miss for " + name);
-                    }
-                }
+            Class<?> c = loaded.get(name);
+            if (c != null) {
+                return c;
+            }
+            if (misses.getIfPresent(name) != null) {
+                throw new ClassNotFoundException("cached miss for " + name);
             }
+            int dot = name.lastIndexOf('.');
+            Iterable<PluginWrapper> plugins = candidates(dot < 0 ? "" : name.substring(0, dot).replace('.', '/'));
             if (FAST_LOOKUP) {
-                for (PluginWrapper p : activePlugins) {
+                for (PluginWrapper p : plugins) {
                     try {
-                        Class<?> c = ClassLoaderReflectionToolkit._findLoadedClass(p.classLoader, name);
-                        if (c != null) {
-                            synchronized (loaded) {
-                                loaded.put(name, c);
+                        c = ClassLoaderReflectionToolkit._findLoadedClass(p.classLoader, name);
+                        if (c == null) {
+                            try {
+                                // calling findClass twice appears to cause LinkageError: duplicate class def
+                                c = ClassLoaderReflectionToolkit._findClass(p.classLoader, name);
+                            } catch (LinkageError e) {
+                                // unless another thread got there first, in which case use its result
+                                c = ClassLoaderReflectionToolkit._findLoadedClass(p.classLoader, name);
+                                if (c == null) {
+                                    throw e;
+                                }
                             }
-                            return c;
-                        }
-                        // calling findClass twice appears to cause LinkageError: duplicate class def
-                        c = ClassLoaderReflectionToolkit._findClass(p.classLoader, name);
-                        synchronized (loaded) {
-                            loaded.put(name, c);
                         }
+                        loaded.put(name, c);
                         return c;
                     } catch (ClassNotFoundException e) {
                         //not found. try next
                     }
                 }
             } else {
-                for (PluginWrapper p : activePlugins) {
+                for (PluginWrapper p : plugins) {
                     try {
                         return p.classLoader.loadClass(name);
                     } catch (ClassNotFoundException e) {
@@ -1908,23 +1977,23 @@ public abstract class PluginManager extends AbstractModelObject implements OnMas
                     }
                 }
             }
-            synchronized (loaded) {
-                loaded.put(name, null);
-            }
+            misses.put(name, true);
             // not found in any of the classloader. delegate.
             throw new ClassNotFoundException(name);
         }
 
         @Override
         protected URL findResource(String name) {
+            int slash = name.lastIndexOf('/');
+            Iterable<PluginWrapper> plugins = candidates(slash < 0 ? "" : name.substring(0, slash));
             if (FAST_LOOKUP) {
-                    for (PluginWrapper p : activePlugins) {
+                    for (PluginWrapper p : plugins) {
                         URL url = ClassLoaderReflectionToolkit._findResource(p.classLoader, name);
                         if(url!=null)
                             return url;
                     }
             } else {
-                for (PluginWrapper p : activePlugins) {
+                for (PluginWrapper p : plugins) {
                     URL url = p.classLoader.getResource(name);
                     if(url!=null)
                         return url;
@@ -1933,15 +2002,140 @@ public abstract class PluginManager extends AbstractModelObject implements OnMas
             return null;
         }
 
+        /**
+         * Active plugins, in order, which may have files in the given directory of their class path.
+         */
+        private Iterable<PluginWrapper> candidates(String directory) {
+            if (!PACKAGE_INDEX) {
+                return activePlugins;
+            }
+            PackageIndex i = index;
+            if (i == null || i.size != activePlugins.size()) {
+                index = i = new PackageIndex();
+            }
+            return i.get(directory);
+        }
+
+        /**
+         * Maps each directory of the plugin class paths, such as {@code org/example}, to the active plugins having files there.
+         * Plugins whose class path cannot be listed are included everywhere.
+         */
+        private final class PackageIndex {
+            private final int size;
+            private final Map<String,List<PluginWrapper>> byDirectory = new HashMap<String,List<PluginWrapper>>();
+            /** Plugins whose class path cannot be listed. */
+            private final List<PluginWrapper> unindexed = new ArrayList<PluginWrapper>();
+
+            PackageIndex() {
+                PluginWrapper[] plugins = activePlugins.toArray(new PluginWrapper[0]);
+                size = plugins.length;
+                for (PluginWrapper p : plugins) {
+                    Set<String> dirs = directoriesOf(p.classLoader);
+                    if (dirs == UNINDEXED) {
+                        unindexed.add(p);
+                        for (List<PluginWrapper> l : byDirectory.values()) {
+                            l.add(p);
+                        }
+                    } else {
+                        for (String dir : dirs) {
+                            List<PluginWrapper> l = byDirectory.get(dir);
+                            if (l == null) {
+                                // plugins which could not be indexed so far come first
+                                byDirectory.put(dir, l = new ArrayList<PluginWrapper>(unindexed));
+                            }
+                            l.add(p);
+                        }
+                    }
+                }
+            }
+
+            List<PluginWrapper> get(String directory) {
+                List<PluginWrapper> l = byDirectory.get(directory);
+                return l != null ? l : unindexed;
+            }
+        }
+
+        private Set<String> directoriesOf(ClassLoader cl) {
+            Set<String> dirs = directories.get(cl);
+            if (dirs == null) {
+                dirs = listDirectories(cl);
+                directories.put(cl, dirs);
+            }
+            return dirs;
+        }
+
+        private Set<String> listDirectories(ClassLoader cl) {
+            List<File> path = new ArrayList<File>();
+            try {
+                if (cl instanceof AntClassLoader) {
+                    Set<String> indexed = ((AntClassLoader) cl).getIndexedDirectories();
+                    if (indexed != null) {
+                        return indexed;
+                    }
+                    for (String e : ((AntClassLoader) cl).getClasspath().split(File.pathSeparator)) {
+                        if (!e.isEmpty()) {
+                            path.add(new File(e));
+                        }
+                    }
+                } else if (cl instanceof URLClassLoader) {
+                    for (URL u : ((URLClassLoader) cl).getURLs()) {
+                        if (!u.getProtocol().equals("file")) {
+                            return UNINDEXED;
+                        }
+                        path.add(new File(u.toURI()));
+                    }
+                } else {
+                    return UNINDEXED;
+                }
+                Set<String> dirs = new HashSet<String>();
+                for (File f : path) {
+                    if (f.isDirectory()) {
+                        listDirectories(f, "", dirs);
+                    } else if (f.isFile()) {
+                        try (ZipFile z = new ZipFile(f)) {
+                            Enumeration<? extends ZipEntry> entries = z.entries();
+                            while (entries.hasMoreElements()) {
+                                ZipEntry e = entries.nextElement();
+                                if (!e.isDirectory()) {
+                                    int slash = e.getName().lastIndexOf('/');
+                                    dirs.add(slash < 0 ? "" : e.getName().substring(0, slash));
+                                }
+                            }
+                        }
+                    }
+                }
+                return dirs;
+            } catch (IOException | URISyntaxException | RuntimeException e) {
+                LOGGER.log(Level.FINE, "Failed to list the class path of " + cl, e);
+                return UNINDEXED;
+            }
+        }
+
+        private void listDirectories(File dir, String prefix, Set<String> dirs) {
+            File[] children = dir.listFiles();
+            if (children == null) {
+                return;
+            }
+            for (File child : children) {
+                if (child.isDirectory()) {
+                    listDirectories(child, prefix + child.getName() + '/', dirs);
+                } else {
+                    dirs.add(prefix.isEmpty() ? "" : prefix.substring(0, prefix.length() - 1));
+                }
+            }
+        }
+
         @Override
         protected Enumeration<URL> findResources(String name) throws IOException {
             List<URL> resources = new ArrayList<URL>();
+            int slash = name.lastIndexOf('/');
+            Iterable<PluginWrapper> plugins = candidates(slash < 0 ? "" : name.substring(0, slash));
             if (FAST_LOOKUP) {
-                    for (PluginWrapper p : activePlugins) {
+                    for (PluginWrapper p : plugins) {
                         resources.addAll(Collections.list(ClassLoaderReflectionToolkit._findResources(p.classLoader, name)));
                     }
             } else {
-                for (PluginWrapper p : activePlugins) {
+                for (PluginWrapper p : plugins) {
                     resources.addAll(Collections.list(p.classLoader.getResources(name)));
                 }
             }
@@ -1959,6 +2153,16 @@ public abstract class PluginManager extends AbstractModelObject implements OnMas
 
     public static boolean FAST_LOOKUP = !SystemProperties.getBoolean(PluginManager.class.getName()+".noFastLookup");
 
+    /**
+     * Whether {@link UberClassLoader} only searches the plugins having files in the package of the class or resource.
+     */
+    static boolean PACKAGE_INDEX = !SystemProperties.getBoolean(PluginManager.class.getName()+".noPackageIndex");
+
+    /**
+     * Number of class names {@link UberClassLoader} remembers as not found.
+     */
+    static int NEGATIVE_CACHE_SIZE = SystemProperties.getInteger(PluginManager.class.getName()+".negativeCacheSize", 10000);
+
     public static final Permission UPLOAD_PLUGINS = new Permission(Jenkins.PERMISSIONS, "UploadPlugins", Messages._PluginManager_UploadPluginsPermission_Description(),Jenkins.ADMINISTER,PermissionScope.JENKINS);
     public static final Permission CONFIGURE_UPDATECENTER = new Permission(Jenkins.PERMISSIONS, "ConfigureUpdateCenter", Messages._PluginManager_ConfigureUpdateCenterPermission_Description(),Jenkins.ADMINISTER,PermissionScope.JENKINS);
 
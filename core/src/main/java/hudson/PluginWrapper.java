@@ -728,6 +728,13 @@ public class PluginWrapper implements Comparable<PluginWrapper>, ModelObject {
         return !archive.exists();
     }
 
+    /**
+     * The .jpi, .hpi or .jpl file this plugin was loaded from.
+     */
+    /*package*/ File getArchive() {
+        return archive;
+    }
+
     /**
      * Sort by short name.
      */
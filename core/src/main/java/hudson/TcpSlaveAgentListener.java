@@ -25,10 +25,25 @@ package hudson;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import java.io.ByteArrayInputStream;
-import java.io.SequenceInputStream;
+import java.io.EOFException;
 import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
 import java.nio.charset.Charset;
 import java.security.interfaces.RSAPublicKey;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 
 import hudson.model.AperiodicWork;
@@ -37,11 +52,12 @@ import jenkins.model.identity.InstanceIdentityProvider;
 import jenkins.slaves.RemotingVersionInfo;
 import jenkins.util.SystemProperties;
 import hudson.slaves.OfflineCause;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
 import java.io.DataOutputStream;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
-import java.net.SocketAddress;
 import java.util.Arrays;
 import jenkins.AgentProtocol;
 
@@ -79,6 +95,11 @@ import org.kohsuke.accmod.restrictions.NoExternalUse;
  * This class accepts the socket, then after a short handshaking, it dispatches to appropriate
  * {@link AgentProtocol}s.
  *
+ * <p>
+ * The header of each connection is read without blocking by the listener thread itself,
+ * so that slow or numerous clients do not each tie up a thread.
+ * Connections are then handed over to their protocol by a bounded pool of workers.
+ *
  * @author Kohsuke Kawaguchi
  * @see AgentProtocol
  */
@@ -87,6 +108,27 @@ public final class TcpSlaveAgentListener extends Thread {
     private final ServerSocketChannel serverSocket;
     private volatile boolean shuttingDown;
 
+    /**
+     * Watches the server socket and the connections whose header has not been received yet.
+     */
+    private final Selector selector;
+    /**
+     * Connections waiting for their header, only modified by the listener thread.
+     */
+    private final Set<Handshake> handshakes = ConcurrentHashMap.newKeySet();
+    /**
+     * Connections whose header was received, to be handed over to {@link #workers}.
+     */
+    private final Queue<Handshake> completed = new ConcurrentLinkedQueue<>();
+    /**
+     * Hands connections over to their {@link AgentProtocol}.
+     */
+    private final ThreadPoolExecutor workers;
+
+    private final AtomicLong handshakeNanos = new AtomicLong();
+    private final AtomicLong handshakeCount = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
     public final int configuredPort;
 
     /**
@@ -102,6 +144,11 @@ public final class TcpSlaveAgentListener extends Thread {
             throw (BindException)new BindException("Failed to listen on port "+port+" because it's already in use.").initCause(e);
         }
         this.configuredPort = port;
+        this.selector = Selector.open();
+        this.workers = new ThreadPoolExecutor(MAX_HANDSHAKE_WORKERS, MAX_HANDSHAKE_WORKERS, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(ADMISSION_QUEUE_SIZE),
+                new NamingThreadFactory(new DaemonThreadFactory(), "TCP agent connection handler"));
+        this.workers.allowCoreThreadTimeOut(true);
         setUncaughtExceptionHandler((t, e) -> {
             LOGGER.log(Level.SEVERE, "Uncaught exception in TcpSlaveAgentListener " + t + ", attempting to reschedule thread", e);
             shutdown();
@@ -153,103 +200,290 @@ public final class TcpSlaveAgentListener extends Thread {
     @Override
     public void run() {
         try {
+            serverSocket.configureBlocking(false);
+            SelectionKey acceptKey = serverSocket.register(selector, SelectionKey.OP_ACCEPT);
             // the loop eventually terminates when the socket is closed.
             while (!shuttingDown) {
-                Socket s = serverSocket.accept().socket();
-
-                // this prevents a connection from silently terminated by the router in between or the other peer
-                // and that goes without unnoticed. However, the time out is often very long (for example 2 hours
-                // by default in Linux) that this alone is enough to prevent that.
-                s.setKeepAlive(true);
-                // we take care of buffering on our own
-                s.setTcpNoDelay(true);
-
-                new ConnectionHandler(s, new ConnectionHandlerFailureCallback(this) {
-                    @Override
-                    public void run(Throwable cause) {
-                        LOGGER.log(Level.WARNING, "Connection handler failed, restarting listener", cause);
-                        shutdown();
-                        TcpSlaveAgentListenerRescheduler.schedule(getParentThread(), cause);
+                selector.select(1000);
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key == acceptKey) {
+                        accept();
+                    } else {
+                        ((Handshake) key.attachment()).read(key);
                     }
-                }).start();
+                }
+                expireHandshakes();
+                // flush the cancelled keys, so that their channels can be switched back to blocking mode
+                selector.selectNow();
+                for (Handshake h; (h = completed.poll()) != null; ) {
+                    dispatch(h);
+                }
+                // admission control: leave further connections in the OS backlog while we are busy
+                int ops = handshakes.size() < MAX_PENDING_HANDSHAKES && workers.getQueue().size() < ADMISSION_QUEUE_SIZE
+                        ? SelectionKey.OP_ACCEPT : 0;
+                if (acceptKey.interestOps() != ops) {
+                    acceptKey.interestOps(ops);
+                }
             }
         } catch (IOException e) {
             if(!shuttingDown) {
                 LOGGER.log(Level.SEVERE,"Failed to accept TCP connections", e);
             }
+        } finally {
+            for (Handshake h : handshakes) {
+                h.abort();
+            }
+            handshakes.clear();
+            try {
+                selector.close();
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, "Failed to close selector", e);
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel ch;
+        while (handshakes.size() < MAX_PENDING_HANDSHAKES && (ch = serverSocket.accept()) != null) {
+            Socket s = ch.socket();
+            // this prevents a connection from silently terminated by the router in between or the other peer
+            // and that goes without unnoticed. However, the time out is often very long (for example 2 hours
+            // by default in Linux) that this alone is enough to prevent that.
+            s.setKeepAlive(true);
+            // we take care of buffering on our own
+            s.setTcpNoDelay(true);
+
+            ch.configureBlocking(false);
+            Handshake h = new Handshake(ch);
+            handshakes.add(h);
+            ch.register(selector, SelectionKey.OP_READ, h);
+            LOGGER.log(Level.FINE, "Accepted connection #{0} from {1}", new Object[] {h.id, s.getRemoteSocketAddress()});
+        }
+    }
+
+    private void expireHandshakes() {
+        long now = System.nanoTime();
+        for (Iterator<Handshake> it = handshakes.iterator(); it.hasNext(); ) {
+            Handshake h = it.next();
+            if (now - h.start > TimeUnit.SECONDS.toNanos(HANDSHAKE_TIMEOUT_SECONDS)) {
+                it.remove();
+                LOGGER.log(Level.WARNING, "Connection #{0} from {1} timed out before sending its protocol", new Object[] {h.id, h.channel.socket().getRemoteSocketAddress()});
+                h.abort();
+            }
         }
     }
 
+    private void dispatch(Handshake h) {
+        try {
+            h.channel.configureBlocking(true);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Connection #" + h.id + " failed", e);
+            h.abort();
+            return;
+        }
+        ConnectionHandler handler = new ConnectionHandler(h);
+        String protocol = h.getProtocolName();
+        AgentProtocol p = protocol == null ? null : AgentProtocol.of(protocol);
+        if (p != null && p.isDeprecated()) {
+            // legacy protocols may keep the thread for the whole session, so do not let them use up the pool
+            Thread t = new Thread(handler, handler.getName());
+            t.setDaemon(true);
+            t.start();
+            return;
+        }
+        try {
+            workers.execute(handler);
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            LOGGER.log(Level.WARNING, "Too many pending connections, dropping connection #{0} from {1}", new Object[] {h.id, h.channel.socket().getRemoteSocketAddress()});
+            h.abort();
+        }
+    }
+
+    /**
+     * Number of connections accepted but not handed over to their protocol yet.
+     * @since TODO
+     */
+    public int getHandshakeBacklog() {
+        return handshakes.size() + completed.size() + workers.getQueue().size();
+    }
+
+    /**
+     * Number of connections currently handled by the worker pool.
+     * @since TODO
+     */
+    public int getActiveHandshakes() {
+        return workers.getActiveCount();
+    }
+
+    /**
+     * Average time from accepting a connection until its protocol starts handling it, in milliseconds.
+     * @since TODO
+     */
+    public long getAverageHandshakeMillis() {
+        long n = handshakeCount.get();
+        return n == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(handshakeNanos.get() / n);
+    }
+
+    /**
+     * Number of connections dropped because the admission queue was full.
+     * @since TODO
+     */
+    public long getRejectedConnections() {
+        return rejected.get();
+    }
+
     /**
      * Initiates the shuts down of the listener.
      */
     public void shutdown() {
         shuttingDown = true;
-        try {
-            SocketAddress localAddress = serverSocket.getLocalAddress();
-            if (localAddress instanceof InetSocketAddress) {
-                InetSocketAddress address = (InetSocketAddress) localAddress;
-                Socket client = new Socket(address.getHostName(), address.getPort());
-                client.setSoTimeout(1000); // waking the acceptor loop should be quick
-                new PingAgentProtocol().connect(client);
-            }
-        } catch (IOException e) {
-            LOGGER.log(Level.FINE, "Failed to send Ping to wake acceptor loop", e);
-        }
+        selector.wakeup();
         try {
             serverSocket.close();
         } catch (IOException e) {
             LOGGER.log(Level.WARNING, "Failed to close down TCP port",e);
         }
+        workers.shutdown();
     }
 
-    private final class ConnectionHandler extends Thread {
-        private final Socket s;
+    /**
+     * Reads the header of a new connection without blocking, from the selector thread.
+     */
+    private final class Handshake {
+        private final SocketChannel channel;
         /**
          * Unique number to identify this connection. Used in the log.
          */
         private final int id;
+        private final long start = System.nanoTime();
+        /**
+         * The first few bytes, or once we know this is an {@link AgentProtocol}, exactly its {@code Protocol:} line.
+         * We must not read beyond it, since the rest belongs to the protocol.
+         */
+        private ByteBuffer head = ByteBuffer.allocate(HEAD_LENGTH);
 
-        public ConnectionHandler(Socket s, ConnectionHandlerFailureCallback parentTerminator) {
-            this.s = s;
-            synchronized(getClass()) {
+        Handshake(SocketChannel channel) {
+            this.channel = channel;
+            synchronized(TcpSlaveAgentListener.class) {
                 id = iotaGen++;
             }
-            setName("TCP agent connection handler #"+id+" with "+s.getRemoteSocketAddress());
-            setUncaughtExceptionHandler((t, e) -> {
-                LOGGER.log(Level.SEVERE, "Uncaught exception in TcpSlaveAgentListener ConnectionHandler " + t, e);
-                try {
-                    s.close();
-                    parentTerminator.run(e);
-                } catch (IOException e1) {
-                    LOGGER.log(Level.WARNING, "Could not close socket after unexpected thread death", e1);
+        }
+
+        void read(SelectionKey key) {
+            try {
+                if (channel.read(head) < 0) {
+                    throw new EOFException("Connection closed before sending its protocol");
                 }
-            });
+                if (head.hasRemaining()) {
+                    return;
+                }
+                if (head.capacity() == HEAD_LENGTH && !isHttp()) {
+                    // DataOutput.writeUTF prefix
+                    int length = 2 + ((head.get(0) & 0xff) << 8 | head.get(1) & 0xff);
+                    if (length > HEAD_LENGTH) {
+                        head = ByteBuffer.allocate(length).put((ByteBuffer) head.flip());
+                        return;
+                    }
+                }
+                key.cancel();
+                handshakes.remove(this);
+                completed.add(this);
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Connection #" + id + " failed", e);
+                handshakes.remove(this);
+                abort();
+            }
+        }
+
+        boolean isHttp() {
+            return getHeader().startsWith("GET ");
+        }
+
+        String getHeader() {
+            return new String(head.array(), 0, Math.min(HEAD_LENGTH, head.position()), Charsets.US_ASCII);
+        }
+
+        /**
+         * The requested protocol, if this is an {@link AgentProtocol} connection.
+         */
+        @CheckForNull String getProtocolName() {
+            if (isHttp()) {
+                return null;
+            }
+            try {
+                String s = readUTF();
+                return s.startsWith("Protocol:") ? s.substring(9) : null;
+            } catch (IOException e) {
+                return null;
+            }
+        }
+
+        String readUTF() throws IOException {
+            return new DataInputStream(new ByteArrayInputStream(head.array(), 0, head.position())).readUTF();
+        }
+
+        void abort() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // try to clean up the socket
+            }
+        }
+    }
+
+    private final class ConnectionHandler implements Runnable {
+        private final Handshake h;
+        private final Socket s;
+        private final int id;
+
+        ConnectionHandler(Handshake h) {
+            this.h = h;
+            this.s = h.channel.socket();
+            this.id = h.id;
+        }
+
+        String getName() {
+            return "TCP agent connection handler #"+id+" with "+s.getRemoteSocketAddress();
         }
 
         @Override
         public void run() {
+            Thread t = Thread.currentThread();
+            String oldName = t.getName();
+            t.setName(getName());
             try {
-                LOGGER.log(Level.FINE, "Accepted connection #{0} from {1}", new Object[] {id, s.getRemoteSocketAddress()});
+                handle();
+            } catch (RuntimeException | Error e) {
+                LOGGER.log(Level.SEVERE, "Uncaught exception in TcpSlaveAgentListener ConnectionHandler " + t, e);
+                h.abort();
+            } finally {
+                t.setName(oldName);
+            }
+        }
 
-                DataInputStream in = new DataInputStream(s.getInputStream());
+        private void handle() {
+            try {
                 PrintWriter out = new PrintWriter(
                         new BufferedWriter(new OutputStreamWriter(s.getOutputStream(),"UTF-8")),
                         true); // DEPRECATED: newer protocol shouldn't use PrintWriter but should use DataOutputStream
 
-                // peek the first few bytes to determine what to do with this client
-                byte[] head = new byte[10];
-                in.readFully(head);
-
-                String header = new String(head, Charsets.US_ASCII);
-                if (header.startsWith("GET ")) {
+                String header = h.getHeader();
+                if (h.isHttp()) {
                     // this looks like an HTTP client
+                    recordLatency();
                     respondHello(header,s);
                     return;
                 }
 
                 // otherwise assume this is AgentProtocol and start from the beginning
-                String s = new DataInputStream(new SequenceInputStream(new ByteArrayInputStream(head),in)).readUTF();
+                String s = h.readUTF();
 
                 if(s.startsWith("Protocol:")) {
                     String protocol = s.substring(9);
@@ -257,6 +491,7 @@ public final class TcpSlaveAgentListener extends Thread {
                     if (p!=null) {
                         if (Jenkins.getInstance().getAgentProtocols().contains(protocol)) {
                             LOGGER.log(p instanceof PingAgentProtocol ? Level.FINE : Level.INFO, "Accepted {0} connection #{1} from {2}", new Object[] {protocol, id, this.s.getRemoteSocketAddress()});
+                            recordLatency();
                             p.handle(this.s);
                         } else {
                             error(out, "Disabled protocol:" + s);
@@ -283,6 +518,11 @@ public final class TcpSlaveAgentListener extends Thread {
             }
         }
 
+        private void recordLatency() {
+            handshakeNanos.addAndGet(System.nanoTime() - h.start);
+            handshakeCount.incrementAndGet();
+        }
+
         /**
          * Respond to HTTP request with simple diagnostics.
          * Primarily used to test the low-level connectivity.
@@ -328,24 +568,11 @@ public final class TcpSlaveAgentListener extends Thread {
         }
     }
 
-    // This is essentially just to be able to pass the parent thread into the callback, as it can't access it otherwise
-    private abstract class ConnectionHandlerFailureCallback {
-        private Thread parentThread;
-
-        public ConnectionHandlerFailureCallback(Thread parentThread) {
-            this.parentThread = parentThread;
-        }
-
-        public Thread getParentThread() {
-            return parentThread;
-        }
-
-        public abstract void run(Throwable cause);
-    }
-
     /**
      * This extension provides a Ping protocol that allows people to verify that the TcpSlaveAgentListener is alive.
-     * We also use this to wake the acceptor thread on termination.
+     * Like any other protocol, the ping is answered from the pool of handshake workers once the selector thread has
+     * read its header, so a response also shows that connections are being handed over to their protocols.
+     * Termination no longer relies on it: {@link #shutdown()} wakes the selector directly.
      *
      * @since 1.653
      */
@@ -514,6 +741,32 @@ public final class TcpSlaveAgentListener extends Thread {
 
     private static int iotaGen=1;
 
+    /**
+     * Number of bytes to look at to tell HTTP requests from {@link AgentProtocol}s.
+     */
+    private static final int HEAD_LENGTH = 10;
+
+    /**
+     * Maximum number of threads handing connections over to their {@link AgentProtocol}.
+     */
+    private static final int MAX_HANDSHAKE_WORKERS = SystemProperties.getInteger(TcpSlaveAgentListener.class.getName() + ".maxHandshakeWorkers", 16);
+
+    /**
+     * Maximum number of connections waiting for a handshake worker.
+     * Beyond that, further connections are left in the OS backlog, and dropped if they got in anyway.
+     */
+    private static final int ADMISSION_QUEUE_SIZE = SystemProperties.getInteger(TcpSlaveAgentListener.class.getName() + ".admissionQueueSize", 256);
+
+    /**
+     * Maximum number of connections we wait for the header of; beyond that we stop accepting for a while.
+     */
+    private static final int MAX_PENDING_HANDSHAKES = SystemProperties.getInteger(TcpSlaveAgentListener.class.getName() + ".maxPendingHandshakes", 1024);
+
+    /**
+     * How long a client may take to send its header.
+     */
+    private static final long HANDSHAKE_TIMEOUT_SECONDS = SystemProperties.getLong(TcpSlaveAgentListener.class.getName() + ".handshakeTimeoutSeconds", 60L);
+
     private static final Logger LOGGER = Logger.getLogger(TcpSlaveAgentListener.class.getName());
 
     /**
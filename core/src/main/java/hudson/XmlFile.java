@@ -23,6 +23,8 @@
  */
 package hudson;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.thoughtworks.xstream.XStream;
 import com.thoughtworks.xstream.converters.Converter;
 import com.thoughtworks.xstream.converters.UnmarshallingContext;
@@ -33,6 +35,9 @@ import hudson.util.AtomicFileWriter;
 import hudson.util.XStream2;
 import java.nio.file.Files;
 import java.nio.file.InvalidPathException;
+import jenkins.util.SystemProperties;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
 import org.xml.sax.Attributes;
 import org.xml.sax.InputSource;
 import org.xml.sax.Locator;
@@ -42,14 +47,17 @@ import org.xml.sax.helpers.DefaultHandler;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParserFactory;
 import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.Reader;
 import java.io.Serializable;
 import java.io.Writer;
 import java.io.StringWriter;
+import javax.annotation.CheckForNull;
 import java.util.Collections;
 import java.util.IdentityHashMap;
 import java.util.Map;
@@ -110,6 +118,17 @@ import org.apache.commons.io.IOUtils;
  * There's a few other possibilities, such as implementing a custom
  * {@link Converter} for XStream, or {@link XStream#alias(String, Class) registering an alias}.
  *
+ * <h2>Caching</h2>
+ * <p>
+ * The raw contents of files served by {@link #asString()}, {@link #writeRawTo(Writer)} and the like
+ * are kept in a memory-bounded cache along with their encoding, so that repeatedly serving an unchanged
+ * file, such as {@code config.xml} over the REST API, neither touches the disk nor sniffs the encoding again.
+ * Entries are keyed by the path and remembered with the size and modification time of the file,
+ * and are dropped by {@link #write(Object)} and {@link #delete()}.
+ * {@link #read()} and {@link #unmarshal(Object)} parse from a cached copy when there is one,
+ * but do not add to the cache, since most files are only loaded once.
+ * Unmarshalled objects are never shared, as callers are free to modify them.
+ *
  * @see <a href="https://wiki.jenkins-ci.org/display/JENKINS/Architecture#Architecture-Persistence">Architecture » Persistence</a>
  * @author Kohsuke Kawaguchi
  */
@@ -143,7 +162,7 @@ public final class XmlFile {
         if (LOGGER.isLoggable(Level.FINE)) {
             LOGGER.fine("Reading "+file);
         }
-        try (InputStream in = new BufferedInputStream(Files.newInputStream(file.toPath()))) {
+        try (InputStream in = open()) {
             return xs.fromXML(in);
         } catch (RuntimeException | Error e) {
             throw new IOException("Unable to read "+file,e);
@@ -170,7 +189,7 @@ public final class XmlFile {
     }
 
     private Object unmarshal(Object o, boolean nullOut) throws IOException {
-        try (InputStream in = new BufferedInputStream(Files.newInputStream(file.toPath()))) {
+        try (InputStream in = open()) {
             // TODO: expose XStream the driver from XStream
             if (nullOut) {
                 return ((XStream2) xs).unmarshal(DEFAULT_DRIVER.createReader(in), o, null, true);
@@ -200,6 +219,22 @@ public final class XmlFile {
             throw new IOException(e);
         } finally {
             w.abort();
+            invalidate();
+        }
+    }
+
+    /**
+     * Opens the file for parsing, from the cached copy if it is still current.
+     */
+    private InputStream open() throws IOException {
+        RawContent c = cached();
+        if (c != null) {
+            return new ByteArrayInputStream(c.bytes);
+        }
+        try {
+            return new BufferedInputStream(Files.newInputStream(file.toPath()));
+        } catch (InvalidPathException e) {
+            throw new IOException(e);
         }
     }
 
@@ -230,6 +265,7 @@ public final class XmlFile {
 
     public void delete() {
         file.delete();
+        invalidate();
     }
     
     public void mkdirs() {
@@ -249,6 +285,10 @@ public final class XmlFile {
      * @return Reader for the file. should be close externally once read.
      */
     public Reader readRaw() throws IOException {
+        RawContent c = load();
+        if (c != null) {
+            return new InputStreamReader(new ByteArrayInputStream(c.bytes), c.encoding);
+        }
         try {
             InputStream fileInputStream = Files.newInputStream(file.toPath());
             try {
@@ -283,6 +323,24 @@ public final class XmlFile {
         }
     }
 
+    /**
+     * Writes the XML to the given {@link OutputStream} byte for byte, without decoding it.
+     * The stream will not be closed by the implementation.
+     */
+    @Restricted(NoExternalUse.class)
+    public void writeRawTo(OutputStream os) throws IOException {
+        RawContent c = load();
+        if (c != null) {
+            os.write(c.bytes);
+        } else {
+            try {
+                Files.copy(file.toPath(), os);
+            } catch (InvalidPathException e) {
+                throw new IOException(e);
+            }
+        }
+    }
+
     /**
      * Parses the beginning of the file and determines the encoding.
      *
@@ -292,6 +350,14 @@ public final class XmlFile {
      *      always non-null.
      */
     public String sniffEncoding() throws IOException {
+        RawContent c = load();
+        if (c != null) {
+            return c.encoding;
+        }
+        return doSniffEncoding();
+    }
+
+    private String doSniffEncoding() throws IOException {
         class Eureka extends SAXException {
             final String encoding;
             public Eureka(String encoding) {
@@ -348,6 +414,93 @@ public final class XmlFile {
         }
     }
 
+    /**
+     * Gets the cached contents of this file, if they are still current.
+     */
+    private @CheckForNull RawContent cached() {
+        if (RAW_CACHE_SIZE <= 0) {
+            return null;
+        }
+        RawContent c = RAW_CACHE.getIfPresent(file.getAbsolutePath());
+        if (c == null || c.length != file.length() || c.lastModified != file.lastModified()) {
+            return null;
+        }
+        return c;
+    }
+
+    /**
+     * Gets the cached contents of this file, reading them into the cache first if necessary.
+     *
+     * @return null if the file is not to be cached, in which case the caller should read it directly.
+     */
+    private @CheckForNull RawContent load() throws IOException {
+        RawContent c = cached();
+        if (c != null || RAW_CACHE_SIZE <= 0) {
+            return c;
+        }
+        long length = file.length(), lastModified = file.lastModified();
+        if (lastModified == 0L || length > RAW_CACHE_SIZE / 16) {
+            // missing, or too large to be worth evicting everything else for
+            return null;
+        }
+        if (System.currentTimeMillis() - lastModified < RACY_MILLIS) {
+            // the file might be modified again within the granularity of the file system timestamps
+            // without its size changing, and we would not notice
+            return null;
+        }
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(file.toPath());
+        } catch (InvalidPathException e) {
+            throw new IOException(e);
+        }
+        String encoding = doSniffEncoding();
+        if (bytes.length != length || file.length() != length || file.lastModified() != lastModified) {
+            // changed while we were reading it
+            return null;
+        }
+        c = new RawContent(bytes, encoding, length, lastModified);
+        RAW_CACHE.put(file.getAbsolutePath(), c);
+        return c;
+    }
+
+    private void invalidate() {
+        RAW_CACHE.invalidate(file.getAbsolutePath());
+    }
+
+    /**
+     * Contents of a file as of the given size and modification time.
+     */
+    private static final class RawContent {
+        final byte[] bytes;
+        final String encoding;
+        final long length;
+        final long lastModified;
+
+        RawContent(byte[] bytes, String encoding, long length, long lastModified) {
+            this.bytes = bytes;
+            this.encoding = encoding;
+            this.length = length;
+            this.lastModified = lastModified;
+        }
+    }
+
+    /**
+     * Maximum number of bytes of raw XML kept in memory; 0 disables the cache.
+     * Files larger than a sixteenth of this are never cached.
+     */
+    static long RAW_CACHE_SIZE = SystemProperties.getLong(XmlFile.class.getName() + ".rawCacheSize", 16L * 1024 * 1024);
+
+    /**
+     * Files modified more recently than this are not cached, as a later modification might not change the timestamp.
+     */
+    static long RACY_MILLIS = 2000;
+
+    private static final Cache<String,RawContent> RAW_CACHE = CacheBuilder.newBuilder()
+            .maximumWeight(Math.max(RAW_CACHE_SIZE, 0))
+            .weigher((String path, RawContent c) -> c.bytes.length)
+            .build();
+
     /**
      * {@link XStream} instance is supposed to be thread-safe.
      */
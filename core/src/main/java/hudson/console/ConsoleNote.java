@@ -23,6 +23,8 @@
  */
 package hudson.console;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import hudson.ExtensionPoint;
 import hudson.Functions;
 import hudson.MarkupText;
@@ -45,10 +47,13 @@ import java.io.ObjectOutputStream;
 import java.io.OutputStream;
 import java.io.Serializable;
 import java.io.Writer;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import com.jcraft.jzlib.GZIPInputStream;
 import com.jcraft.jzlib.GZIPOutputStream;
 import hudson.remoting.ClassFilter;
@@ -107,6 +112,11 @@ import org.jenkinsci.remoting.util.AnonymousClassWarnings;
  * is also important, although {@link ConsoleNote}s that failed to deserialize will be simply ignored, so the
  * worst thing that can happen is that you just lose some notes.
  *
+ * <p>
+ * A few notes from core that are emitted in large numbers, such as {@link HyperlinkNote}, use a more compact
+ * binary encoding in place of Java serialization. Notes known to be immutable are also decoded only once
+ * for a given encoded form, and subsequent reads return the same instance.
+ *
  * <h2>Behaviour, JavaScript, and CSS</h2>
  * <p>
  * {@link ConsoleNote} can have associated <tt>script.js</tt> and <tt>style.css</tt> (put them
@@ -132,6 +142,31 @@ public abstract class ConsoleNote<T> implements Serializable, Describable<Consol
      */
     static /* nonfinal for tests & script console */ boolean INSECURE = SystemProperties.getBoolean(ConsoleNote.class.getName() + ".INSECURE");
 
+    /**
+     * Maximum number of decoded notes kept around, see {@link #DECODED}.
+     */
+    private static final int DECODED_CACHE_SIZE = SystemProperties.getInteger(ConsoleNote.class.getName() + ".decodedCacheSize", 10000);
+
+    /**
+     * Decoded notes keyed by their signed encoded form, so that rendering a log does not
+     * need to verify and deserialize the same note over and over.
+     * Only holds notes of {@link #SHAREABLE} types, since the same instance is handed out to every reader.
+     */
+    private static final Cache<ByteBuffer,ConsoleNote> DECODED = CacheBuilder.newBuilder().maximumSize(DECODED_CACHE_SIZE).build();
+
+    /**
+     * Note types that carry no mutable state, and can therefore be shared across readers.
+     */
+    private static final Set<Class<?>> SHAREABLE = new HashSet<Class<?>>(Arrays.<Class<?>>asList(
+            HyperlinkNote.class, ModelHyperlinkNote.class, ExpandableDetailsNote.class, HudsonExceptionNote.class));
+
+    /**
+     * First byte of a compactly encoded note, which a gzip stream never starts with.
+     */
+    private static final byte COMPACT = 0;
+    private static final byte COMPACT_HYPERLINK = 1;
+    private static final byte COMPACT_MODEL_HYPERLINK = 2;
+
     /**
      * When the line of a console output that this annotation is attached is read by someone,
      * a new {@link ConsoleNote} is de-serialized and this method is invoked to annotate that line.
@@ -181,8 +216,10 @@ public abstract class ConsoleNote<T> implements Serializable, Describable<Consol
 
     private ByteArrayOutputStream encodeToBytes() throws IOException {
         ByteArrayOutputStream buf = new ByteArrayOutputStream();
-        try (ObjectOutputStream oos = AnonymousClassWarnings.checkingObjectOutputStream(new GZIPOutputStream(buf))) {
-            oos.writeObject(this);
+        if (!writeCompact(this, buf)) {
+            try (ObjectOutputStream oos = AnonymousClassWarnings.checkingObjectOutputStream(new GZIPOutputStream(buf))) {
+                oos.writeObject(this);
+            }
         }
 
         ByteArrayOutputStream buf2 = new ByteArrayOutputStream();
@@ -246,20 +283,37 @@ public abstract class ConsoleNote<T> implements Serializable, Describable<Consol
             if (!Arrays.equals(postamble,POSTAMBLE))
                 return null;    // not a valid postamble
 
+            ByteBuffer key = null;
             if (mac == null) {
                 if (!INSECURE) {
                     throw new IOException("Refusing to deserialize unsigned note from an old log.");
                 }
-            } else if (!MAC.checkMac(buf, mac)) {
-                throw new IOException("MAC mismatch");
+            } else {
+                // a hit means this very note, signature included, has been verified before
+                key = ByteBuffer.allocate(mac.length + buf.length).put(mac).put(buf);
+                key.flip();
+                ConsoleNote cached = DECODED.getIfPresent(key);
+                if (cached != null) {
+                    return cached;
+                }
+                if (!MAC.checkMac(buf, mac)) {
+                    throw new IOException("MAC mismatch");
+                }
             }
 
-            Jenkins jenkins = Jenkins.getInstance();
-            try (ObjectInputStream ois = new ObjectInputStreamEx(new GZIPInputStream(new ByteArrayInputStream(buf)),
-                    jenkins != null ? jenkins.pluginManager.uberClassLoader : ConsoleNote.class.getClassLoader(),
-                    ClassFilter.DEFAULT)) {
-                return (ConsoleNote) ois.readObject();
+            ConsoleNote note = readCompact(buf);
+            if (note == null) {
+                Jenkins jenkins = Jenkins.getInstance();
+                try (ObjectInputStream ois = new ObjectInputStreamEx(new GZIPInputStream(new ByteArrayInputStream(buf)),
+                        jenkins != null ? jenkins.pluginManager.uberClassLoader : ConsoleNote.class.getClassLoader(),
+                        ClassFilter.DEFAULT)) {
+                    note = (ConsoleNote) ois.readObject();
+                }
+            }
+            if (key != null && note != null && SHAREABLE.contains(note.getClass())) {
+                DECODED.put(key, note);
             }
+            return note;
         } catch (Error e) {
             // for example, bogus 'sz' can result in OutOfMemoryError.
             // package that up as IOException so that the caller won't fatally die.
@@ -267,6 +321,56 @@ public abstract class ConsoleNote<T> implements Serializable, Describable<Consol
         }
     }
 
+    /**
+     * Writes notes that are known to be emitted in large numbers in a compact form,
+     * avoiding the overhead of Java serialization and gzip on both ends.
+     *
+     * @return false if the note has no compact form, in which case nothing is written.
+     */
+    private static boolean writeCompact(ConsoleNote<?> note, OutputStream out) throws IOException {
+        byte type;
+        if (note.getClass() == HyperlinkNote.class) {
+            type = COMPACT_HYPERLINK;
+        } else if (note.getClass() == ModelHyperlinkNote.class) {
+            type = COMPACT_MODEL_HYPERLINK;
+        } else {
+            return false;
+        }
+        HyperlinkNote h = (HyperlinkNote) note;
+        if (h.getUrl().length() > MAX_COMPACT_URL_LENGTH) {
+            return false; // might not fit in writeUTF
+        }
+        DataOutputStream dos = new DataOutputStream(out);
+        dos.writeByte(COMPACT);
+        dos.writeByte(type);
+        dos.writeUTF(h.getUrl());
+        dos.writeInt(h.getLength());
+        dos.flush();
+        return true;
+    }
+
+    /**
+     * Reads back what {@link #writeCompact(ConsoleNote, OutputStream)} wrote.
+     *
+     * @return null if the given bytes are not in the compact form.
+     */
+    private static ConsoleNote readCompact(byte[] buf) throws IOException {
+        if (buf.length < 2 || buf[0] != COMPACT) {
+            return null;
+        }
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(buf, 2, buf.length - 2));
+        switch (buf[1]) {
+        case COMPACT_HYPERLINK:
+            return new HyperlinkNote(in.readUTF(), in.readInt());
+        case COMPACT_MODEL_HYPERLINK:
+            return new ModelHyperlinkNote(in.readUTF(), in.readInt());
+        default:
+            throw new IOException("Unknown compact note type " + buf[1]);
+        }
+    }
+
+    private static final int MAX_COMPACT_URL_LENGTH = 0xFFFF / 3;
+
     /**
      * Skips the encoded console note.
      */
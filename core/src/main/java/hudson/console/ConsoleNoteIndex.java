@@ -0,0 +1,222 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2018, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.console;
+
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+import javax.annotation.Nonnull;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Byte ranges of the {@link ConsoleNote}s embedded in a log file that is no longer being written to.
+ *
+ * <p>
+ * The index is computed once and persisted next to the log, so that the plain text form of the log
+ * can be produced by handing the ranges between notes to {@link FileChannel#transferTo(long, long, WritableByteChannel)},
+ * instead of inspecting every byte the way {@link PlainTextConsoleOutputStream} does.
+ *
+ * <p>
+ * Only notes that start and end on the same line are recognized, like {@link PlainTextConsoleOutputStream} does.
+ *
+ * @since TODO
+ */
+@Restricted(NoExternalUse.class)
+public final class ConsoleNoteIndex {
+    /**
+     * Start (inclusive) and end (exclusive) offsets of each note, in order.
+     */
+    private final long[] spans;
+
+    private ConsoleNoteIndex(long[] spans) {
+        this.spans = spans;
+    }
+
+    /**
+     * Number of notes in the log.
+     */
+    public int size() {
+        return spans.length / 2;
+    }
+
+    /**
+     * Writes the given log without its console notes.
+     *
+     * @param log
+     *      Uncompressed log file that will not be appended to anymore.
+     */
+    public static void writePlainText(@Nonnull File log, @Nonnull OutputStream out) throws IOException {
+        ConsoleNoteIndex index = of(log);
+        try (FileChannel ch = FileChannel.open(toPath(log), StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(out);
+            long pos = 0;
+            for (int i = 0; i < index.spans.length; i += 2) {
+                transfer(ch, pos, index.spans[i], target);
+                pos = index.spans[i + 1];
+            }
+            transfer(ch, pos, ch.size(), target);
+        }
+        out.flush();
+    }
+
+    private static void transfer(FileChannel ch, long from, long to, WritableByteChannel target) throws IOException {
+        while (from < to) {
+            long n = ch.transferTo(from, to - from, target);
+            if (n <= 0) {
+                throw new IOException("Failed to transfer log contents at offset " + from);
+            }
+            from += n;
+        }
+    }
+
+    /**
+     * Gets the index of the given log, from its sidecar file if that is up to date, or else by scanning the log.
+     */
+    public static @Nonnull ConsoleNoteIndex of(@Nonnull File log) throws IOException {
+        File sidecar = getIndexFile(log);
+        long length = log.length(), lastModified = log.lastModified();
+        ConsoleNoteIndex index = load(sidecar, length, lastModified);
+        if (index == null) {
+            index = scan(log);
+            try {
+                index.save(sidecar, length, lastModified);
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, "Failed to save " + sidecar, e);
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Where the index of the given log is kept.
+     */
+    public static @Nonnull File getIndexFile(@Nonnull File log) {
+        return new File(log.getParentFile(), log.getName() + ".notes");
+    }
+
+    /*package*/ static ConsoleNoteIndex scan(File log) throws IOException {
+        long[] spans = new long[16];
+        int size = 0;
+        byte[] pre = ConsoleNote.PREAMBLE, post = ConsoleNote.POSTAMBLE;
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(toPath(log)), 64 * 1024)) {
+            long pos = 0;
+            long start = -1; // start of the note being read, if we are past its preamble
+            int matched = 0; // number of bytes matched so far in the preamble or the postamble
+            int b;
+            while ((b = in.read()) >= 0) {
+                if (start < 0) {
+                    matched = b == pre[matched] ? matched + 1 : b == pre[0] ? 1 : 0;
+                    if (matched == pre.length) {
+                        start = pos - pre.length + 1;
+                        matched = 0;
+                    }
+                } else if (b == '\n') {
+                    // not terminated on this line, so not a note
+                    start = -1;
+                    matched = 0;
+                } else {
+                    matched = b == post[matched] ? matched + 1 : b == post[0] ? 1 : 0;
+                    if (matched == post.length) {
+                        if (size == spans.length) {
+                            spans = Arrays.copyOf(spans, size * 2);
+                        }
+                        spans[size++] = start;
+                        spans[size++] = pos + 1;
+                        start = -1;
+                        matched = 0;
+                    }
+                }
+                pos++;
+            }
+        }
+        return new ConsoleNoteIndex(Arrays.copyOf(spans, size));
+    }
+
+    private static ConsoleNoteIndex load(File sidecar, long length, long lastModified) {
+        if (!sidecar.isFile()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(toPath(sidecar))))) {
+            if (in.readInt() != MAGIC || in.readLong() != length || in.readLong() != lastModified) {
+                return null;
+            }
+            long[] spans = new long[in.readInt() * 2];
+            for (int i = 0; i < spans.length; i++) {
+                spans[i] = in.readLong();
+            }
+            return new ConsoleNoteIndex(spans);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.FINE, "Ignoring unreadable " + sidecar, e);
+            return null;
+        }
+    }
+
+    private void save(File sidecar, long length, long lastModified) throws IOException {
+        Path tmp = Files.createTempFile(toPath(sidecar.getParentFile()), sidecar.getName(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeLong(length);
+                out.writeLong(lastModified);
+                out.writeInt(size());
+                for (long s : spans) {
+                    out.writeLong(s);
+                }
+            }
+            Files.move(tmp, toPath(sidecar), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static Path toPath(File f) throws IOException {
+        try {
+            return f.toPath();
+        } catch (InvalidPathException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static final int MAGIC = 0x4a4e4931; // "JNI1"
+
+    private static final Logger LOGGER = Logger.getLogger(ConsoleNoteIndex.class.getName());
+}
@@ -73,6 +73,14 @@ public class HyperlinkNote extends ConsoleNote {
         return null;
     }
 
+    /*package*/ String getUrl() {
+        return url;
+    }
+
+    /*package*/ int getLength() {
+        return length;
+    }
+
     protected String extraAttributes() {
         return "";
     }
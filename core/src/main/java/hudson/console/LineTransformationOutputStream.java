@@ -23,22 +23,47 @@
  */
 package hudson.console;
 
-import hudson.util.ByteArrayOutputStream2;
+import jenkins.util.SystemProperties;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.Arrays;
 
 /**
  * Filtering {@link OutputStream} that buffers text by line, so that the derived class
  * can perform some manipulation based on the contents of the whole line.
  *
+ * <p>
+ * The line buffer is reused from one line to the next. To bound memory use on pathological output,
+ * such as minified files printed without line breaks, a maximum line length can be set; a line that
+ * grows past it is handed to {@link #eol(byte[], int)} in pieces of that size.
+ *
  * TODO: Mac is supposed to be CR-only. This class needs to handle that.
  *
  * @author Kohsuke Kawaguchi
  * @since 1.349
  */
 public abstract class LineTransformationOutputStream extends OutputStream {
-    private ByteArrayOutputStream2 buf = new ByteArrayOutputStream2();
+    private final int maxLineLength;
+    private byte[] buf = new byte[INITIAL_BUFFER_SIZE];
+    private int count;
+
+    protected LineTransformationOutputStream() {
+        this(MAX_LINE_LENGTH);
+    }
+
+    /**
+     * @param maxLineLength
+     *      Number of bytes after which a line that has not ended yet is passed to {@link #eol(byte[], int)} anyway,
+     *      without the EOL code. The rest of the line is then processed as if it were a new line.
+     *      The line is split before a {@link ConsoleNote} or UTF-8 encoded character that would otherwise be cut in half,
+     *      unless that is where the line starts.
+     *      0 or negative for no limit.
+     * @since TODO
+     */
+    protected LineTransformationOutputStream(int maxLineLength) {
+        this.maxLineLength = maxLineLength > 0 ? maxLineLength : Integer.MAX_VALUE;
+    }
 
     /**
      * Called for each end of the line.
@@ -52,26 +77,118 @@ public abstract class LineTransformationOutputStream extends OutputStream {
     protected abstract void eol(byte[] b, int len) throws IOException;
 
     public void write(int b) throws IOException {
-        buf.write(b);
+        ensureCapacity(count+1);
+        buf[count++] = (byte)b;
         if (b==LF) eol();
+        else if (count>=maxLineLength) split();
     }
 
     private void eol() throws IOException {
-        eol(buf.getBuffer(),buf.size());
+        eol(buf,count);
 
         // reuse the buffer under normal circumstances, but don't let the line buffer grow unbounded
-        if (buf.size()>4096)
-            buf = new ByteArrayOutputStream2();
-        else
-            buf.reset();
+        if (buf.length>RETAINED_BUFFER_SIZE)
+            buf = new byte[INITIAL_BUFFER_SIZE];
+        count = 0;
+    }
+
+    /**
+     * Passes on the beginning of a line that is too long, keeping the rest for the next line.
+     */
+    private void split() throws IOException {
+        int at = splitPoint(buf, count);
+        eol(buf, at);
+
+        byte[] rest = buf;
+        if (buf.length>RETAINED_BUFFER_SIZE)
+            buf = new byte[Math.max(INITIAL_BUFFER_SIZE, count-at)];
+        System.arraycopy(rest, at, buf, 0, count-at);
+        count -= at;
+    }
+
+    /**
+     * Finds where to split a line that is too long, so that neither a console note nor a character is cut in half.
+     *
+     * @return
+     *      the length of the first part, or {@code len} if there is no better place than the end
+     */
+    /*package*/ static int splitPoint(byte[] b, int len) {
+        int at = len;
+        int note = unterminatedNote(b, len);
+        if (note>=0) at = note;
+
+        // back off to the lead byte of a multibyte character that does not fit
+        int lead = at-1;
+        while (lead>0 && at-lead<4 && (b[lead]&0xC0)==0x80)
+            lead--;
+        if (lead>=0 && lead+utf8Length(b[lead])>at) at = lead;
+
+        return at>0 ? at : len;
+    }
+
+    /**
+     * Finds the start of the last {@link ConsoleNote} that has not ended yet, including a preamble that is not complete yet.
+     *
+     * @return -1 if none
+     */
+    private static int unterminatedNote(byte[] b, int len) {
+        byte[] pre = ConsoleNote.PREAMBLE, post = ConsoleNote.POSTAMBLE;
+        for (int i = len-pre.length; i>=0; i--) {
+            if (regionMatches(b, i, pre, pre.length)) {
+                for (int j = i+pre.length; j<=len-post.length; j++) {
+                    if (regionMatches(b, j, post, post.length)) return -1;
+                }
+                return i;
+            }
+            if (regionMatches(b, i, post, post.length)) return -1;
+        }
+        for (int k = Math.min(pre.length-1, len); k>0; k--) {
+            if (regionMatches(b, len-k, pre, k)) return len-k;
+        }
+        return -1;
+    }
+
+    private static boolean regionMatches(byte[] b, int off, byte[] pattern, int len) {
+        for (int i = 0; i<len; i++) {
+            if (b[off+i]!=pattern[i]) return false;
+        }
+        return true;
+    }
+
+    private static int utf8Length(byte lead) {
+        if ((lead&0x80)==0) return 1;
+        if ((lead&0xE0)==0xC0) return 2;
+        if ((lead&0xF0)==0xE0) return 3;
+        if ((lead&0xF8)==0xF0) return 4;
+        return 1; // not a lead byte, so not UTF-8 anyway
+    }
+
+    private void ensureCapacity(int size) {
+        if (size>buf.length)
+            buf = Arrays.copyOf(buf, (int) Math.min(Math.max((long) buf.length*2, size), Integer.MAX_VALUE));
     }
 
     @Override
     public void write(byte[] b, int off, int len) throws IOException {
         int end = off+len;
 
-        for( int i=off; i<end; i++ )
-            write(b[i]);
+        while (off<end) {
+            // copy up to the next LF, or as much as the line can still hold, in one go
+            int limit = (int) Math.min(end, (long) off+maxLineLength-count);
+            int i = off;
+            while (i<limit && b[i]!=LF)
+                i++;
+            boolean lf = i<limit;
+            int n = (lf ? i+1 : limit) - off;
+
+            ensureCapacity(count+n);
+            System.arraycopy(b,off,buf,count,n);
+            count += n;
+            off += n;
+
+            if (lf) eol();
+            else if (count>=maxLineLength) split();
+        }
     }
 
     @Override
@@ -86,7 +203,7 @@ public abstract class LineTransformationOutputStream extends OutputStream {
      * actually neither flushing nor closing the stream.
      */
     public void forceEol() throws IOException {
-        if (buf.size()>0) {
+        if (count>0) {
             /*
                 because LargeText cuts output at the line end boundary, this is
                 possible only for the very end of the console output, if the output ends without NL.
@@ -110,4 +227,16 @@ public abstract class LineTransformationOutputStream extends OutputStream {
     }
 
     private static final int LF = 0x0A;
+
+    private static final int INITIAL_BUFFER_SIZE = 256;
+
+    /**
+     * Line buffers that grew larger than this are not reused for the next line.
+     */
+    private static final int RETAINED_BUFFER_SIZE = 4096;
+
+    /**
+     * Default maximum line length in bytes for streams that do not specify one; 0 means no limit.
+     */
+    private static final int MAX_LINE_LENGTH = SystemProperties.getInteger(LineTransformationOutputStream.class.getName()+".maxLineLength", 0);
 }
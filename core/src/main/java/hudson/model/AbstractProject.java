@@ -60,6 +60,7 @@ import hudson.scm.SCM;
 import hudson.scm.SCMRevisionState;
 import hudson.scm.SCMS;
 import hudson.search.SearchIndexBuilder;
+import hudson.security.ACL;
 import hudson.security.Permission;
 import hudson.slaves.Cloud;
 import hudson.slaves.WorkspaceList;
@@ -1579,13 +1580,7 @@ public abstract class AbstractProject<P extends AbstractProject<P,R>,R extends A
     @Exported(name="downstreamProjects")
     @Restricted(DoNotUse.class) // only for exporting
     public List<AbstractProject> getDownstreamProjectsForApi() {
-        List<AbstractProject> r = new ArrayList<>();
-        for (AbstractProject p : getDownstreamProjects()) {
-            if (p.hasPermission(Item.READ)) {
-                r.add(p);
-            }
-        }
-        return r;
+        return ACL.filter(getDownstreamProjects(), Item.READ);
     }
 
     public final List<AbstractProject> getUpstreamProjects() {
@@ -1595,13 +1590,7 @@ public abstract class AbstractProject<P extends AbstractProject<P,R>,R extends A
     @Exported(name="upstreamProjects")
     @Restricted(DoNotUse.class) // only for exporting
     public List<AbstractProject> getUpstreamProjectsForApi() {
-        List<AbstractProject> r = new ArrayList<>();
-        for (AbstractProject p : getUpstreamProjects()) {
-            if (p.hasPermission(Item.READ)) {
-                r.add(p);
-            }
-        }
-        return r;
+        return ACL.filter(getUpstreamProjects(), Item.READ);
     }
 
     /**
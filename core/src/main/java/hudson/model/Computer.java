@@ -54,16 +54,14 @@ import hudson.slaves.RetentionStrategy;
 import hudson.slaves.WorkspaceList;
 import hudson.slaves.OfflineCause;
 import hudson.slaves.OfflineCause.ByCLI;
-import hudson.util.DaemonThreadFactory;
 import hudson.util.EditDistance;
-import hudson.util.ExceptionCatchingThreadFactory;
 import hudson.util.RemotingDiagnostics;
 import hudson.util.RemotingDiagnostics.HeapDump;
 import hudson.util.RunList;
 import hudson.util.Futures;
-import hudson.util.NamingThreadFactory;
 import jenkins.model.Jenkins;
 import jenkins.util.ContextResettingExecutorService;
+import jenkins.util.ThreadPools;
 import jenkins.util.SystemProperties;
 import jenkins.security.MasterToSlaveCallable;
 import jenkins.security.ImpersonatingExecutorService;
@@ -101,7 +99,6 @@ import java.io.StringWriter;
 import java.util.*;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.ExecutionException;
 import java.util.logging.LogRecord;
@@ -1101,7 +1098,7 @@ public /*transient*/ abstract class Computer extends Actionable implements Acces
         };
         if (!Queue.tryWithLock(task)) {
             // JENKINS-28840 if we couldn't get the lock push the operation to a separate thread to avoid deadlocks
-            threadPoolForRemoting.submit(Queue.wrapWithLock(task));
+            ThreadPools.QUEUE_MAINTENANCE.submit(Queue.wrapWithLock(task));
         }
     }
 
@@ -1358,10 +1355,7 @@ public /*transient*/ abstract class Computer extends Actionable implements Acces
 
     public static final ExecutorService threadPoolForRemoting = new ContextResettingExecutorService(
         new ImpersonatingExecutorService(
-            Executors.newCachedThreadPool(
-                new ExceptionCatchingThreadFactory(
-                    new NamingThreadFactory(
-                        new DaemonThreadFactory(), "Computer.threadPoolForRemoting"))), ACL.SYSTEM));
+            ThreadPools.newCachedPool("Computer.threadPoolForRemoting"), ACL.SYSTEM));
 
 //
 //
@@ -1071,7 +1071,11 @@ public abstract class Descriptor<T extends Describable<T>> implements Saveable,
      * @param id should match {@link #getId}
      * @since 1.610
      */
+    @SuppressWarnings("unchecked")
     public static @CheckForNull <T extends Descriptor> T findById(Collection<? extends T> list, String id) {
+        if (list instanceof ExtensionList) {
+            return (T) ((ExtensionList<?>) list).getDescriptorById(id);
+        }
         for (T d : list) {
             if(d.getId().equals(id))
                 return d;
@@ -1083,7 +1087,11 @@ public abstract class Descriptor<T extends Describable<T>> implements Saveable,
      * Finds a descriptor from a collection by the class name of the {@link Descriptor}.
      * This is useless as of the introduction of {@link #getId} and so only very old compatibility code needs it.
      */
+    @SuppressWarnings("unchecked")
     private static @CheckForNull <T extends Descriptor> T findByClassName(Collection<? extends T> list, String className) {
+        if (list instanceof ExtensionList) {
+            return (T) ((ExtensionList<?>) list).getDynamic(className);
+        }
         for (T d : list) {
             if(d.getClass().getName().equals(className))
                 return d;
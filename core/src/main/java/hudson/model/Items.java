@@ -407,11 +407,18 @@ public class Items {
         List<Item> items = new ArrayList<Item>(((ItemGroup<?>) root).getItems());
         // because we add items depth first, we can use the quicker BY_NAME comparison
         Collections.sort(items, BY_NAME);
+        List<T> candidates = new ArrayList<T>();
         for (Item i : items) {
             if (type.isInstance(i)) {
-                if (i.hasPermission(Item.READ)) {
-                    r.add(type.cast(i));
-                }
+                candidates.add(type.cast(i));
+            }
+        }
+        // same order as items, so we can walk both lists together
+        List<T> readable = ACL.filter(candidates, Item.READ);
+        int next = 0;
+        for (Item i : items) {
+            if (next < readable.size() && readable.get(next) == i) {
+                r.add(readable.get(next++));
             }
             if (i instanceof ItemGroup) {
                 getAllItems((ItemGroup) i, type, r);
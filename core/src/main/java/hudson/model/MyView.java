@@ -24,10 +24,8 @@
 package hudson.model;
 
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.List;
 
 import javax.servlet.ServletException;
 
@@ -38,6 +36,7 @@ import org.kohsuke.stapler.StaplerResponse;
 import org.kohsuke.stapler.DataBoundConstructor;
 import hudson.model.Descriptor.FormException;
 import hudson.Extension;
+import hudson.security.ACL;
 import org.kohsuke.stapler.interceptor.RequirePOST;
 
 /**
@@ -75,13 +74,7 @@ public class MyView extends View {
 
     @Override
     public Collection<TopLevelItem> getItems() {
-        List<TopLevelItem> items = new ArrayList<TopLevelItem>();
-        for (TopLevelItem item : getOwner().getItemGroup().getItems()) {
-            if (item.hasPermission(Item.CONFIGURE)) {
-                items.add(item);
-            }
-        }
-        return Collections.unmodifiableList(items);
+        return Collections.unmodifiableList(ACL.filter(getOwner().getItemGroup().getItems(), Item.CONFIGURE));
     }
 
     @Override
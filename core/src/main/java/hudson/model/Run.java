@@ -39,6 +39,7 @@ import hudson.Functions;
 import hudson.console.AnnotatedLargeText;
 import hudson.console.ConsoleLogFilter;
 import hudson.console.ConsoleNote;
+import hudson.console.ConsoleNoteIndex;
 import hudson.console.ModelHyperlinkNote;
 import hudson.console.PlainTextConsoleOutputStream;
 import java.nio.file.Files;
@@ -113,7 +114,9 @@ import jenkins.model.lazy.BuildReference;
 import jenkins.model.lazy.LazyBuildMixIn;
 import jenkins.security.MasterToSlaveCallable;
 import jenkins.util.VirtualFile;
+import jenkins.util.io.AsyncLogOutputStream;
 import jenkins.util.io.OnMaster;
+import jenkins.util.xstream.BinarySnapshot;
 import net.sf.json.JSONObject;
 import org.acegisecurity.AccessDeniedException;
 import org.acegisecurity.Authentication;
@@ -337,7 +340,14 @@ public abstract class Run <JobT extends Job<JobT,RunT>,RunT extends Run<JobT,Run
         this.state = State.COMPLETED;
         // TODO ABORTED would perhaps make more sense than FAILURE:
         this.result = Result.FAILURE;  // defensive measure. value should be overwritten by unmarshal, but just in case the saved data is inconsistent
-        getDataFile().unmarshal(this); // load the rest of the data
+        XmlFile dataFile = getDataFile();
+        if (!BinarySnapshot.ENABLED || !BinarySnapshot.unmarshal(dataFile, this)) {
+            dataFile.unmarshal(this); // load the rest of the data
+            if (BinarySnapshot.ENABLED) {
+                // so that the next time this build is loaded, it does not need to be parsed
+                BinarySnapshot.save(dataFile);
+            }
+        }
 
         if (state == State.COMPLETED) {
             LOGGER.log(FINER, "reload {0} @{1}", new Object[] {this, hashCode()});
@@ -1895,9 +1905,11 @@ public abstract class Run <JobT extends Job<JobT,RunT>,RunT extends Run<JobT,Run
     private OutputStream createLogger() throws IOException {
         // don't do buffering so that what's written to the listener
         // gets reflected to the file immediately, which can then be
-        // served to the browser immediately
+        // served to the browser immediately.
+        // AsyncLogOutputStream only holds data back for a bounded, short time.
         try {
-            return Files.newOutputStream(getLogFile().toPath(), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            OutputStream out = Files.newOutputStream(getLogFile().toPath(), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            return ASYNC_LOG ? new AsyncLogOutputStream(out) : out;
         } catch (InvalidPathException e) {
             throw new IOException(e);
         }
@@ -2008,8 +2020,12 @@ public abstract class Run <JobT extends Job<JobT,RunT>,RunT extends Run<JobT,Run
      */
     public synchronized void save() throws IOException {
         if(BulkChange.contains(this))   return;
-        getDataFile().write(this);
-        SaveableListener.fireOnChange(this, getDataFile());
+        XmlFile dataFile = getDataFile();
+        dataFile.write(this);
+        if (BinarySnapshot.ENABLED && !isBuilding()) {
+            BinarySnapshot.save(dataFile);
+        }
+        SaveableListener.fireOnChange(this, dataFile);
     }
 
     private @Nonnull XmlFile getDataFile() {
@@ -2229,6 +2245,15 @@ public abstract class Run <JobT extends Job<JobT,RunT>,RunT extends Run<JobT,Run
      */
     public void doConsoleText(StaplerRequest req, StaplerResponse rsp) throws IOException {
         rsp.setContentType("text/plain;charset=UTF-8");
+        File logFile = getLogFile();
+        if (!isLogUpdated() && logFile.isFile() && !logFile.getName().endsWith(".gz")
+                && !Util.isOverridden(Run.class, getClass(), "getLogInputStream")) {
+            // the log is complete, so skip past the console notes by their recorded offsets instead of line by line
+            try (OutputStream os = rsp.getCompressedOutputStream(req)) {
+                ConsoleNoteIndex.writePlainText(logFile, os);
+            }
+            return;
+        }
         try (InputStream input = getLogInputStream();
              OutputStream os = rsp.getCompressedOutputStream(req);
              PlainTextConsoleOutputStream out = new PlainTextConsoleOutputStream(os)) {
@@ -2477,6 +2502,13 @@ public abstract class Run <JobT extends Job<JobT,RunT>,RunT extends Run<JobT,Run
         XSTREAM.registerConverter(Result.conv);
     }
 
+    /**
+     * Whether build logs are written through {@link AsyncLogOutputStream}, so that
+     * executor threads do not wait for the disk on every write.
+     */
+    @Restricted(NoExternalUse.class)
+    public static /* nonfinal for Groovy */ boolean ASYNC_LOG = SystemProperties.getBoolean(Run.class.getName() + ".asyncLog");
+
     private static final Logger LOGGER = Logger.getLogger(Run.class.getName());
 
     /**
@@ -25,6 +25,8 @@
 package hudson.model;
 
 import com.google.common.base.Predicate;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.infradna.tool.bridge_method_injector.WithBridgeMethods;
 import hudson.BulkChange;
 import hudson.CopyOnWrite;
@@ -54,6 +56,7 @@ import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.InvalidPathException;
 import java.nio.file.Path;
+import java.util.AbstractCollection;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -63,6 +66,7 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -84,6 +88,7 @@ import jenkins.model.ModelObjectWithContextMenu;
 import jenkins.security.ImpersonatingUserDetailsService;
 import jenkins.security.LastGrantedAuthoritiesProperty;
 import jenkins.security.UserDetailsCache;
+import jenkins.security.apitoken.ApiTokenStore;
 import jenkins.util.SystemProperties;
 import net.sf.json.JSONObject;
 import org.acegisecurity.Authentication;
@@ -535,6 +540,9 @@ public class User extends AbstractModelObject implements AccessControlled, Descr
             byNameLock.readLock().lock();
             try {
                 prev = AllUsers.byName().putIfAbsent(idkey, u = tmp);
+                if (AllUsers.isLazy()) {
+                    AllUsers.ids().putIfAbsent(idkey, id);
+                }
             } finally {
                 byNameLock.readLock().unlock();
             }
@@ -552,6 +560,9 @@ public class User extends AbstractModelObject implements AccessControlled, Descr
                 }
             }
         }
+        if (u != null && AllUsers.isLazy()) {
+            AllUsers.recent().put(idkey, u);
+        }
         return u;
     }
     
@@ -671,8 +682,14 @@ public class User extends AbstractModelObject implements AccessControlled, Descr
 
     /**
      * Gets all the users.
+     * <p>
+     * When users are loaded on demand, the returned collection loads them from disk while it is being iterated,
+     * and its size is the number of known user ids, which may slightly exceed the number of users returned.
      */
     public static @Nonnull Collection<User> getAll() {
+        if (AllUsers.isLazy()) {
+            return new LazyUsers(getSortedIds());
+        }
         final IdStrategy strategy = idStrategy();
         byNameLock.readLock().lock();
         ArrayList<User> r;
@@ -690,6 +707,66 @@ public class User extends AbstractModelObject implements AccessControlled, Descr
         return r;
     }
 
+    private static List<String> getSortedIds() {
+        final IdStrategy strategy = idStrategy();
+        List<String> ids;
+        byNameLock.readLock().lock();
+        try {
+            ids = new ArrayList<String>(AllUsers.ids().values());
+        } finally {
+            byNameLock.readLock().unlock();
+        }
+        Collections.sort(ids, new Comparator<String>() {
+            public int compare(String o1, String o2) {
+                return strategy.compare(o1, o2);
+            }
+        });
+        return ids;
+    }
+
+    /**
+     * Users with the given ids, loaded one at a time as the iteration goes.
+     */
+    private static final class LazyUsers extends AbstractCollection<User> {
+        private final List<String> ids;
+
+        LazyUsers(List<String> ids) {
+            this.ids = ids;
+        }
+
+        @Override
+        public int size() {
+            return ids.size();
+        }
+
+        @Override
+        public Iterator<User> iterator() {
+            return new Iterator<User>() {
+                private final Iterator<String> base = ids.iterator();
+                private User next;
+
+                @Override
+                public boolean hasNext() {
+                    while (next == null && base.hasNext()) {
+                        // null if the user was deleted in the meantime
+                        next = getById(base.next(), false);
+                    }
+                    return next != null;
+                }
+
+                @Override
+                public User next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    User u = next;
+                    next = null;
+                    return u;
+                }
+            };
+        }
+    }
+
     /**
      * To be called from {@link Jenkins#reload} only.
      */
@@ -698,6 +775,8 @@ public class User extends AbstractModelObject implements AccessControlled, Descr
         byNameLock.readLock().lock();
         try {
             AllUsers.byName().clear();
+            AllUsers.ids().clear();
+            AllUsers.recent().invalidateAll();
         } finally {
             byNameLock.readLock().unlock();
         }
@@ -717,6 +796,8 @@ public class User extends AbstractModelObject implements AccessControlled, Descr
         byNameLock.writeLock().lock();
         try {
             AllUsers.byName().clear();
+            AllUsers.ids().clear();
+            AllUsers.recent().invalidateAll();
         } finally {
             byNameLock.writeLock().unlock();
         }
@@ -739,6 +820,15 @@ public class User extends AbstractModelObject implements AccessControlled, Descr
                     byName.putIfAbsent(idkey, e.getValue());
                 }
             }
+            ConcurrentMap<String, String> ids = AllUsers.ids();
+            for (Map.Entry<String, String> e : ids.entrySet()) {
+                String idkey = strategy.keyFor(e.getValue());
+                if (!idkey.equals(e.getKey())) {
+                    ids.remove(e.getKey());
+                    ids.putIfAbsent(idkey, e.getValue());
+                }
+            }
+            AllUsers.recent().invalidateAll();
         } finally {
             byNameLock.writeLock().unlock();
             UserDetailsCache.get().invalidateAll();
@@ -899,11 +989,14 @@ public class User extends AbstractModelObject implements AccessControlled, Descr
         byNameLock.readLock().lock();
         try {
             AllUsers.byName().remove(strategy.keyFor(id));
+            AllUsers.ids().remove(strategy.keyFor(id));
+            AllUsers.recent().invalidate(strategy.keyFor(id));
         } finally {
             byNameLock.readLock().unlock();
         }
         Util.deleteRecursive(new File(getRootDir(), strategy.filenameOf(id)));
         UserDetailsCache.get().invalidate(strategy.keyFor(id));
+        ApiTokenStore.forgetOwner(id);
     }
 
     /**
@@ -1124,6 +1217,22 @@ public class User extends AbstractModelObject implements AccessControlled, Descr
         return this;
     }
 
+    /**
+     * Load users on first access instead of all of them at startup, and let the ones not in use be garbage collected.
+     * Meant for instances with a very large number of users. Only takes effect at startup.
+     * @since TODO
+     */
+    @Restricted(NoExternalUse.class)
+    public static /* not final for tests */ boolean LAZY_LOAD = SystemProperties.getBoolean(User.class.getName() + ".lazyLoad");
+
+    /**
+     * With {@link #LAZY_LOAD}, the number of most recently used users kept in memory even when nothing else refers to them,
+     * so that they are not parsed again on each access.
+     * @since TODO
+     */
+    @Restricted(NoExternalUse.class)
+    public static /* not final for tests */ int LAZY_LOAD_CACHE_SIZE = SystemProperties.getInteger(User.class.getName() + ".lazyLoadCacheSize", 10000);
+
     /**
      * Escape hatch for StaplerProxy-based access control
      */
@@ -1161,14 +1270,43 @@ public class User extends AbstractModelObject implements AccessControlled, Descr
                     File configFile = new File(subdir, "config.xml");
                     if (configFile.exists()) {
                         String name = strategy.idFromFilename(subdir.getName());
+                        if (isLazy() && strategy.filenameOf(name).equals(subdir.getName())) {
+                            // loaded on first access; legacy directories still need to be migrated right away
+                            ids().putIfAbsent(strategy.keyFor(name), name);
+                            continue;
+                        }
                         getOrCreate(name, /* <init> calls load(), probably clobbering this anyway */name, true, configFile);
                     }
                 }
             }
         }
 
+        /**
+         * Whether users are loaded on demand, as per {@link User#LAZY_LOAD} when this registry was created.
+         */
+        private final boolean lazy = LAZY_LOAD;
+
+        /**
+         * With {@link User#LAZY_LOAD}, users that are not referenced anymore may be dropped under memory pressure,
+         * to be loaded again on next access.
+         */
+        @GuardedBy("User.byNameLock")
+        private final ConcurrentMap<String,User> byName = lazy
+                ? CacheBuilder.newBuilder().softValues().<String,User>build().asMap()
+                : new ConcurrentHashMap<String, User>();
+
+        /**
+         * Ids of all the users, whether loaded or not, keyed like {@link #byName}.
+         * Only maintained with {@link User#LAZY_LOAD}.
+         */
         @GuardedBy("User.byNameLock")
-        private final ConcurrentMap<String,User> byName = new ConcurrentHashMap<String, User>();
+        private final ConcurrentMap<String,String> ids = new ConcurrentHashMap<String, String>();
+
+        /**
+         * Strong references to the most recently used users, keyed like {@link #byName},
+         * so that they stay in {@link #byName}. Only maintained with {@link User#LAZY_LOAD}.
+         */
+        private final Cache<String,User> recent = CacheBuilder.newBuilder().maximumSize(lazy ? LAZY_LOAD_CACHE_SIZE : 0).build();
 
         /**
          * Keyed by {@link User#id}. This map is used to ensure
@@ -1181,6 +1319,19 @@ public class User extends AbstractModelObject implements AccessControlled, Descr
             return ExtensionList.lookupSingleton(AllUsers.class).byName;
         }
 
+        @GuardedBy("User.byNameLock")
+        static ConcurrentMap<String,String> ids() {
+            return ExtensionList.lookupSingleton(AllUsers.class).ids;
+        }
+
+        static Cache<String,User> recent() {
+            return ExtensionList.lookupSingleton(AllUsers.class).recent;
+        }
+
+        static boolean isLazy() {
+            return ExtensionList.lookupSingleton(AllUsers.class).lazy;
+        }
+
     }
 
     /**
@@ -872,7 +872,7 @@ public abstract class View extends AbstractModelObject implements AccessControll
                 if (canceled()) {
                     return;
                 }
-                for (User u : User.getAll()) { // TODO nice to have a method to iterate these lazily
+                for (User u : User.getAll()) { // loads users on demand, if enabled, one by one
                     if (canceled()) {
                         return;
                     }
@@ -26,6 +26,7 @@ package hudson.model;
 import hudson.model.ItemGroupMixIn;
 import hudson.model.View;
 import hudson.model.ViewGroup;
+import hudson.security.ACL;
 import java.util.Locale;
 import java.util.logging.Level;
 import org.kohsuke.stapler.export.Exported;
@@ -145,12 +146,7 @@ public abstract class ViewGroupMixIn {
      */
     @Exported
     public Collection<View> getViews() {
-        List<View> orig = views();
-        List<View> copy = new ArrayList<View>(orig.size());
-        for (View v : orig) {
-            if (v.hasPermission(View.READ))
-                copy.add(v);
-        }
+        List<View> copy = ACL.filter(views(), View.READ);
         Collections.sort(copy, View.SORTER);
         return copy;
     }
@@ -28,10 +28,15 @@ import hudson.ExtensionList;
 import hudson.ExtensionPoint;
 import hudson.model.Computer;
 import hudson.model.Executor;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
 
+import javax.annotation.Nonnull;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * Predicts future load to the system, to assist the scheduling decisions
@@ -84,6 +89,31 @@ public abstract class LoadPredictor implements ExtensionPoint {
         return ExtensionList.lookup(LoadPredictor.class);
     }
 
+    /**
+     * Number of executors of the given computer that all the registered instances expect to be busy at the given time.
+     *
+     * <p>
+     * Since this is not about scheduling a particular item, predictors are called with a null {@link MappingWorksheet};
+     * those that cannot cope with that are skipped.
+     *
+     * @since TODO
+     */
+    @Restricted(NoExternalUse.class)
+    public static int predictBusyExecutors(@Nonnull Computer computer, long now, long at) {
+        Timeline timeline = new Timeline();
+        for (LoadPredictor lp : all()) {
+            try {
+                for (FutureLoad fl : lp.predict(null, computer, now, at + 1)) {
+                    timeline.insert(fl.startTime, fl.startTime + fl.duration, fl.numExecutors);
+                }
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.FINE, "Failed to predict the load of " + computer.getName() + " with " + lp, e);
+            }
+        }
+        // adding nothing over [at,at+1) gives q(at)
+        return timeline.insert(at, at + 1, 0);
+    }
+
     /**
      * Considers currently running tasks and their completion.
      */
@@ -104,4 +134,6 @@ public abstract class LoadPredictor implements ExtensionPoint {
             return fl;
         }
     }
+
+    private static final Logger LOGGER = Logger.getLogger(LoadPredictor.class.getName());
 }
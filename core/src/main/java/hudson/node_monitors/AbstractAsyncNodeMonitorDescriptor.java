@@ -73,7 +73,28 @@ public abstract class AbstractAsyncNodeMonitorDescriptor<T> extends AbstractNode
     @Override
     protected Map<Computer, T> monitor() throws InterruptedException {
         // Bridge method to offer original constrained interface.
-        return monitorDetailed().getMonitoringData();
+        Result<T> base = monitorDetailed();
+        Map<Computer, T> data = base.getMonitoringData();
+        Set<Computer> skipped = new HashSet<>(base.getSkipped());
+        for (Entry<Computer, T> e : data.entrySet()) {
+            if (!skipped.contains(e.getKey())) {
+                e.setValue(process(e.getKey(), e.getValue()));
+            }
+        }
+        return data;
+    }
+
+    /**
+     * Handles the outcome of monitoring one computer, whether it came from {@link #monitor()}
+     * or from a batch sent by {@link NodeMonitorScheduler}. Not called for skipped computers.
+     *
+     * @param value
+     *      null if the monitoring failed.
+     * @return
+     *      the value to record for the computer.
+     */
+    /*package*/ @CheckForNull T process(@Nonnull Computer c, @CheckForNull T value) {
+        return value;
     }
 
     /**
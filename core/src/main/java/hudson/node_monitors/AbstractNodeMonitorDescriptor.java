@@ -39,6 +39,7 @@ import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.WeakHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -92,10 +93,13 @@ public abstract class AbstractNodeMonitorDescriptor<T> extends Descriptor<NodeMo
     }
 
     private void schedule(long interval) {
+        this.interval = interval;
         Timer.get()
             .scheduleAtFixedRate(new SafeTimerTask() {
                 public void doRun() {
-                    triggerUpdate();
+                    if (!NodeMonitorScheduler.isBatched(AbstractNodeMonitorDescriptor.this)) {
+                        triggerUpdate();
+                    }
                 }
             }, interval, interval, TimeUnit.MILLISECONDS);
     }
@@ -119,6 +123,16 @@ public abstract class AbstractNodeMonitorDescriptor<T> extends Descriptor<NodeMo
     @GuardedBy("this")
     private transient long inProgressStarted = Long.MIN_VALUE;
 
+    private transient long interval;
+
+    /**
+     * Results published one computer at a time by {@link NodeMonitorScheduler}.
+     * Whichever of this and {@link #record} is more recent wins.
+     */
+    private transient final Map<Computer,Sample<T>> samples = Collections.synchronizedMap(new WeakHashMap<Computer,Sample<T>>());
+
+    private transient volatile long lastPublished;
+
     /**
      * Performs monitoring of the given computer object.
      * This method is invoked periodically to perform the monitoring of the computer.
@@ -167,12 +181,35 @@ public abstract class AbstractNodeMonitorDescriptor<T> extends Descriptor<NodeMo
      * If no data is available, a background task to collect data will be started.
      */
     public T get(Computer c) {
-        if(record==null || !record.data.containsKey(c)) {
+        Record r = record;
+        Sample<T> s = samples.get(c);
+        if (s != null && (r == null || !r.data.containsKey(c) || s.timestamp >= r.timestamp)) {
+            return s.value;
+        }
+        if(r==null || !r.data.containsKey(c)) {
             // if we don't have the data, schedule the check now
-            triggerUpdate();
+            if (!NodeMonitorScheduler.isBatched(this) || !NodeMonitorScheduler.requestUpdate(c)) {
+                triggerUpdate();
+            }
             return null;
         }
-        return record.data.get(c);
+        return r.data.get(c);
+    }
+
+    /**
+     * Records the result of monitoring one computer.
+     */
+    /*package*/ void publish(Computer c, T value) {
+        long now = System.currentTimeMillis();
+        samples.put(c, new Sample<T>(value, now));
+        lastPublished = now;
+    }
+
+    /**
+     * How often all computers should be monitored, in milliseconds.
+     */
+    /*package*/ long getInterval() {
+        return interval;
     }
 
     /**
@@ -186,15 +223,17 @@ public abstract class AbstractNodeMonitorDescriptor<T> extends Descriptor<NodeMo
      * The timestamp that indicates when the last round of the monitoring has completed.
      */
     public long getTimestamp() {
-        return record==null ? 0L : record.timestamp;
+        Record r = record;
+        return Math.max(r==null ? 0L : r.timestamp, lastPublished);
     }
 
     public String getTimestampString() {
-        if (record==null)
+        long timestamp = getTimestamp();
+        if (timestamp==0)
             return Messages.AbstractNodeMonitorDescriptor_NoDataYet();
 //        return Messages.AbstractNodeMonitorDescriptor_DataObtainedSometimeAgo(
 //                Util.getTimeSpanString(System.currentTimeMillis()-record.timestamp));
-        return Util.getPastTimeString(System.currentTimeMillis()-record.timestamp);
+        return Util.getPastTimeString(System.currentTimeMillis()-timestamp);
     }
 
     /**
@@ -322,6 +361,16 @@ public abstract class AbstractNodeMonitorDescriptor<T> extends Descriptor<NodeMo
         }
     }
 
+    private static final class Sample<T> {
+        private final T value;
+        private final long timestamp;
+
+        Sample(T value, long timestamp) {
+            this.value = value;
+            this.timestamp = timestamp;
+        }
+    }
+
     private static final Logger LOGGER = Logger.getLogger(AbstractNodeMonitorDescriptor.class.getName());
 
     private static final long HOUR = 1000*60*60L;
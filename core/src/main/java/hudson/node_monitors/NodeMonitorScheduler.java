@@ -0,0 +1,425 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2018, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.node_monitors;
+
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.Util;
+import hudson.model.Computer;
+import hudson.model.ComputerSet;
+import hudson.model.Descriptor;
+import hudson.model.PeriodicWork;
+import hudson.remoting.Callable;
+import hudson.remoting.VirtualChannel;
+import hudson.scheduler.Hash;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
+import jenkins.model.Jenkins;
+import jenkins.security.MasterToSlaveCallable;
+import jenkins.util.SystemProperties;
+import jenkins.util.ThreadPools;
+import org.jenkinsci.remoting.RoleChecker;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs all the {@link AbstractAsyncNodeMonitorDescriptor}s against one computer at a time.
+ *
+ * <p>
+ * Instead of each monitor sending a {@link Callable} to every agent and waiting for all of them, every agent
+ * gets a single {@link Batch} per round carrying the callables of all monitors, and the results are published
+ * to the monitors as soon as that agent answers. A slow agent thus only delays its own results.
+ * The batch runs the callables concurrently and enforces the {@linkplain AbstractNodeMonitorDescriptor#getMonitoringTimeOut() time out}
+ * of each monitor on its own, so a monitor that is slow on some agent only loses its own result.
+ * {@link ResponseTimeMonitor} is left out of the batch and makes its own round trip beforehand,
+ * since what it measures is how long the agent takes to answer.
+ * Agents are monitored on their own schedule, offset by a stable jitter so that rounds do not all start at once,
+ * and by a dedicated pool of {@link #POOL_SIZE} threads rather than {@link Computer#threadPoolForRemoting}.
+ *
+ * <p>
+ * Monitors that override {@link AbstractNodeMonitorDescriptor#monitor()} expect to see all computers at once,
+ * so they keep being updated the old way.
+ *
+ * @since TODO
+ */
+@Extension
+@Restricted(NoExternalUse.class)
+public final class NodeMonitorScheduler extends PeriodicWork {
+
+    /**
+     * Set to true to monitor all computers for each monitor in turn, as before.
+     */
+    static boolean DISABLED = SystemProperties.getBoolean(NodeMonitorScheduler.class.getName() + ".disabled");
+
+    /**
+     * Maximum number of agents being monitored at the same time.
+     */
+    static int POOL_SIZE = SystemProperties.getInteger(NodeMonitorScheduler.class.getName() + ".poolSize", 8);
+
+    /**
+     * How long to wait for the results of a batch beyond the longest time out of its monitors.
+     */
+    private static final long TRANSFER_TIME_OUT = TimeUnit.SECONDS.toMillis(10);
+
+    private static final ClassValue<Boolean> OVERRIDES_MONITOR = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            return Util.isOverridden(AbstractAsyncNodeMonitorDescriptor.class, type, "monitor");
+        }
+    };
+
+    private final ExecutorService pool;
+
+    /**
+     * Guarded by itself.
+     */
+    private final Map<Computer,AgentState> agents = Collections.synchronizedMap(new WeakHashMap<Computer,AgentState>());
+
+    public NodeMonitorScheduler() {
+        pool = ThreadPools.newBoundedPool("Node monitoring", POOL_SIZE);
+    }
+
+    /**
+     * Whether the given descriptor is updated by this class.
+     */
+    static boolean isBatched(@Nonnull Descriptor<?> d) {
+        return !DISABLED && d instanceof AbstractAsyncNodeMonitorDescriptor && !OVERRIDES_MONITOR.get(d.getClass());
+    }
+
+    /**
+     * Monitors the given computer as soon as possible, unless that is already happening.
+     *
+     * @return false if monitors should be updated the old way instead.
+     */
+    static boolean requestUpdate(@Nonnull Computer c) {
+        if (DISABLED) {
+            return false;
+        }
+        Jenkins j = Jenkins.getInstanceOrNull();
+        if (j == null) {
+            return false;
+        }
+        NodeMonitorScheduler s = ExtensionList.lookup(PeriodicWork.class).get(NodeMonitorScheduler.class);
+        if (s == null) {
+            return false;
+        }
+        s.submit(c, System.currentTimeMillis(), true);
+        return true;
+    }
+
+    /**
+     * How often due agents are looked for; each agent is monitored at the interval of its monitors.
+     */
+    @Override
+    public long getRecurrencePeriod() {
+        return TimeUnit.SECONDS.toMillis(10);
+    }
+
+    @Override
+    protected void doRun() {
+        if (DISABLED) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (Computer c : Jenkins.getInstance().getComputers()) {
+            submit(c, now, false);
+        }
+    }
+
+    private void submit(final Computer c, long now, boolean force) {
+        final AgentState state;
+        synchronized (agents) {
+            AgentState s = agents.get(c);
+            if (s == null) {
+                s = new AgentState();
+                // spread the first round over the interval, always at the same offset for a given agent
+                s.due = now + Hash.from(c.getName()).next((int) Math.min(getInterval(), Integer.MAX_VALUE));
+                agents.put(c, s);
+            }
+            if (s.inFlight || (!force && now < s.due)) {
+                return;
+            }
+            s.inFlight = true;
+            state = s;
+        }
+        pool.execute(new Runnable() {
+            @Override
+            public void run() {
+                try (ACLContext ctx = ACL.as(ACL.SYSTEM)) {
+                    monitor(c);
+                } finally {
+                    synchronized (agents) {
+                        state.inFlight = false;
+                        long now = System.currentTimeMillis();
+                        state.due = Math.max(state.due + getInterval(), now);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Shortest interval among the batched monitors.
+     */
+    private long getInterval() {
+        long interval = Long.MAX_VALUE;
+        for (AbstractAsyncNodeMonitorDescriptor<?> d : getDescriptors()) {
+            if (d.getInterval() > 0) {
+                interval = Math.min(interval, d.getInterval());
+            }
+        }
+        return interval == Long.MAX_VALUE ? TimeUnit.HOURS.toMillis(1) : interval;
+    }
+
+    private static List<AbstractAsyncNodeMonitorDescriptor<?>> getDescriptors() {
+        List<AbstractAsyncNodeMonitorDescriptor<?>> r = new ArrayList<AbstractAsyncNodeMonitorDescriptor<?>>();
+        for (NodeMonitor nm : ComputerSet.getMonitors()) {
+            Descriptor<NodeMonitor> d = nm.getDescriptor();
+            if (isBatched(d)) {
+                r.add((AbstractAsyncNodeMonitorDescriptor<?>) d);
+            }
+        }
+        return r;
+    }
+
+    /**
+     * Runs one round of all batched monitors against the given computer.
+     */
+    /*package*/ void monitor(@Nonnull Computer c) {
+        List<AbstractAsyncNodeMonitorDescriptor<?>> descriptors = new ArrayList<AbstractAsyncNodeMonitorDescriptor<?>>();
+        List<Callable<?,?>> callables = new ArrayList<Callable<?,?>>();
+        List<Long> timeouts = new ArrayList<Long>();
+        long timeout = 0;
+        VirtualChannel ch = c.getChannel();
+        for (AbstractAsyncNodeMonitorDescriptor<?> d : getDescriptors()) {
+            Callable<?,?> cc = null;
+            if (ch != null) {
+                try {
+                    cc = d.createCallable(c);
+                } catch (RuntimeException e) {
+                    LOGGER.log(Level.WARNING, "Failed to monitor " + c.getDisplayName() + " for " + d.getDisplayName(), e);
+                    accept(d, c, null, true);
+                    continue;
+                }
+            }
+            if (cc == null) {
+                // offline, or nothing to monitor; recorded as is, like AbstractAsyncNodeMonitorDescriptor.Result#getSkipped
+                accept(d, c, null, false);
+                continue;
+            }
+            if (d == ResponseTimeMonitor.DESCRIPTOR) {
+                accept(d, c, call(c, ch, cc, d.getMonitoringTimeOut()), true);
+                continue;
+            }
+            descriptors.add(d);
+            callables.add(cc);
+            timeouts.add(d.getMonitoringTimeOut());
+            timeout = Math.max(timeout, d.getMonitoringTimeOut());
+        }
+        if (callables.isEmpty()) {
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        List<Object> results = null;
+        try {
+            Future<List<Object>> f = ch.callAsync(new Batch(callables, timeouts));
+            try {
+                // the batch enforces the time out of each monitor, this only guards against an unresponsive agent
+                results = f.get(timeout + TRANSFER_TIME_OUT, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                f.cancel(true);
+                LOGGER.log(Level.WARNING, "Timed out monitoring " + c.getDisplayName() + " after " + timeout + "ms");
+            }
+        } catch (IOException | ExecutionException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Failed to monitor " + c.getDisplayName(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        for (int i = 0; i < descriptors.size(); i++) {
+            AbstractAsyncNodeMonitorDescriptor<?> d = descriptors.get(i);
+            Object r = results == null ? null : results.get(i);
+            if (r instanceof Failure) {
+                LOGGER.log(Level.WARNING, "Failed to monitor {0} for {1}: {2}", new Object[] {c.getDisplayName(), d.getDisplayName(), ((Failure) r).message});
+                r = null;
+            }
+            accept(d, c, r, true);
+        }
+        LOGGER.log(Level.FINE, "Monitored {0} in {1}ms", new Object[] {c.getDisplayName(), System.currentTimeMillis() - start});
+    }
+
+    /**
+     * Runs a single callable on its own.
+     *
+     * @return null if it failed or timed out
+     */
+    private static @CheckForNull Object call(Computer c, VirtualChannel ch, Callable<?,?> cc, long timeout) {
+        try {
+            Future<?> f = ch.callAsync(cc);
+            try {
+                return f.get(timeout, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                f.cancel(true);
+                LOGGER.log(Level.WARNING, "Timed out monitoring " + c.getDisplayName() + " after " + timeout + "ms");
+            }
+        } catch (IOException | ExecutionException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Failed to monitor " + c.getDisplayName(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> void accept(AbstractAsyncNodeMonitorDescriptor<T> d, Computer c, @CheckForNull Object value, boolean process) {
+        T v = (T) value;
+        try {
+            if (process) {
+                v = d.process(c, v);
+            }
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Failed to monitor " + c.getDisplayName() + " for " + d.getDisplayName(), e);
+        }
+        d.publish(c, v);
+    }
+
+    private static final class AgentState {
+        long due;
+        boolean inFlight;
+    }
+
+    /**
+     * Runs the callables of several monitors on the agent, concurrently.
+     * A callable that fails, or does not finish within its time out, is reported as a {@link Failure} without affecting the others.
+     */
+    /*package*/ static final class Batch extends MasterToSlaveCallable<List<Object>,IOException> {
+        private final List<Callable<?,?>> callables;
+        private final long[] timeouts;
+
+        Batch(List<Callable<?,?>> callables, List<Long> timeouts) {
+            this.callables = new ArrayList<Callable<?,?>>(callables);
+            this.timeouts = new long[timeouts.size()];
+            for (int i = 0; i < this.timeouts.length; i++) {
+                this.timeouts[i] = timeouts.get(i);
+            }
+        }
+
+        @Override
+        public List<Object> call() {
+            long start = System.nanoTime();
+            List<Future<Object>> futures = new ArrayList<Future<Object>>(callables.size());
+            for (final Callable<?,?> c : callables) {
+                futures.add(Threads.POOL.submit(new java.util.concurrent.Callable<Object>() {
+                    @Override
+                    public Object call() {
+                        try {
+                            return c.call();
+                        } catch (Error e) {
+                            throw e;
+                        } catch (Throwable t) {
+                            return new Failure(t.toString());
+                        }
+                    }
+                }));
+            }
+            List<Object> results = new ArrayList<Object>(callables.size());
+            for (int i = 0; i < futures.size(); i++) {
+                Future<Object> f = futures.get(i);
+                long remaining = start + TimeUnit.MILLISECONDS.toNanos(timeouts[i]) - System.nanoTime();
+                try {
+                    results.add(f.get(Math.max(remaining, 0), TimeUnit.NANOSECONDS));
+                } catch (TimeoutException e) {
+                    f.cancel(true);
+                    results.add(new Failure("Timed out after " + timeouts[i] + "ms"));
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof Error) {
+                        throw (Error) e.getCause();
+                    }
+                    results.add(new Failure(String.valueOf(e.getCause())));
+                } catch (InterruptedException e) {
+                    f.cancel(true);
+                    Thread.currentThread().interrupt();
+                    results.add(new Failure("Interrupted"));
+                }
+            }
+            return results;
+        }
+
+        @Override
+        public void checkRoles(RoleChecker checker) throws SecurityException {
+            super.checkRoles(checker);
+            for (Callable<?,?> c : callables) {
+                c.checkRoles(checker);
+            }
+        }
+
+        private static final long serialVersionUID = 1L;
+    }
+
+    /**
+     * Threads running the callables of {@link Batch}es on the agent.
+     */
+    private static final class Threads {
+        static final ExecutorService POOL = Executors.newCachedThreadPool(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "Node monitoring");
+                t.setDaemon(true);
+                return t;
+            }
+        });
+    }
+
+    /*package*/ static final class Failure implements Serializable {
+        final String message;
+
+        Failure(String message) {
+            this.message = message;
+        }
+
+        private static final long serialVersionUID = 1L;
+    }
+
+    private static final Logger LOGGER = Logger.getLogger(NodeMonitorScheduler.class.getName());
+}
@@ -25,7 +25,9 @@ public class NodeMonitorUpdater extends ComputerListener {
         @Override
         public void run() {
             for (NodeMonitor nm : Jenkins.getInstance().getComputer().getMonitors()) {
-                nm.triggerUpdate();
+                if (!NodeMonitorScheduler.isBatched(nm.getDescriptor())) {
+                    nm.triggerUpdate();
+                }
             }
         }
     };
@@ -38,6 +40,8 @@ public class NodeMonitorUpdater extends ComputerListener {
      */
     @Override
     public void onOnline(Computer c, TaskListener listener) throws IOException, InterruptedException {
+        // batched monitors only need to look at this computer
+        NodeMonitorScheduler.requestUpdate(c);
         synchronized(this) {
             future.cancel(false);
             future = Timer.get().schedule(MONITOR_UPDATER, 5, TimeUnit.SECONDS);
@@ -32,8 +32,6 @@ import org.kohsuke.stapler.StaplerRequest;
 
 import java.io.IOException;
 import java.io.Serializable;
-import java.util.Map;
-import java.util.Map.Entry;
 import java.util.logging.Logger;
 import org.kohsuke.stapler.export.Exported;
 import org.kohsuke.stapler.export.ExportedBean;
@@ -53,32 +51,21 @@ public class ResponseTimeMonitor extends NodeMonitor {
         }
 
         @Override
-        protected Map<Computer, Data> monitor() throws InterruptedException {
-            Result<Data> base = monitorDetailed();
-            Map<Computer, Data> monitoringData = base.getMonitoringData();
-            for (Entry<Computer, Data> e : monitoringData.entrySet()) {
-                Computer c = e.getKey();
-                Data d = e.getValue();
-                if (base.getSkipped().contains(c)) {
-                    assert d == null;
-                    continue;
-                }
-
-                if (d ==null) {
-                    // if we failed to monitor, put in the special value that indicates a failure
-                    e.setValue(d=new Data(get(c),-1L));
-                }
-
-                if(d.hasTooManyTimeouts() && !isIgnored()) {
-                    // unlike other monitors whose failure still allow us to communicate with the agent,
-                    // the failure in this monitor indicates that we are just unable to make any requests
-                    // to this agent. So we should severe the connection, as opposed to marking it temporarily
-                    // off line, which still keeps the underlying channel open.
-                    c.disconnect(d);
-                    LOGGER.warning(Messages.ResponseTimeMonitor_MarkedOffline(c.getName()));
-                }
+        Data process(Computer c, Data d) {
+            if (d ==null) {
+                // if we failed to monitor, put in the special value that indicates a failure
+                d = new Data(get(c),-1L);
             }
-            return monitoringData;
+
+            if(d.hasTooManyTimeouts() && !isIgnored()) {
+                // unlike other monitors whose failure still allow us to communicate with the agent,
+                // the failure in this monitor indicates that we are just unable to make any requests
+                // to this agent. So we should severe the connection, as opposed to marking it temporarily
+                // off line, which still keeps the underlying channel open.
+                c.disconnect(d);
+                LOGGER.warning(Messages.ResponseTimeMonitor_MarkedOffline(c.getName()));
+            }
+            return d;
         }
 
         public String getDisplayName() {
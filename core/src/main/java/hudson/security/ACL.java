@@ -34,6 +34,11 @@ import hudson.model.Item;
 import hudson.remoting.Callable;
 import hudson.model.ItemGroup;
 import hudson.model.TopLevelItemDescriptor;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.function.BiFunction;
 import jenkins.security.NonSerializableSecurityContext;
 import jenkins.model.Jenkins;
@@ -111,6 +116,85 @@ public abstract class ACL {
         };
     }
 
+    /**
+     * Selects the objects on which the current security principal has the given permission.
+     *
+     * <p>
+     * This is equivalent to calling {@link AccessControlled#hasPermission(Permission)} on each element,
+     * but elements that share the same {@link ACL} instance, such as the items of one folder,
+     * are only evaluated once.
+     *
+     * @param objects the objects to check.
+     * @param p the permission to check.
+     * @return a new list of the objects passing the check, in iteration order.
+     * @since TODO
+     */
+    public static @Nonnull <T extends AccessControlled> List<T> filter(@Nonnull Iterable<? extends T> objects, @Nonnull Permission p) {
+        return filter(objects, Jenkins.getAuthentication(), p, false);
+    }
+
+    /**
+     * Selects the objects on which the given principal has the given permission.
+     *
+     * <p>
+     * This is equivalent to calling {@link AccessControlled#hasPermission(Authentication, Permission)} on each element,
+     * but elements that share the same {@link ACL} instance are only evaluated once.
+     *
+     * @param objects the objects to check.
+     * @param a the principal to check for.
+     * @param p the permission to check.
+     * @return a new list of the objects passing the check, in iteration order.
+     * @since TODO
+     */
+    public static @Nonnull <T extends AccessControlled> List<T> filter(@Nonnull Iterable<? extends T> objects, @Nonnull Authentication a, @Nonnull Permission p) {
+        return filter(objects, a, p, true);
+    }
+
+    private static <T extends AccessControlled> List<T> filter(Iterable<? extends T> objects, Authentication a, Permission p, boolean explicit) {
+        List<T> r = objects instanceof Collection ? new ArrayList<T>(((Collection<?>) objects).size()) : new ArrayList<T>();
+        if (a == SYSTEM) {
+            for (T o : objects) {
+                r.add(o);
+            }
+            return r;
+        }
+        Map<ACL,Boolean> decisions = new IdentityHashMap<ACL,Boolean>();
+        for (T o : objects) {
+            boolean allowed;
+            if (USES_GET_ACL.get(o.getClass())) {
+                ACL acl = o.getACL();
+                Boolean d = decisions.get(acl);
+                if (d == null) {
+                    d = acl.hasPermission(a, p);
+                    decisions.put(acl, d);
+                }
+                allowed = d;
+            } else {
+                // the object has its own idea of permissions, so ask it directly
+                allowed = explicit ? o.hasPermission(a, p) : o.hasPermission(p);
+            }
+            if (allowed) {
+                r.add(o);
+            }
+        }
+        return r;
+    }
+
+    /**
+     * Whether instances of a class decide permissions purely through {@link AccessControlled#getACL()}.
+     */
+    private static final ClassValue<Boolean> USES_GET_ACL = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            try {
+                return type.getMethod("hasPermission", Permission.class).getDeclaringClass() == AccessControlled.class
+                        && type.getMethod("hasPermission", Authentication.class, Permission.class).getDeclaringClass() == AccessControlled.class;
+            } catch (NoSuchMethodException e) {
+                return false;
+            }
+        }
+    };
+
     /**
      * Checks if the current security principal has the permission to create top level items within the specified
      * item group.
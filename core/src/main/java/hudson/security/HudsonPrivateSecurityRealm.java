@@ -42,6 +42,7 @@ import hudson.util.Protector;
 import hudson.util.Scrambler;
 import hudson.util.XStream2;
 import jenkins.security.SecurityListener;
+import jenkins.security.UserDetailsCache;
 import net.sf.json.JSONObject;
 import org.acegisecurity.Authentication;
 import org.acegisecurity.AuthenticationException;
@@ -161,12 +162,26 @@ public class HudsonPrivateSecurityRealm extends AbstractPasswordBasedSecurityRea
      * This is used to check for the initial
      */
     private static boolean hasSomeUser() {
+        String id = someUserId;
+        if (id != null) {
+            // usually still there, so this needs neither going through nor loading all the users
+            User u = User.getById(id, false);
+            if (u != null && u.getProperty(Details.class) != null)
+                return true;
+        }
         for (User u : User.getAll())
-            if(u.getProperty(Details.class)!=null)
+            if(u.getProperty(Details.class)!=null) {
+                someUserId = u.getId();
                 return true;
+            }
         return false;
     }
 
+    /**
+     * Id of the last user found by {@link #hasSomeUser()}.
+     */
+    private static volatile String someUserId;
+
     /**
      * This implementation doesn't support groups.
      */
@@ -188,6 +203,12 @@ public class HudsonPrivateSecurityRealm extends AbstractPasswordBasedSecurityRea
 
     @Override
     protected Details authenticate(String username, String password) throws AuthenticationException {
+        // BCrypt is deliberately slow, so skip it for a password we have recently verified
+        UserDetailsCache cache = UserDetailsCache.get();
+        UserDetails verified = cache.getVerified(username, password);
+        if (verified instanceof Details && ((Details) verified).isCurrent()) {
+            return (Details) verified;
+        }
         Details u = loadUserByUsername(username);
         if (!u.isPasswordCorrect(password)) {
             String message;
@@ -198,6 +219,7 @@ public class HudsonPrivateSecurityRealm extends AbstractPasswordBasedSecurityRea
             }
             throw new BadCredentialsException(message);
         }
+        cache.putVerified(username, password, u);
         return u;
     }
 
@@ -647,6 +669,14 @@ public class HudsonPrivateSecurityRealm extends AbstractPasswordBasedSecurityRea
             return user==null;
         }
 
+        /**
+         * Whether this is still the password of a user that still exists,
+         * as opposed to one replaced by a password change or belonging to a deleted user.
+         */
+        /*package*/ boolean isCurrent() {
+            return user != null && user.getProperty(Details.class) == this && User.getById(user.getId(), false) == user;
+        }
+
         public static class ConverterImpl extends XStream2.PassthruConverter<Details> {
             public ConverterImpl(XStream2 xstream) { super(xstream); }
             @Override protected void callback(Details d, UnmarshallingContext context) {
@@ -0,0 +1,233 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2018, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.security;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import hudson.Extension;
+import hudson.XmlFile;
+import hudson.model.Run;
+import hudson.model.Saveable;
+import hudson.model.listeners.SaveableListener;
+import jenkins.util.MBeans;
+import jenkins.util.SystemProperties;
+import org.acegisecurity.Authentication;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Remembers the outcome of {@link SidACL#hasPermission(Authentication, Permission)}
+ * for a given {@link ACL} instance, {@link Authentication} instance and {@link Permission}.
+ *
+ * <p>
+ * Rendering a page often checks the same permission against the same ACL many times for the same user,
+ * and for users with many groups each check walks every group. Since the key uses the identity of the
+ * {@link Authentication}, which is typically kept in the HTTP session, entries are naturally scoped to one user.
+ *
+ * <p>
+ * The whole cache is dropped whenever the authorization strategy changes or access controlled configuration
+ * (other than build records) is saved. Entries also expire after {@link #TTL_SECONDS} so that ACLs changed
+ * without being saved are not trusted for long.
+ *
+ * <p>
+ * Disabled unless {@link #ENABLED} is set. Its hit rate is published through {@link PermissionCacheMXBean}.
+ *
+ * @since TODO
+ */
+@Restricted(NoExternalUse.class)
+public final class PermissionCache {
+
+    /**
+     * Whether decisions are remembered at all.
+     * Off by default, since authorization strategies may base their decisions on state that changes
+     * without anything being saved, and such changes would only take effect after {@link #TTL_SECONDS}.
+     */
+    static boolean ENABLED = SystemProperties.getBoolean(PermissionCache.class.getName() + ".enabled");
+
+    /**
+     * Maximum number of decisions to remember; 0 disables the cache.
+     */
+    static int SIZE = SystemProperties.getInteger(PermissionCache.class.getName() + ".size", 100000);
+
+    /**
+     * How long a decision is remembered at most.
+     */
+    static long TTL_SECONDS = SystemProperties.getLong(PermissionCache.class.getName() + ".ttlSeconds", 10L);
+
+    private static final Cache<Key,Boolean> DECISIONS = CacheBuilder.newBuilder()
+            .maximumSize(Math.max(SIZE, 0))
+            .expireAfterWrite(TTL_SECONDS, TimeUnit.SECONDS)
+            .build();
+
+    private static final AtomicLong generation = new AtomicLong();
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+
+    static {
+        MBeans.register("type=PermissionCache", new Metrics());
+    }
+
+    private PermissionCache() {}
+
+    static boolean isEnabled() {
+        return ENABLED && SIZE > 0;
+    }
+
+    /**
+     * Looks up an earlier decision.
+     *
+     * @return null if nothing is known.
+     */
+    static @CheckForNull Boolean get(@Nonnull Key key) {
+        Boolean b = DECISIONS.getIfPresent(key);
+        (b == null ? misses : hits).incrementAndGet();
+        return b;
+    }
+
+    /**
+     * Records a decision computed while {@link #getGeneration()} returned the given value.
+     */
+    static void put(@Nonnull Key key, boolean decision, long generation) {
+        DECISIONS.put(key, decision);
+        if (PermissionCache.generation.get() != generation) {
+            // configuration changed while we were computing this
+            DECISIONS.invalidate(key);
+        }
+    }
+
+    static long getGeneration() {
+        return generation.get();
+    }
+
+    /**
+     * Forgets all the decisions, to be called whenever permissions might have changed.
+     */
+    public static void invalidate() {
+        generation.incrementAndGet();
+        DECISIONS.invalidateAll();
+        LOGGER.log(Level.FINE, "Permission cache invalidated");
+    }
+
+    public static long getHitCount() {
+        return hits.get();
+    }
+
+    public static long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * Ratio of permission checks answered from the cache, between 0 and 1.
+     */
+    public static double getHitRate() {
+        long h = hits.get(), m = misses.get();
+        return h + m == 0 ? 0 : (double) h / (h + m);
+    }
+
+    private static final class Metrics implements PermissionCacheMXBean {
+        @Override
+        public boolean isEnabled() {
+            return PermissionCache.isEnabled();
+        }
+
+        @Override
+        public long getSize() {
+            return DECISIONS.size();
+        }
+
+        @Override
+        public long getHitCount() {
+            return PermissionCache.getHitCount();
+        }
+
+        @Override
+        public long getMissCount() {
+            return PermissionCache.getMissCount();
+        }
+
+        @Override
+        public double getHitRate() {
+            return PermissionCache.getHitRate();
+        }
+
+        @Override
+        public void invalidate() {
+            PermissionCache.invalidate();
+        }
+    }
+
+    /**
+     * Cache key, comparing the {@link ACL}, {@link Authentication} and {@link Permission} by identity.
+     */
+    static final class Key {
+        private final ACL acl;
+        private final Authentication auth;
+        private final Permission permission;
+        private final int hash;
+
+        Key(ACL acl, Authentication auth, Permission permission) {
+            this.acl = acl;
+            this.auth = auth;
+            this.permission = permission;
+            this.hash = (System.identityHashCode(acl) * 31 + System.identityHashCode(auth)) * 31 + System.identityHashCode(permission);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key that = (Key) o;
+            return acl == that.acl && auth == that.auth && permission == that.permission;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * Drops cached decisions when access controlled objects are saved.
+     * Build records are excluded, since they are saved all the time and do not carry their own permissions.
+     */
+    @Extension
+    public static final class SaveListenerImpl extends SaveableListener {
+        @Override
+        public void onChange(Saveable o, XmlFile file) {
+            if (o instanceof AccessControlled && !(o instanceof Run)) {
+                invalidate();
+            }
+        }
+    }
+
+    private static final Logger LOGGER = Logger.getLogger(PermissionCache.class.getName());
+}
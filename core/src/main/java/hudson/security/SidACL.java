@@ -38,6 +38,10 @@ import static java.util.logging.Level.FINER;
  * {@link ACL} that checks permissions based on {@link GrantedAuthority}
  * of the {@link Authentication}.
  *
+ * <p>
+ * If {@link PermissionCache} is enabled, decisions are remembered until configuration is saved,
+ * or for a few seconds at most.
+ *
  * @author Kohsuke Kawaguchi
  */
 public abstract class SidACL extends ACL {
@@ -49,12 +53,27 @@ public abstract class SidACL extends ACL {
                 LOGGER.fine("hasPermission("+a+","+permission+")=>SYSTEM user has full access");
             return true;
         }
+
+        PermissionCache.Key key = null;
+        long generation = 0;
+        if (PermissionCache.isEnabled()) {
+            key = new PermissionCache.Key(this, a, permission);
+            Boolean cached = PermissionCache.get(key);
+            if (cached != null) {
+                return cached;
+            }
+            generation = PermissionCache.getGeneration();
+        }
+
         Boolean b = _hasPermission(a,permission);
 
         if(LOGGER.isLoggable(FINE))
             LOGGER.fine("hasPermission("+a+","+permission+")=>"+(b==null?"null, thus false":b));
 
         if(b==null) b=false;    // default to rejection
+        if (key != null) {
+            PermissionCache.put(key, b, generation);
+        }
         return b;
     }
 
@@ -136,14 +155,33 @@ public abstract class SidACL extends ACL {
      * not be applied.
      */
     public final SidACL newInheritingACL(final SidACL parent) {
-        final SidACL child = this;
-        return new SidACL() {
-            protected Boolean hasPermission(Sid p, Permission permission) {
-                Boolean b = child.hasPermission(p, permission);
-                if(b!=null) return b;
-                return parent.hasPermission(p,permission);
-            }
-        };
+        // hand out the same instance for the same parent, so that PermissionCache entries keyed on it get reused
+        InheritingACL last = lastInheriting;
+        if (last != null && last.parent == parent) {
+            return last;
+        }
+        return lastInheriting = new InheritingACL(this, parent);
+    }
+
+    /**
+     * The last ACL returned by {@link #newInheritingACL(SidACL)}.
+     */
+    private transient volatile InheritingACL lastInheriting;
+
+    private static final class InheritingACL extends SidACL {
+        private final SidACL child;
+        private final SidACL parent;
+
+        InheritingACL(SidACL child, SidACL parent) {
+            this.child = child;
+            this.parent = parent;
+        }
+
+        protected Boolean hasPermission(Sid p, Permission permission) {
+            Boolean b = child.hasPermission(p, permission);
+            if(b!=null) return b;
+            return parent.hasPermission(p,permission);
+        }
     }
 
     private static final Logger LOGGER = Logger.getLogger(SidACL.class.getName());
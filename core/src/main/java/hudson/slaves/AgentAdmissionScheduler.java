@@ -0,0 +1,297 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2018, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.slaves;
+
+import hudson.model.Label;
+import hudson.model.Node;
+import hudson.model.Queue;
+import hudson.remoting.Channel;
+import hudson.triggers.SafeTimerTask;
+import jenkins.model.Jenkins;
+import jenkins.util.SystemProperties;
+import jenkins.util.Timer;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Spreads out agents coming online, such as when all inbound agents reconnect after a restart.
+ *
+ * <p>
+ * {@link SlaveComputer#setChannel(Channel, java.io.OutputStream, Channel.Listener)} waits in {@link #admit(SlaveComputer, Channel)}
+ * until a token is available, with tokens handed out at {@link #PERMITS_PER_SECOND}. When several agents are waiting,
+ * the one whose labels are demanded by the most buildable queue items goes first, so that builds start as early as possible.
+ *
+ * <p>
+ * With the rate limit enabled, the queue maintenance that follows each agent coming online is also coalesced,
+ * so that it runs at most once every {@link #MAINTENANCE_DELAY_MILLIS} no matter how many agents connect.
+ *
+ * @since TODO
+ */
+@Restricted(NoExternalUse.class)
+public final class AgentAdmissionScheduler {
+
+    /**
+     * How many agents may come online per second. 0 disables the rate limit.
+     */
+    static int PERMITS_PER_SECOND = SystemProperties.getInteger(AgentAdmissionScheduler.class.getName() + ".permitsPerSecond", 0);
+
+    /**
+     * How many agents may come online at once before the rate limit kicks in. Defaults to {@link #PERMITS_PER_SECOND}.
+     */
+    static int BURST = SystemProperties.getInteger(AgentAdmissionScheduler.class.getName() + ".burst", 0);
+
+    /**
+     * Shortest interval between two queue maintenances caused by agents coming online.
+     */
+    static long MAINTENANCE_DELAY_MILLIS = SystemProperties.getLong(AgentAdmissionScheduler.class.getName() + ".maintenanceDelayMillis", 1000L);
+
+    /**
+     * How long the queue demand per label is reused when ordering waiting agents.
+     */
+    private static final long DEMAND_TTL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private static final AgentAdmissionScheduler INSTANCE = new AgentAdmissionScheduler();
+
+    /**
+     * Agents waiting for a token, most demanded first. Guarded by {@code this}.
+     */
+    private final PriorityQueue<Ticket> waiting = new PriorityQueue<Ticket>();
+    private long sequence;
+    private double tokens = -1;
+    private long lastRefill;
+
+    private Map<Label,Integer> demand;
+    private int unlabeledDemand;
+    private long demandComputed;
+
+    private final AtomicLong admitted = new AtomicLong();
+    private final AtomicLong delayed = new AtomicLong();
+
+    private final AtomicBoolean maintenancePending = new AtomicBoolean();
+    private volatile long lastMaintenance;
+    private final AtomicLong coalesced = new AtomicLong();
+
+    /*package*/ AgentAdmissionScheduler() {}
+
+    public static @Nonnull AgentAdmissionScheduler get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Waits until the given agent may come online.
+     *
+     * @throws IOException if the channel gets closed while waiting.
+     */
+    public void admit(@Nonnull SlaveComputer computer, @Nonnull Channel channel) throws IOException, InterruptedException {
+        if (PERMITS_PER_SECOND <= 0) {
+            admitted.incrementAndGet();
+            return;
+        }
+        Node node = computer.getNode();
+        Ticket t;
+        synchronized (this) {
+            t = new Ticket(computer.getName(), node == null ? 0 : demandOf(node), sequence++);
+            waiting.add(t);
+            notifyAll(); // the agent at the head may have changed
+            try {
+                while (true) {
+                    if (channel.isClosingOrClosed()) {
+                        throw new IOException("Connection of " + computer.getName() + " was closed while waiting to come online");
+                    }
+                    long waitNanos = TimeUnit.SECONDS.toNanos(1);
+                    if (waiting.peek() == t) {
+                        refill();
+                        if (tokens >= 1) {
+                            tokens--;
+                            admitted.incrementAndGet();
+                            return;
+                        }
+                        t.delayed = true;
+                        waitNanos = Math.min(waitNanos, (long) ((1 - tokens) * TimeUnit.SECONDS.toNanos(1) / PERMITS_PER_SECOND) + 1);
+                    } else {
+                        t.delayed = true;
+                    }
+                    TimeUnit.NANOSECONDS.timedWait(this, waitNanos);
+                }
+            } finally {
+                waiting.remove(t);
+                if (t.delayed) {
+                    delayed.incrementAndGet();
+                    LOGGER.log(Level.FINE, "{0} came online after waiting for admission", computer.getName());
+                }
+                notifyAll();
+            }
+        }
+    }
+
+    private void refill() {
+        int burst = BURST > 0 ? BURST : PERMITS_PER_SECOND;
+        long now = System.nanoTime();
+        if (tokens < 0) {
+            tokens = burst;
+        } else {
+            tokens = Math.min(burst, tokens + (double) (now - lastRefill) * PERMITS_PER_SECOND / TimeUnit.SECONDS.toNanos(1));
+        }
+        lastRefill = now;
+    }
+
+    /**
+     * Number of buildable queue items the given node could take.
+     */
+    /*package*/ synchronized int demandOf(@Nonnull Node node) {
+        long now = System.nanoTime();
+        if (demand == null || now - demandComputed > DEMAND_TTL_NANOS) {
+            Map<Label,Integer> d = new HashMap<Label,Integer>();
+            int unlabeled = 0;
+            Jenkins j = Jenkins.getInstanceOrNull();
+            if (j != null) {
+                for (Queue.BuildableItem bi : j.getQueue().getBuildableItems()) {
+                    Label l = bi.getAssignedLabel();
+                    if (l == null) {
+                        unlabeled++;
+                    } else {
+                        Integer n = d.get(l);
+                        d.put(l, n == null ? 1 : n + 1);
+                    }
+                }
+            }
+            demand = d;
+            unlabeledDemand = unlabeled;
+            demandComputed = now;
+        }
+        int r = node.getMode() == Node.Mode.NORMAL ? unlabeledDemand : 0;
+        for (Map.Entry<Label,Integer> e : demand.entrySet()) {
+            if (e.getKey().contains(node)) {
+                r += e.getValue();
+            }
+        }
+        return r;
+    }
+
+    /**
+     * Asks the queue to look for work for agents that came online, at most once every {@link #MAINTENANCE_DELAY_MILLIS}
+     * if the rate limit is enabled, or right away otherwise.
+     */
+    public void scheduleMaintenance() {
+        if (PERMITS_PER_SECOND <= 0) {
+            Jenkins.getInstance().getQueue().scheduleMaintenance();
+            return;
+        }
+        if (!maintenancePending.compareAndSet(false, true)) {
+            coalesced.incrementAndGet();
+            return;
+        }
+        long delay = lastMaintenance + MAINTENANCE_DELAY_MILLIS - System.currentTimeMillis();
+        if (delay <= 0) {
+            maintain();
+        } else {
+            Timer.get().schedule(new SafeTimerTask() {
+                @Override
+                protected void doRun() {
+                    maintain();
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void maintain() {
+        // cleared first so that agents coming online from now on get another maintenance
+        maintenancePending.set(false);
+        lastMaintenance = System.currentTimeMillis();
+        Jenkins j = Jenkins.getInstanceOrNull();
+        if (j != null) {
+            j.getQueue().scheduleMaintenance();
+        }
+    }
+
+    /**
+     * Number of agents currently waiting to come online.
+     */
+    public synchronized int getWaiting() {
+        return waiting.size();
+    }
+
+    /**
+     * Number of agents admitted so far.
+     */
+    public long getAdmitted() {
+        return admitted.get();
+    }
+
+    /**
+     * Number of agents that had to wait before coming online.
+     */
+    public long getDelayed() {
+        return delayed.get();
+    }
+
+    /**
+     * Number of queue maintenance requests that were folded into one already scheduled.
+     */
+    public long getCoalescedMaintenance() {
+        return coalesced.get();
+    }
+
+    /**
+     * An agent waiting for admission; those with more demand, then those that arrived earlier, come first.
+     */
+    private static final class Ticket implements Comparable<Ticket> {
+        final String name;
+        final int demand;
+        final long sequence;
+        boolean delayed;
+
+        Ticket(String name, int demand, long sequence) {
+            this.name = name;
+            this.demand = demand;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(Ticket that) {
+            if (demand != that.demand) {
+                return demand > that.demand ? -1 : 1;
+            }
+            return Long.compare(sequence, that.sequence);
+        }
+
+        @Override
+        public String toString() {
+            return name + "(" + demand + ")";
+        }
+    }
+
+    private static final Logger LOGGER = Logger.getLogger(AgentAdmissionScheduler.class.getName());
+}
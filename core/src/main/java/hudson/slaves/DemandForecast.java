@@ -0,0 +1,257 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2018, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.slaves;
+
+import hudson.model.Label;
+
+import javax.annotation.CheckForNull;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per label history of queue arrivals, used by {@link NodeProvisioner.PredictiveStrategyImpl} to forecast
+ * how many items will arrive over the next horizon.
+ *
+ * <p>
+ * Arrivals are counted in one minute buckets covering one season (typically a day) plus the horizon.
+ * The forecast blends the arrivals over the last horizon (the trend) with those that followed the same time
+ * one season ago (the seasonal component), each weighted by how well it predicted the past, so that bursts
+ * that happen every day are anticipated. Every forecast is checked against the actual arrivals once its window
+ * is over, which gives the forecast error.
+ *
+ * <p>
+ * All methods take the current time, so that the forecast can be driven by a simulated clock.
+ */
+final class DemandForecast {
+
+    static final long BUCKET_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    /**
+     * Weight of the latest forecast error in the running averages.
+     */
+    private static final double ERROR_ALPHA = 0.2;
+
+    private final int horizonBuckets;
+    private final int seasonBuckets;
+
+    /**
+     * Keyed by assigned label, with null for items that can run anywhere. Guarded by {@code this}.
+     */
+    private final Map<Label,History> histories = new HashMap<Label,History>();
+
+    DemandForecast(long horizonMillis, long seasonMillis) {
+        this.horizonBuckets = (int) Math.max(1, horizonMillis / BUCKET_MILLIS);
+        this.seasonBuckets = (int) Math.max(horizonBuckets, seasonMillis / BUCKET_MILLIS);
+    }
+
+    long getHorizonMillis() {
+        return horizonBuckets * BUCKET_MILLIS;
+    }
+
+    /**
+     * Records an item entering the queue.
+     *
+     * @param estimatedDuration
+     *      how long the item is expected to run for, or -1 if unknown.
+     */
+    synchronized void recordArrival(@CheckForNull Label label, long now, long estimatedDuration) {
+        History h = history(label, now);
+        int i = h.index(now / BUCKET_MILLIS);
+        h.counts[i]++;
+        if (estimatedDuration >= 0) {
+            h.durations[i] += estimatedDuration;
+            h.known[i]++;
+        }
+    }
+
+    /**
+     * Forecasts the arrivals over the next horizon.
+     */
+    synchronized Forecast forecast(@CheckForNull Label label, long now) {
+        History h = history(label, now);
+        long bucket = now / BUCKET_MILLIS;
+
+        int trend = h.count(bucket - horizonBuckets, bucket);
+        long seasonStart = bucket - seasonBuckets;
+        boolean seasonal = seasonStart >= h.firstBucket;
+        int lastSeason = seasonal ? h.count(seasonStart, seasonStart + horizonBuckets) : 0;
+
+        double w = 0;
+        if (seasonal) {
+            double sum = h.trendError + h.seasonalError;
+            w = h.checked == 0 || sum == 0 ? 0.5 : h.trendError / sum;
+        }
+        double arrivals = (1 - w) * trend + w * lastSeason;
+
+        if (h.pending.isEmpty() || h.pending.peekLast().start != bucket) {
+            h.pending.add(new Pending(bucket, arrivals, trend, seasonal ? lastSeason : trend));
+        }
+
+        long total = h.sum(h.durations, bucket - horizonBuckets, bucket) + (seasonal ? h.sum(h.durations, seasonStart, seasonStart + horizonBuckets) : 0);
+        long known = h.sum(h.known, bucket - horizonBuckets, bucket) + (seasonal ? h.sum(h.known, seasonStart, seasonStart + horizonBuckets) : 0);
+        return new Forecast(arrivals, known == 0 ? -1 : total / known);
+    }
+
+    /**
+     * Mean absolute difference between the forecast and the actual number of arrivals over a horizon, for the given label.
+     *
+     * @return -1 if no forecast has been checked yet.
+     */
+    synchronized double getMeanAbsoluteError(@CheckForNull Label label) {
+        History h = histories.get(label);
+        return h == null || h.checked == 0 ? -1 : h.error;
+    }
+
+    /**
+     * Gets the history of the given label, brought up to the current time.
+     */
+    private History history(Label label, long now) {
+        History h = histories.get(label);
+        long bucket = now / BUCKET_MILLIS;
+        if (h == null) {
+            h = new History(seasonBuckets + horizonBuckets + 1, bucket);
+            histories.put(label, h);
+        }
+        h.advance(bucket);
+        // check the forecasts whose window is over
+        while (!h.pending.isEmpty() && h.pending.peek().start + horizonBuckets <= bucket) {
+            Pending p = h.pending.poll();
+            int actual = h.count(p.start, p.start + horizonBuckets);
+            h.error = average(h.error, Math.abs(p.arrivals - actual), h.checked);
+            h.trendError = average(h.trendError, Math.abs(p.trend - actual), h.checked);
+            h.seasonalError = average(h.seasonalError, Math.abs(p.seasonal - actual), h.checked);
+            h.checked++;
+        }
+        return h;
+    }
+
+    private static double average(double average, double value, long count) {
+        return count == 0 ? value : average + ERROR_ALPHA * (value - average);
+    }
+
+    /**
+     * Expected arrivals over the next horizon.
+     */
+    static final class Forecast {
+        /**
+         * Number of items expected to enter the queue.
+         */
+        final double arrivals;
+        /**
+         * Average estimated duration of such items, or -1 if unknown.
+         */
+        final long duration;
+
+        Forecast(double arrivals, long duration) {
+            this.arrivals = arrivals;
+            this.duration = duration;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%.2f arrivals lasting %dms", arrivals, duration);
+        }
+    }
+
+    private static final class Pending {
+        final long start;
+        final double arrivals;
+        final int trend;
+        final int seasonal;
+
+        Pending(long start, double arrivals, int trend, int seasonal) {
+            this.start = start;
+            this.arrivals = arrivals;
+            this.trend = trend;
+            this.seasonal = seasonal;
+        }
+    }
+
+    /**
+     * Ring of per-minute counters.
+     */
+    private static final class History {
+        final int[] counts;
+        final long[] durations;
+        final int[] known;
+        /**
+         * First bucket that was recorded, so that we know whether a season has gone by.
+         */
+        final long firstBucket;
+        long lastBucket;
+
+        final ArrayDeque<Pending> pending = new ArrayDeque<Pending>();
+        double error, trendError, seasonalError;
+        long checked;
+
+        History(int size, long bucket) {
+            counts = new int[size];
+            durations = new long[size];
+            known = new int[size];
+            firstBucket = lastBucket = bucket;
+        }
+
+        int index(long bucket) {
+            return (int) (bucket % counts.length);
+        }
+
+        /**
+         * Clears the buckets that are about to be reused.
+         */
+        void advance(long bucket) {
+            for (long b = Math.max(lastBucket + 1, bucket - counts.length + 1); b <= bucket; b++) {
+                int i = index(b);
+                counts[i] = 0;
+                durations[i] = 0;
+                known[i] = 0;
+            }
+            lastBucket = Math.max(lastBucket, bucket);
+        }
+
+        /**
+         * Number of arrivals in the buckets [from,to).
+         */
+        int count(long from, long to) {
+            return (int) sum(counts, from, to);
+        }
+
+        long sum(int[] a, long from, long to) {
+            long r = 0;
+            for (long b = Math.max(from, Math.max(firstBucket, lastBucket - a.length + 1)); b < to && b <= lastBucket; b++) {
+                r += a[index(b)];
+            }
+            return r;
+        }
+
+        long sum(long[] a, long from, long to) {
+            long r = 0;
+            for (long b = Math.max(from, Math.max(firstBucket, lastBucket - a.length + 1)); b < to && b <= lastBucket; b++) {
+                r += a[index(b)];
+            }
+            return r;
+        }
+    }
+}
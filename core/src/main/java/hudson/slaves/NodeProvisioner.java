@@ -24,20 +24,25 @@
 package hudson.slaves;
 
 import hudson.AbortException;
+import hudson.ExtensionList;
 import hudson.ExtensionPoint;
 import hudson.model.*;
+import hudson.model.queue.LoadPredictor;
+import hudson.model.queue.QueueListener;
 import jenkins.model.Jenkins;
 
 import static hudson.model.LoadStatistics.DECAY;
 import hudson.model.MultiStageTimeSeries.TimeScale;
 import hudson.Extension;
 import jenkins.util.SystemProperties;
+import jenkins.util.ThreadPools;
 import org.jenkinsci.Symbol;
 
 import javax.annotation.Nonnull;
 import javax.annotation.concurrent.GuardedBy;
 import java.awt.Color;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.concurrent.Future;
 import java.util.concurrent.ExecutionException;
 import java.util.List;
@@ -48,6 +53,7 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
 import java.util.logging.Logger;
 import java.util.logging.Level;
 import java.io.IOException;
@@ -171,7 +177,7 @@ public class NodeProvisioner {
     public void suggestReviewNow() {
         if (System.currentTimeMillis() > lastSuggestedReview + TimeUnit.SECONDS.toMillis(1)) {
             lastSuggestedReview = System.currentTimeMillis();
-            Computer.threadPoolForRemoting.submit(new Runnable() {
+            ThreadPools.QUEUE_MAINTENANCE.submit(new Runnable() {
                 public void run() {
                     update();
                 }
@@ -780,6 +786,154 @@ public class NodeProvisioner {
         }
     }
 
+    /**
+     * Strategy that provisions ahead of the demand forecast by {@link DemandForecast},
+     * so that the capacity for a burst of builds that happens regularly is being launched by the time it arrives.
+     *
+     * <p>
+     * The executors wanted one horizon from now are estimated as those that {@link LoadPredictor}s expect to still be busy,
+     * plus the items in the queue, plus the forecast arrivals that will still be running given their estimated duration.
+     * Whatever this exceeds the online, connecting and planned capacity by is provisioned right away.
+     * Other strategies are always consulted afterwards, to take care of what is in the queue now.
+     *
+     * <p>
+     * Disabled unless {@code hudson.slaves.NodeProvisioner.predictive} is set.
+     *
+     * @since TODO
+     */
+    @Extension(ordinal = 100) @Symbol("predictive")
+    public static class PredictiveStrategyImpl extends Strategy {
+
+        static boolean ENABLED = SystemProperties.getBoolean(NodeProvisioner.class.getName() + ".predictive");
+
+        /**
+         * How far ahead demand is forecast, which should be about the time it takes for a cloud agent to come online.
+         */
+        static long HORIZON_MILLIS = SystemProperties.getLong(NodeProvisioner.class.getName() + ".predictiveHorizonMillis", TimeUnit.MINUTES.toMillis(5));
+
+        /**
+         * Period after which the arrivals are expected to repeat themselves.
+         */
+        static long SEASON_MILLIS = SystemProperties.getLong(NodeProvisioner.class.getName() + ".predictiveSeasonMillis", TimeUnit.DAYS.toMillis(1));
+
+        private final DemandForecast forecast;
+        private final LongSupplier clock;
+
+        public PredictiveStrategyImpl() {
+            this(new DemandForecast(HORIZON_MILLIS, SEASON_MILLIS), System::currentTimeMillis);
+        }
+
+        PredictiveStrategyImpl(DemandForecast forecast, LongSupplier clock) {
+            this.forecast = forecast;
+            this.clock = clock;
+        }
+
+        /** {@inheritDoc} */
+        @Nonnull
+        @Override
+        public StrategyDecision apply(@Nonnull StrategyState state) {
+            if (ENABLED) {
+                state.recordPendingLaunches(provisionAhead(state.getLabel(), state.getSnapshot(),
+                        state.getPlannedCapacitySnapshot() + state.getAdditionalPlannedCapacity()));
+            }
+            return StrategyDecision.CONSULT_REMAINING_STRATEGIES;
+        }
+
+        /**
+         * Starts provisioning whatever capacity the forecast demand exceeds the current one by.
+         */
+        Collection<PlannedNode> provisionAhead(Label label, LoadStatistics.LoadStatisticsSnapshot snapshot, int plannedCapacity) {
+            int excessWorkload = getExcessWorkload(label, snapshot, plannedCapacity);
+            if (excessWorkload <= 0) {
+                return Collections.emptyList();
+            }
+            List<PlannedNode> r = new ArrayList<PlannedNode>();
+            CLOUD:
+            for (Cloud c : Jenkins.getInstance().clouds) {
+                if (excessWorkload <= 0) {
+                    break;
+                }
+                if (!c.canProvision(label)) {
+                    continue;
+                }
+                for (CloudProvisioningListener cl : CloudProvisioningListener.all()) {
+                    if (cl.canProvision(c, label, excessWorkload) != null) {
+                        continue CLOUD;
+                    }
+                }
+                Collection<PlannedNode> additionalCapacities = c.provision(label, excessWorkload);
+                fireOnStarted(c, label, additionalCapacities);
+                for (PlannedNode ac : additionalCapacities) {
+                    excessWorkload -= ac.numExecutors;
+                    LOGGER.log(Level.INFO, "Started provisioning {0} from {1} with {2,number,integer} "
+                                    + "executors ahead of forecast demand. Remaining excess workload: {3,number,integer}",
+                            new Object[]{ac.displayName, c.name, ac.numExecutors, excessWorkload});
+                }
+                r.addAll(additionalCapacities);
+            }
+            return r;
+        }
+
+        /**
+         * Number of executors missing one horizon from now, according to the forecast.
+         */
+        int getExcessWorkload(Label label, LoadStatistics.LoadStatisticsSnapshot snapshot, int plannedCapacity) {
+            long now = clock.getAsLong();
+            long horizon = forecast.getHorizonMillis();
+            DemandForecast.Forecast f = forecast.forecast(label, now);
+
+            // arrivals are spread over the horizon, so only those that started less than their duration ago are still running
+            double arriving = f.duration < 0 ? f.arrivals : f.arrivals * Math.min(1, (double) f.duration / horizon);
+
+            int busy = 0;
+            long at = now + horizon;
+            for (Computer c : label == null ? Arrays.asList(Jenkins.getInstance().getComputers()) : computersOf(label)) {
+                if (c.isOnline()) {
+                    busy += Math.min(LoadPredictor.predictBusyExecutors(c, now, at), c.countExecutors());
+                }
+            }
+
+            double demand = busy + snapshot.getQueueLength() + arriving;
+            int capacity = snapshot.getOnlineExecutors() + snapshot.getConnectingExecutors() + plannedCapacity;
+            int excess = (int) Math.floor(demand - capacity + MARGIN);
+            LOGGER.log(Level.FINE, "Forecast for {0}: {1} (mean absolute error {2,number,0.00}), busy={3}, queue={4}, capacity={5}, excess={6}",
+                    new Object[] {label, f, forecast.getMeanAbsoluteError(label), busy, snapshot.getQueueLength(), capacity, excess});
+            return excess;
+        }
+
+        private static List<Computer> computersOf(Label label) {
+            List<Computer> r = new ArrayList<Computer>();
+            for (Node n : label.getNodes()) {
+                Computer c = n.toComputer();
+                if (c != null) {
+                    r.add(c);
+                }
+            }
+            return r;
+        }
+
+        void recordArrival(Label label, long estimatedDuration) {
+            forecast.recordArrival(label, clock.getAsLong(), estimatedDuration);
+        }
+
+        /**
+         * Feeds {@link PredictiveStrategyImpl} with the items entering the queue.
+         */
+        @Extension
+        public static final class ArrivalRecorder extends QueueListener {
+            @Override
+            public void onEnterWaiting(Queue.WaitingItem wi) {
+                if (!ENABLED) {
+                    return;
+                }
+                PredictiveStrategyImpl s = ExtensionList.lookup(Strategy.class).get(PredictiveStrategyImpl.class);
+                if (s != null) {
+                    s.recordArrival(wi.getAssignedLabel(), wi.task.getEstimatedDuration());
+                }
+            }
+        }
+    }
+
     /**
      * Periodically invoke NodeProvisioners
      */
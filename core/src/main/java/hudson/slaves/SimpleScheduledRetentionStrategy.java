@@ -174,6 +174,7 @@ public class SimpleScheduledRetentionStrategy extends RetentionStrategy<SlaveCom
             LOGGER.log(INFO, "Trying to launch computer {0} as schedule says it should be on-line at "
                     + "this point in time", new Object[]{c.getName()});
             if (c.isLaunchSupported()) {
+                // not ThreadPools.AGENT_LAUNCH, as this waits for the launch to complete
                 Computer.threadPoolForRemoting.submit(new Runnable() {
                     public void run() {
                         try {
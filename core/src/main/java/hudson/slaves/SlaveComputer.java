@@ -59,6 +59,7 @@ import jenkins.slaves.JnlpSlaveAgentProtocol;
 import jenkins.slaves.RemotingVersionInfo;
 import jenkins.slaves.systemInfo.SlaveSystemInfo;
 import jenkins.util.SystemProperties;
+import jenkins.util.ThreadPools;
 import org.acegisecurity.context.SecurityContext;
 import org.acegisecurity.context.SecurityContextHolder;
 import org.kohsuke.accmod.Restricted;
@@ -278,7 +279,7 @@ public class SlaveComputer extends Computer {
             logger.fine("Forcing a reconnect on "+getName());
 
         closeChannel();
-        return lastConnectActivity = Computer.threadPoolForRemoting.submit(new java.util.concurrent.Callable<Object>() {
+        return lastConnectActivity = ThreadPools.AGENT_LAUNCH.submit(new java.util.concurrent.Callable<Object>() {
             public Object call() throws Exception {
                 // do this on another thread so that the lengthy launch operation
                 // (which is typical) won't block UI thread.
@@ -619,6 +620,9 @@ public class SlaveComputer extends Computer {
         if(listener!=null)
             channel.addListener(listener);
 
+        // after a restart many agents connect at once, so let the ones with pending work come online first
+        AgentAdmissionScheduler.get().admit(this, channel);
+
         String slaveVersion = channel.call(new SlaveVersion());
         log.println("Remoting version: " + slaveVersion);
         VersionNumber agentVersion = new VersionNumber(slaveVersion);
@@ -696,7 +700,7 @@ public class SlaveComputer extends Computer {
             SecurityContextHolder.setContext(old);
         }
         log.println("Agent successfully connected and online");
-        Jenkins.getInstance().getQueue().scheduleMaintenance();
+        AgentAdmissionScheduler.get().scheduleMaintenance();
     }
 
     @Override
@@ -729,7 +733,7 @@ public class SlaveComputer extends Computer {
     @Override
     public Future<?> disconnect(OfflineCause cause) {
         super.disconnect(cause);
-        return Computer.threadPoolForRemoting.submit(new Runnable() {
+        return ThreadPools.CHANNEL_TERMINATION.submit(new Runnable() {
             public void run() {
                 // do this on another thread so that any lengthy disconnect operation
                 // (which could be typical) won't block UI thread.
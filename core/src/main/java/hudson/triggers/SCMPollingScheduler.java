@@ -0,0 +1,314 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2018, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.triggers;
+
+import hudson.Util;
+import hudson.model.Item;
+import hudson.scheduler.Hash;
+import hudson.scm.SCM;
+import jenkins.triggers.SCMTriggerItem;
+import jenkins.util.SystemProperties;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Decides when {@link SCMTrigger} polling actually runs, on top of the crontab of each job.
+ *
+ * <ul>
+ * <li>Polls triggered by the crontab are delayed by a stable, per-job offset (the same idea as
+ *     {@code H} in the crontab, see {@link Hash}) so that jobs written as {@code 0 * * * *}
+ *     do not all hit the repository at the same second.
+ * <li>Jobs that keep finding no changes skip an increasing number of crontab ticks, and are
+ *     brought back to their configured schedule as soon as a change is found.
+ * <li>The number of polls running concurrently against a single repository host can be capped.
+ * </ul>
+ *
+ * Post-commit notifications and explicit calls to {@link SCMTrigger#run()} are never delayed nor skipped.
+ */
+@Restricted(NoExternalUse.class)
+public final class SCMPollingScheduler {
+
+    /**
+     * Width of the window, in seconds, over which crontab-triggered polls are spread. 0 disables jitter.
+     */
+    static int JITTER_SECONDS = SystemProperties.getInteger(SCMTrigger.class.getName() + ".jitterSeconds", 0);
+
+    /**
+     * Whether jobs that do not find changes should be polled less often than their crontab says.
+     */
+    static boolean ADAPTIVE = SystemProperties.getBoolean(SCMTrigger.class.getName() + ".adaptive");
+
+    /**
+     * Largest factor by which the crontab interval of an idle job gets stretched.
+     */
+    static int ADAPTIVE_MAX_BACKOFF = SystemProperties.getInteger(SCMTrigger.class.getName() + ".adaptiveMaxBackoff", 8);
+
+    /**
+     * Number of consecutive polls without changes that doubles the interval of a job.
+     */
+    static int ADAPTIVE_IDLE_POLLS = SystemProperties.getInteger(SCMTrigger.class.getName() + ".adaptiveIdlePolls", 4);
+
+    /**
+     * How long to wait before retrying a poll that was held back by the per-host limit.
+     */
+    static long HOST_RETRY_MILLIS = SystemProperties.getLong(SCMTrigger.class.getName() + ".hostRetryMillis", TimeUnit.SECONDS.toMillis(5));
+
+    /**
+     * Matches {@code scheme://[user@]host} and scp-like {@code user@host:path} repository locations.
+     */
+    private static final Pattern HOST = Pattern.compile("[a-zA-Z][a-zA-Z0-9+.-]*://(?:[^@/\\s]*@)?([^/:?#\\s]+)|[^@/\\s]+@([^:/\\s]+):");
+
+    private final Map<Item,JobState> jobs = Collections.synchronizedMap(new WeakHashMap<Item,JobState>());
+
+    private final ConcurrentMap<String,HostStatistics> hosts = new ConcurrentHashMap<String,HostStatistics>();
+
+    /**
+     * Called on every crontab tick of a job.
+     *
+     * @return false if this tick should be skipped because the job has been idle recently.
+     */
+    boolean shouldPoll(@Nonnull Item job) {
+        if (!ADAPTIVE) {
+            return true;
+        }
+        JobState s = state(job);
+        synchronized (s) {
+            if (++s.ticks < s.getInterval()) {
+                return false;
+            }
+            s.ticks = 0;
+            return true;
+        }
+    }
+
+    /**
+     * Stable delay to apply to a crontab-triggered poll of the given job.
+     */
+    long getJitterMillis(@Nonnull Item job) {
+        if (JITTER_SECONDS <= 0) {
+            return 0;
+        }
+        return TimeUnit.SECONDS.toMillis(Hash.from(job.getFullName()).next(JITTER_SECONDS));
+    }
+
+    /**
+     * Current polling interval of the job, as a multiple of its crontab interval.
+     */
+    int getInterval(@Nonnull Item job) {
+        JobState s = state(job);
+        synchronized (s) {
+            return s.getInterval();
+        }
+    }
+
+    /**
+     * Reserves a polling slot for the given host.
+     *
+     * @param limit maximum number of concurrent polls per host, or 0 for no limit.
+     * @return false if the host is already at its limit, in which case the poll should be retried later.
+     */
+    boolean tryAcquire(@Nonnull String host, int limit) {
+        HostStatistics h = host(host);
+        while (true) {
+            int active = h.active.get();
+            if (limit > 0 && active >= limit) {
+                h.deferred.incrementAndGet();
+                return false;
+            }
+            if (h.active.compareAndSet(active, active + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Releases the slot obtained by {@link #tryAcquire(String, int)} and records the outcome of the poll.
+     */
+    void release(@Nonnull String host, @Nonnull Item job, boolean changes, long durationMillis) {
+        HostStatistics h = host(host);
+        h.active.decrementAndGet();
+        h.record(durationMillis);
+
+        JobState s = state(job);
+        synchronized (s) {
+            s.idle = changes ? 0 : s.idle + 1;
+        }
+    }
+
+    /**
+     * Snapshot of the per-host statistics, sorted by host name.
+     */
+    @Nonnull List<HostStatistics> getHostStatistics() {
+        List<HostStatistics> r = new ArrayList<HostStatistics>(hosts.values());
+        Collections.sort(r, (a, b) -> a.getHost().compareTo(b.getHost()));
+        return r;
+    }
+
+    /**
+     * Average duration of a poll across all hosts, in milliseconds.
+     */
+    long getAverageLatency() {
+        long count = 0, total = 0;
+        for (HostStatistics h : hosts.values()) {
+            synchronized (h) {
+                count += h.count;
+                total += h.total;
+            }
+        }
+        return count == 0 ? 0 : total / count;
+    }
+
+    private JobState state(Item job) {
+        synchronized (jobs) {
+            JobState s = jobs.get(job);
+            if (s == null) {
+                jobs.put(job, s = new JobState());
+            }
+            return s;
+        }
+    }
+
+    private HostStatistics host(String host) {
+        HostStatistics h = hosts.get(host);
+        if (h == null) {
+            HostStatistics n = new HostStatistics(host);
+            h = hosts.putIfAbsent(host, n);
+            if (h == null) {
+                h = n;
+            }
+        }
+        return h;
+    }
+
+    /**
+     * Guesses the repository host polled by the given job from {@link SCM#getKey()} of its first SCM,
+     * falling back to the SCM type when the key does not look like it contains a URL.
+     */
+    static @Nonnull String hostOf(@CheckForNull SCMTriggerItem item) {
+        if (item == null) {
+            return "";
+        }
+        Iterator<? extends SCM> scms = item.getSCMs().iterator();
+        if (!scms.hasNext()) {
+            return "";
+        }
+        SCM scm = scms.next();
+        String host = hostOf(scm.getKey());
+        return host != null ? host : scm.getType();
+    }
+
+    static @CheckForNull String hostOf(@Nonnull String key) {
+        Matcher m = HOST.matcher(key);
+        if (!m.find()) {
+            return null;
+        }
+        return Util.fixNull(m.group(1) != null ? m.group(1) : m.group(2)).toLowerCase();
+    }
+
+    private static final class JobState {
+        /**
+         * Number of consecutive polls that found no changes.
+         */
+        int idle;
+        /**
+         * Number of crontab ticks since the last poll.
+         */
+        int ticks;
+
+        int getInterval() {
+            int steps = idle / Math.max(1, ADAPTIVE_IDLE_POLLS);
+            return Math.max(1, Math.min(ADAPTIVE_MAX_BACKOFF, 1 << Math.min(steps, 30)));
+        }
+    }
+
+    /**
+     * Polling activity against one repository host.
+     */
+    public static final class HostStatistics {
+        private final String host;
+        private final AtomicInteger active = new AtomicInteger();
+        private final AtomicInteger deferred = new AtomicInteger();
+        private long count, total, max, last;
+
+        HostStatistics(String host) {
+            this.host = host;
+        }
+
+        synchronized void record(long duration) {
+            count++;
+            total += duration;
+            max = Math.max(max, duration);
+            last = duration;
+        }
+
+        public String getHost() {
+            return host;
+        }
+
+        /**
+         * Number of polls currently running against this host.
+         */
+        public int getActive() {
+            return active.get();
+        }
+
+        /**
+         * Number of times a poll was held back because this host was at its limit.
+         */
+        public int getDeferred() {
+            return deferred.get();
+        }
+
+        public synchronized long getCount() {
+            return count;
+        }
+
+        public synchronized long getAverageMillis() {
+            return count == 0 ? 0 : total / count;
+        }
+
+        public synchronized long getMaxMillis() {
+            return max;
+        }
+
+        public synchronized long getLastMillis() {
+            return last;
+        }
+    }
+}
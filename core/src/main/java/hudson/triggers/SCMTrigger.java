@@ -70,6 +70,7 @@ import jenkins.model.RunAction2;
 import jenkins.scm.SCMDecisionHandler;
 import jenkins.triggers.SCMTriggerItem;
 import jenkins.util.SystemProperties;
+import jenkins.util.Timer;
 import net.sf.json.JSONObject;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.jelly.XMLOutput;
@@ -192,6 +193,38 @@ public class SCMTrigger extends Trigger<Item> {
         }
     }
 
+    /**
+     * Called by {@link Trigger.Cron} when the crontab of this trigger fires.
+     * <p>
+     * Unlike {@link #run()}, which is also used for post-commit notifications,
+     * this applies the jitter and the adaptive interval of {@link SCMPollingScheduler}.
+     */
+    @Override
+    protected void runScheduled() {
+        if (job == null) {
+            return;
+        }
+
+        SCMPollingScheduler scheduler = getDescriptor().getScheduler();
+        if (!scheduler.shouldPoll(job)) {
+            LOGGER.log(Level.FINE, "Skipping polling of {0}, polled every {1} ticks as no changes were found recently",
+                    new Object[] {job, scheduler.getInterval(job)});
+            return;
+        }
+        long delay = scheduler.getJitterMillis(job);
+        if (delay <= 0) {
+            run();
+        } else {
+            LOGGER.log(Level.FINE, "Delaying polling of {0} by {1}ms", new Object[] {job, delay});
+            Timer.get().schedule(new SafeTimerTask() {
+                @Override
+                protected void doRun() {
+                    SCMTrigger.this.run();
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
     @Override
     public DescriptorImpl getDescriptor() {
         return (DescriptorImpl)super.getDescriptor();
@@ -230,6 +263,11 @@ public class SCMTrigger extends Trigger<Item> {
          */
         private transient final SequentialExecutionQueue queue = new SequentialExecutionQueue(Executors.newSingleThreadExecutor(threadFactory()));
 
+        /**
+         * Tracks per-job and per-host polling activity, see {@link SCMPollingScheduler}.
+         */
+        private transient final SCMPollingScheduler scheduler = new SCMPollingScheduler();
+
         /**
          * Whether the projects should be polled all in one go in the order of dependencies. The default behavior is
          * that each project polls for changes independently.
@@ -245,6 +283,11 @@ public class SCMTrigger extends Trigger<Item> {
         private static final int THREADS_UPPER_BOUND = 100;
         private static final int THREADS_DEFAULT= 10;
 
+        /**
+         * Max number of concurrent polls against a single repository host, 0 for no limit.
+         */
+        private int maximumConcurrentPollsPerHost;
+
         private void readResolve() {
             if (maximumThreads == 0) {
                 maximumThreads = THREADS_DEFAULT;
@@ -275,6 +318,36 @@ public class SCMTrigger extends Trigger<Item> {
             AdministrativeMonitor.all().get(AdministrativeMonitorImpl.class).on = isClogged();
         }
 
+        /**
+         * Number of polling activities waiting for a thread.
+         * @since TODO
+         */
+        public int getQueueLength() {
+            return queue.getQueueLength();
+        }
+
+        @Restricted(NoExternalUse.class)
+        public SCMPollingScheduler getScheduler() {
+            return scheduler;
+        }
+
+        /**
+         * Polling statistics per repository host, as guessed from the SCM configuration of each job.
+         * @since TODO
+         */
+        @Restricted(NoExternalUse.class)
+        public List<SCMPollingScheduler.HostStatistics> getHostStatistics() {
+            return scheduler.getHostStatistics();
+        }
+
+        /**
+         * Average time taken by a single polling activity, in milliseconds.
+         * @since TODO
+         */
+        public long getAveragePollingLatency() {
+            return scheduler.getAverageLatency();
+        }
+
         /**
          * Gets the snapshot of {@link Runner}s that are performing polling.
          */
@@ -320,6 +393,24 @@ public class SCMTrigger extends Trigger<Item> {
             resizeThreadPool();
         }
 
+        /**
+         * Gets the maximum number of polling activities that may run concurrently against one repository host.
+         * @return a positive number, or 0 if there is no limit.
+         * @since TODO
+         */
+        public int getMaximumConcurrentPollsPerHost() {
+            return maximumConcurrentPollsPerHost;
+        }
+
+        /**
+         * Sets the maximum number of polling activities that may run concurrently against one repository host.
+         * @param n a positive number, or 0 (or negative) to remove the limit.
+         * @since TODO
+         */
+        public void setMaximumConcurrentPollsPerHost(int n) {
+            maximumConcurrentPollsPerHost = Math.max(0, n);
+        }
+
         @Restricted(NoExternalUse.class)
         public boolean isPollingThreadCountOptionVisible() {
             if (getPollingThreadCount() != THREADS_DEFAULT) {
@@ -358,6 +449,7 @@ public class SCMTrigger extends Trigger<Item> {
             } else {
                 setPollingThreadCount(Integer.parseInt(t));
             }
+            setMaximumConcurrentPollsPerHost(json.optInt("maximumConcurrentPollsPerHost", 0));
 
             // Save configuration
             save();
@@ -369,6 +461,13 @@ public class SCMTrigger extends Trigger<Item> {
             return FormValidation.validateIntegerInRange(value, THREADS_LOWER_BOUND, THREADS_UPPER_BOUND);
         }
 
+        public FormValidation doCheckMaximumConcurrentPollsPerHost(@QueryParameter String value) {
+            if (StringUtils.isBlank(value)) {
+                return FormValidation.ok();
+            }
+            return FormValidation.validateNonNegativeInteger(value);
+        }
+
         /**
          * Performs syntax check.
          */
@@ -398,6 +497,31 @@ public class SCMTrigger extends Trigger<Item> {
 
         private boolean on;
 
+        /**
+         * Number of polling activities waiting for a thread.
+         * @since TODO
+         */
+        public int getQueueLength() {
+            return descriptor().getQueueLength();
+        }
+
+        /**
+         * Average time taken by a single polling activity, in milliseconds.
+         * @since TODO
+         */
+        public long getAveragePollingLatency() {
+            return descriptor().getAveragePollingLatency();
+        }
+
+        @Restricted(NoExternalUse.class)
+        public List<SCMPollingScheduler.HostStatistics> getHostStatistics() {
+            return descriptor().getHostStatistics();
+        }
+
+        private static DescriptorImpl descriptor() {
+            return Jenkins.getInstance().getDescriptorByType(DescriptorImpl.class);
+        }
+
         public boolean isActivated() {
             return on;
         }
@@ -641,11 +765,29 @@ public class SCMTrigger extends Trigger<Item> {
                 return;
             }
 
+            final DescriptorImpl d = getDescriptor();
+            // synchronous polling runs one job at a time anyway, so there is nothing to limit
+            int limit = d.synchronousPolling ? 0 : d.getMaximumConcurrentPollsPerHost();
+            String host = SCMPollingScheduler.hostOf(job());
+            if (!d.scheduler.tryAcquire(host, limit)) {
+                LOGGER.log(Level.FINE, "Deferring polling of {0} as {1} is already polled by {2} threads",
+                        new Object[] {job, host, limit});
+                Timer.get().schedule(new SafeTimerTask() {
+                    @Override
+                    protected void doRun() {
+                        d.queue.execute(Runner.this);
+                    }
+                }, SCMPollingScheduler.HOST_RETRY_MILLIS, TimeUnit.MILLISECONDS);
+                return;
+            }
+
             String threadName = Thread.currentThread().getName();
             Thread.currentThread().setName("SCM polling for "+job);
+            boolean changes = false;
             try {
                 startTime = System.currentTimeMillis();
-                if(runPolling()) {
+                changes = runPolling();
+                if(changes) {
                     SCMTriggerItem p = job();
                     String name = " #"+p.getNextBuildNumber();
                     SCMTriggerCause cause;
@@ -665,6 +807,7 @@ public class SCMTrigger extends Trigger<Item> {
                     }
                 }
             } finally {
+                d.scheduler.release(host, job, changes, System.currentTimeMillis() - startTime);
                 Thread.currentThread().setName(threadName);
             }
         }
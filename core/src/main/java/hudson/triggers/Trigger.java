@@ -112,6 +112,18 @@ public abstract class Trigger<J extends Item> implements Describable<Trigger<?>>
      */
     public void run() {}
 
+    /**
+     * Called when the crontab of this trigger matches the current time.
+     * <p>
+     * Defaults to {@link #run()}. Override to handle scheduled runs differently from
+     * other callers of {@link #run()}, for example to spread them out over time.
+     *
+     * @since TODO
+     */
+    protected void runScheduled() {
+        run();
+    }
+
     /**
      * Called before a {@link Trigger} is removed.
      * Under some circumstances, this may be invoked more than once for
@@ -275,7 +287,7 @@ public abstract class Trigger<J extends Item> implements Describable<Trigger<?>>
                         if (t.tabs.check(cal)) {
                             LOGGER.log(Level.CONFIG, "cron triggered {0}", p);
                             try {
-                                t.run();
+                                t.runScheduled();
                             } catch (Throwable e) {
                                 // t.run() is a plugin, and some of them throw RuntimeException and other things.
                                 // don't let that cancel the polling activity. report and move on.
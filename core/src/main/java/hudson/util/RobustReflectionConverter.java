@@ -51,10 +51,12 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import static java.util.logging.Level.FINE;
 import java.util.logging.Logger;
+import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
 import javax.annotation.concurrent.GuardedBy;
 import jenkins.util.xstream.CriticalXStreamException;
@@ -87,6 +89,14 @@ public class RobustReflectionConverter implements Converter {
     @GuardedBy("criticalFieldsLock")
     private final Map<String, Set<String>> criticalFields = new HashMap<String, Set<String>>();
 
+    /**
+     * What unmarshalling needs to know about each field name met in each class, since looking it up through
+     * {@link #reflectionProvider}, {@link #mapper} and {@link #criticalFields} for every element
+     * is a good part of the time spent loading configuration and build records.
+     * Replaced by {@link #flushCache} whenever something it was computed from changes.
+     */
+    private transient volatile ClassValue<Map<String,FieldInfo>> fieldInfos = newFieldInfos();
+
     public RobustReflectionConverter(Mapper mapper, ReflectionProvider reflectionProvider) {
         this(mapper, reflectionProvider, new XStream2().new PluginClassOwnership());
     }
@@ -113,6 +123,64 @@ public class RobustReflectionConverter implements Converter {
             // Unlock
             criticalFieldsLock.writeLock().unlock();
         }
+        flushCache();
+    }
+
+    /**
+     * Forgets what was looked up about fields, to be called when local converters are registered.
+     */
+    void flushCache() {
+        fieldInfos = newFieldInfos();
+    }
+
+    private static ClassValue<Map<String,FieldInfo>> newFieldInfos() {
+        return new ClassValue<Map<String,FieldInfo>>() {
+            @Override
+            protected Map<String,FieldInfo> computeValue(Class<?> type) {
+                return new ConcurrentHashMap<>();
+            }
+        };
+    }
+
+    private FieldInfo fieldInfo(Class<?> type, String fieldName) {
+        Map<String,FieldInfo> infos = fieldInfos.get(type);
+        FieldInfo info = infos.get(fieldName);
+        if (info == null) {
+            // during unmarshalling, unmarshal into transient fields like XStream 1.1.3
+            Field field = reflectionProvider.getFieldOrNull(type, fieldName);
+            boolean critical = false;
+            for (Class<?> concrete = type; concrete != null; concrete = concrete.getSuperclass()) {
+                // Not quite right since a subclass could shadow a field, but probably suffices:
+                if (hasCriticalField(concrete, fieldName)) {
+                    critical = true;
+                    break;
+                }
+            }
+            Converter converter = field == null ? null : mapper.getLocalConverter(field.getDeclaringClass(), field.getName());
+            info = new FieldInfo(field, critical, converter);
+            if (infos.size() < MAX_FIELD_INFOS) { // do not let unknown element names pile up
+                infos.put(fieldName, info);
+            }
+        }
+        return info;
+    }
+
+    private static final class FieldInfo {
+        /**
+         * The field unmarshalled from the element, or null if there is none.
+         */
+        final @CheckForNull Field field;
+        /**
+         * Whether a failure to unmarshal the field is fatal.
+         */
+        final boolean critical;
+        final @CheckForNull Converter converter;
+
+        FieldInfo(Field field, boolean critical, Converter converter) {
+            this.field = field;
+            this.critical = critical;
+            this.converter = converter;
+        }
     }
     
     private boolean hasCriticalField(Class<?> clazz, String field) {
@@ -261,7 +329,7 @@ public class RobustReflectionConverter implements Converter {
     }
 
     protected void marshallField(final MarshallingContext context, Object newObj, Field field) {
-        Converter converter = mapper.getLocalConverter(field.getDeclaringClass(), field.getName());
+        Converter converter = fieldInfo(field.getDeclaringClass(), field.getName()).converter;
         context.convertAnother(newObj, converter);
     }
 
@@ -283,9 +351,8 @@ public class RobustReflectionConverter implements Converter {
             String attrAlias = (String) it.next();
             String attrName = mapper.attributeForAlias(attrAlias);
             Class classDefiningField = determineWhichClassDefinesField(reader);
-            boolean fieldExistsInClass = fieldDefinedInClass(result, attrName);
-            if (fieldExistsInClass) {
-                Field field = reflectionProvider.getField(result.getClass(), attrName);
+            Field field = fieldInfo(result.getClass(), attrName).field;
+            if (field != null) {
                 SingleValueConverter converter = mapper.getConverterFromAttribute(field.getDeclaringClass(),attrName,field.getType());
                 Class type = field.getType();
                 if (converter == null) {
@@ -312,25 +379,20 @@ public class RobustReflectionConverter implements Converter {
             boolean critical = false;
             try {
                 String fieldName = mapper.realMember(result.getClass(), reader.getNodeName());
-                for (Class<?> concrete = result.getClass(); concrete != null; concrete = concrete.getSuperclass()) {
-                    // Not quite right since a subclass could shadow a field, but probably suffices:
-                    if (hasCriticalField(concrete, fieldName)) {
-                        critical = true;
-                        break;
-                    }
-                }
+                FieldInfo info = fieldInfo(result.getClass(), fieldName);
+                critical = info.critical;
                 boolean implicitCollectionHasSameName = mapper.getImplicitCollectionDefForFieldName(result.getClass(), reader.getNodeName()) != null;
 
                 Class classDefiningField = determineWhichClassDefinesField(reader);
-                boolean fieldExistsInClass = !implicitCollectionHasSameName && fieldDefinedInClass(result,fieldName);
+                boolean fieldExistsInClass = !implicitCollectionHasSameName && info.field != null;
 
-                Class type = determineType(reader, fieldExistsInClass, result, fieldName, classDefiningField);
+                Class type = determineType(reader, fieldExistsInClass, result, fieldName, classDefiningField, info);
                 final Object value;
                 if (fieldExistsInClass) {
-                    Field field = reflectionProvider.getField(result.getClass(),fieldName);
+                    Field field = info.field;
                     value = unmarshalField(context, result, type, field);
                     // TODO the reflection provider should have returned the proper field in first place ....
-                    Class definedType = reflectionProvider.getFieldType(result, fieldName, classDefiningField);
+                    Class definedType = classDefiningField == null ? field.getType() : reflectionProvider.getFieldType(result, fieldName, classDefiningField);
                     if (!definedType.isPrimitive()) {
                         type = definedType;
                     }
@@ -382,14 +444,8 @@ public class RobustReflectionConverter implements Converter {
         list.add(e);
     }
 
-    private boolean fieldDefinedInClass(Object result, String attrName) {
-        // during unmarshalling, unmarshal into transient fields like XStream 1.1.3
-        //boolean fieldExistsInClass = reflectionProvider.fieldDefinedInClass(attrName, result.getClass());
-        return reflectionProvider.getFieldOrNull(result.getClass(),attrName)!=null;
-    }
-
     protected Object unmarshalField(final UnmarshallingContext context, final Object result, Class type, Field field) {
-        Converter converter = mapper.getLocalConverter(field.getDeclaringClass(), field.getName());
+        Converter converter = fieldInfo(field.getDeclaringClass(), field.getName()).converter;
         return context.convertAnother(result, type, converter);
     }
 
@@ -454,9 +510,9 @@ public class RobustReflectionConverter implements Converter {
 
     }
 
-    private Class determineType(HierarchicalStreamReader reader, boolean validField, Object result, String fieldName, Class definedInCls) {
+    private Class determineType(HierarchicalStreamReader reader, boolean validField, Object result, String fieldName, Class definedInCls, FieldInfo info) {
         String classAttribute = reader.getAttribute(mapper.aliasForAttribute("class"));
-        Class fieldType = reflectionProvider.getFieldType(result, fieldName, definedInCls);
+        Class fieldType = definedInCls == null && info.field != null ? info.field.getType() : reflectionProvider.getFieldType(result, fieldName, definedInCls);
         if (classAttribute != null) {
             Class specifiedType = mapper.realClass(classAttribute);
             if(fieldType.isAssignableFrom(specifiedType))
@@ -478,6 +534,7 @@ public class RobustReflectionConverter implements Converter {
 
     private Object readResolve() {
         serializationMethodInvoker = new SerializationMethodInvoker();
+        fieldInfos = newFieldInfos();
         return this;
     }
 
@@ -488,5 +545,7 @@ public class RobustReflectionConverter implements Converter {
         }
     }
 
+    private static final int MAX_FIELD_INFOS = 1000;
+
     private static final Logger LOGGER = Logger.getLogger(RobustReflectionConverter.class.getName());
 }
@@ -82,6 +82,18 @@ public class SequentialExecutionQueue implements Executor {
         return false;
     }
 
+    /**
+     * Gets the number of {@link Runnable}s that are waiting to be executed.
+     * @since TODO
+     */
+    public synchronized int getQueueLength() {
+        int n = 0;
+        for (QueueEntry e : entries.values())
+            if (e.queued)
+                n++;
+        return n;
+    }
+
     /**
      * Gets {@link Runnable}s that are currently executed by a live thread.
      */
@@ -26,7 +26,6 @@ package hudson.util;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.thoughtworks.xstream.XStream;
-import com.thoughtworks.xstream.io.xml.KXml2Driver;
 import com.thoughtworks.xstream.mapper.AnnotationMapper;
 import com.thoughtworks.xstream.mapper.Mapper;
 import com.thoughtworks.xstream.mapper.MapperWrapper;
@@ -54,6 +53,7 @@ import hudson.diagnosis.OldDataMonitor;
 import hudson.remoting.ClassFilter;
 import hudson.util.xstream.ImmutableSetConverter;
 import hudson.util.xstream.ImmutableSortedSetConverter;
+import jenkins.util.xstream.InterningKXml2Driver;
 import jenkins.util.xstream.SafeURLConverter;
 import jenkins.model.Jenkins;
 import hudson.model.Label;
@@ -106,7 +106,7 @@ public class XStream2 extends XStream {
      * @return a new instance of the HierarchicalStreamDriver we want to use
      */
     public static HierarchicalStreamDriver getDefaultDriver() {
-        return new KXml2Driver();
+        return new InterningKXml2Driver();
     }
 
     public XStream2() {
@@ -228,6 +228,22 @@ public class XStream2 extends XStream {
         reflectionConverter.addCriticalField(clazz, field);
     }
 
+    @Override
+    public void registerLocalConverter(Class definedIn, String fieldName, Converter converter) {
+        super.registerLocalConverter(definedIn, fieldName, converter);
+        if (reflectionConverter != null) {
+            reflectionConverter.flushCache();
+        }
+    }
+
+    @Override
+    public void registerLocalConverter(Class definedIn, String fieldName, SingleValueConverter converter) {
+        super.registerLocalConverter(definedIn, fieldName, converter);
+        if (reflectionConverter != null) {
+            reflectionConverter.flushCache();
+        }
+    }
+
     static String trimVersion(String version) {
         // TODO seems like there should be some trick with VersionNumber to do this
         return version.replaceFirst(" .+$", "");
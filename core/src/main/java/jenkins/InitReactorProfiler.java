@@ -0,0 +1,428 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2018, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jenkins;
+
+import hudson.init.InitMilestone;
+import hudson.init.InitReactorListener;
+import jenkins.model.Jenkins;
+import jenkins.util.SystemProperties;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+import org.jvnet.hudson.reactor.Milestone;
+import org.jvnet.hudson.reactor.Task;
+import org.kohsuke.MetaInfServices;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records when each task of the initialization {@link org.jvnet.hudson.reactor.Reactor} runs, on which thread,
+ * and which milestones it waits for, to find out what makes the startup slow.
+ *
+ * <p>
+ * From that, {@link #getCriticalPath()} walks back from the task that finished last through the dependency
+ * that was satisfied last, which gives the chain of tasks that determined the startup time; making anything else
+ * faster would not help. {@link #getPhases()} tells how well each phase between {@link InitMilestone}s used the
+ * available threads, and {@link #toTrace()} exports everything in the
+ * <a href="https://docs.google.com/document/d/1CvAClvFfyA5R-PhYUmn5OOQtYMH4h6I0nSsKchNAySU">trace event format</a>
+ * understood by {@code chrome://tracing}.
+ *
+ * <p>
+ * Disabled unless {@link #ENABLED} is set, in which case the results are shown by {@link jenkins.management.InitProfileLink}.
+ *
+ * @since TODO
+ */
+@MetaInfServices(InitReactorListener.class)
+@Restricted(NoExternalUse.class)
+public final class InitReactorProfiler implements InitReactorListener {
+
+    /**
+     * Whether to record the initialization tasks.
+     */
+    static boolean ENABLED = SystemProperties.getBoolean(InitReactorProfiler.class.getName() + ".enabled");
+
+    /**
+     * The reactor execution that started Jenkins, once recorded.
+     */
+    private static volatile InitReactorProfiler latest;
+
+    private final boolean enabled;
+
+    private final long origin;
+
+    private final Map<Task,TaskRecord> running = new ConcurrentHashMap<>();
+
+    /**
+     * Tasks that are done, in the order they finished.
+     */
+    private final List<TaskRecord> tasks = Collections.synchronizedList(new ArrayList<TaskRecord>());
+
+    private final Map<Milestone,Long> attained = Collections.synchronizedMap(new LinkedHashMap<Milestone,Long>());
+
+    /**
+     * Instantiated by {@link InitReactorRunner} for each reactor execution.
+     * Only the reactor starting Jenkins is recorded, not those run later on to load plugins dynamically or reload
+     * the configuration, which would otherwise replace the startup profile.
+     */
+    public InitReactorProfiler() {
+        this(ENABLED && isStarting(), System.nanoTime());
+    }
+
+    private static boolean isStarting() {
+        Jenkins j = Jenkins.getInstanceOrNull();
+        return j == null || j.getInitLevel().compareTo(InitMilestone.COMPLETED) < 0;
+    }
+
+    InitReactorProfiler(boolean enabled, long origin) {
+        this.enabled = enabled;
+        this.origin = origin;
+    }
+
+    /**
+     * Gets the results of the reactor execution that started Jenkins.
+     *
+     * @return null unless {@link #ENABLED}, or if nothing was recorded yet
+     */
+    public static @CheckForNull InitReactorProfiler getLatest() {
+        return latest;
+    }
+
+    @Override
+    public void onTaskStarted(Task t) {
+        if (enabled) {
+            started(t, System.nanoTime(), Thread.currentThread().getName());
+        }
+    }
+
+    @Override
+    public void onTaskCompleted(Task t) {
+        if (enabled) {
+            finished(t, System.nanoTime(), false);
+        }
+    }
+
+    @Override
+    public void onTaskFailed(Task t, Throwable err, boolean fatal) {
+        if (enabled) {
+            finished(t, System.nanoTime(), true);
+        }
+    }
+
+    @Override
+    public void onAttained(Milestone milestone) {
+        if (enabled) {
+            attained(milestone, System.nanoTime());
+        }
+    }
+
+    void started(Task t, long nanos, String thread) {
+        latest = this;
+        running.put(t, new TaskRecord(InitReactorRunner.getDisplayName(t), t.requires(), t.attains(), nanos - origin, thread));
+    }
+
+    void finished(Task t, long nanos, boolean failed) {
+        TaskRecord r = running.remove(t);
+        if (r != null) {
+            r.end = nanos - origin;
+            r.failed = failed;
+            tasks.add(r);
+        }
+    }
+
+    void attained(Milestone milestone, long nanos) {
+        attained.put(milestone, nanos - origin);
+    }
+
+    /**
+     * Tasks that are done, by start time.
+     */
+    public @Nonnull List<TaskRecord> getTasks() {
+        List<TaskRecord> l;
+        synchronized (tasks) {
+            l = new ArrayList<>(tasks);
+        }
+        l.sort(Comparator.comparingLong(r -> r.start));
+        return l;
+    }
+
+    /**
+     * Time from the first task starting to the last one finishing.
+     */
+    public long getElapsedMillis() {
+        List<TaskRecord> l = getTasks();
+        if (l.isEmpty()) {
+            return 0;
+        }
+        long end = 0;
+        for (TaskRecord r : l) {
+            end = Math.max(end, r.end);
+        }
+        return TimeUnit.NANOSECONDS.toMillis(end - l.get(0).start);
+    }
+
+    /**
+     * Number of distinct threads that ran tasks.
+     */
+    public int getThreadCount() {
+        Set<String> threads = new HashSet<>();
+        for (TaskRecord r : getTasks()) {
+            threads.add(r.thread);
+        }
+        return threads.size();
+    }
+
+    /**
+     * Share of the time the threads spent running tasks, between 0 and 1.
+     */
+    public double getUtilization() {
+        return utilization(getTasks(), Long.MIN_VALUE, Long.MAX_VALUE, getThreadCount());
+    }
+
+    /**
+     * Chain of tasks that determined how long the whole execution took, in the order they ran.
+     */
+    public @Nonnull List<TaskRecord> getCriticalPath() {
+        List<TaskRecord> all = getTasks();
+        Map<Milestone,List<TaskRecord>> attainers = new HashMap<>();
+        TaskRecord last = null;
+        for (TaskRecord r : all) {
+            for (Milestone m : r.attains) {
+                attainers.computeIfAbsent(m, k -> new ArrayList<>()).add(r);
+            }
+            if (last == null || r.end > last.end) {
+                last = r;
+            }
+        }
+
+        List<TaskRecord> path = new ArrayList<>();
+        Set<TaskRecord> seen = new HashSet<>();
+        for (TaskRecord r = last; r != null && seen.add(r); ) {
+            path.add(r);
+            // the dependency satisfied last is what this task was waiting for
+            TaskRecord gate = null;
+            for (Milestone m : r.requires) {
+                List<TaskRecord> l = attainers.get(m);
+                if (l == null) {
+                    continue;
+                }
+                for (TaskRecord p : l) {
+                    if (p != r && p.end <= r.start && (gate == null || p.end > gate.end)) {
+                        gate = p;
+                    }
+                }
+            }
+            r = gate;
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    /**
+     * Phases between consecutive {@link InitMilestone}s, in order.
+     */
+    public @Nonnull List<Phase> getPhases() {
+        List<Phase> phases = new ArrayList<>();
+        List<TaskRecord> all = getTasks();
+        if (all.isEmpty()) {
+            return phases;
+        }
+        int threads = getThreadCount();
+        long from = 0; // the reactor started when this was created
+        List<Map.Entry<Milestone,Long>> milestones;
+        synchronized (attained) {
+            milestones = new ArrayList<>(attained.entrySet());
+        }
+        for (Map.Entry<Milestone,Long> e : milestones) {
+            if (e.getKey() instanceof InitMilestone) {
+                long to = e.getValue();
+                phases.add(new Phase(e.getKey().toString(), to - from, utilization(all, from, to, threads)));
+                from = to;
+            }
+        }
+        return phases;
+    }
+
+    /**
+     * Share of the time the given number of threads spent running tasks between the given times.
+     */
+    private static double utilization(Collection<TaskRecord> tasks, long from, long to, int threads) {
+        long start = Long.MAX_VALUE, end = Long.MIN_VALUE, busy = 0;
+        for (TaskRecord r : tasks) {
+            long s = Math.max(r.start, from), e = Math.min(r.end, to);
+            if (s < e) {
+                busy += e - s;
+                start = Math.min(start, s);
+                end = Math.max(end, e);
+            }
+        }
+        if (from != Long.MIN_VALUE) {
+            start = from;
+            end = to;
+        }
+        return busy == 0 || threads == 0 || end <= start ? 0 : (double) busy / ((end - start) * threads);
+    }
+
+    /**
+     * Exports the recorded tasks in the trace event format, one row per thread, with the critical path highlighted.
+     */
+    public @Nonnull JSONObject toTrace() {
+        JSONArray events = new JSONArray();
+        Map<String,Integer> tids = new LinkedHashMap<>();
+        Set<TaskRecord> critical = new HashSet<>(getCriticalPath());
+        for (TaskRecord r : getTasks()) {
+            Integer tid = tids.get(r.thread);
+            if (tid == null) {
+                tid = tids.size() + 1;
+                tids.put(r.thread, tid);
+                events.add(new JSONObject().element("name", "thread_name").element("ph", "M").element("pid", 1).element("tid", tid)
+                        .element("args", new JSONObject().element("name", r.thread)));
+            }
+            JSONObject args = new JSONObject()
+                    .element("requires", toStrings(r.requires))
+                    .element("attains", toStrings(r.attains));
+            if (r.failed) {
+                args.element("failed", true);
+            }
+            events.add(new JSONObject()
+                    .element("name", r.name)
+                    .element("cat", critical.contains(r) ? "init,critical" : "init")
+                    .element("ph", "X")
+                    .element("pid", 1)
+                    .element("tid", tid)
+                    .element("ts", TimeUnit.NANOSECONDS.toMicros(r.start))
+                    .element("dur", TimeUnit.NANOSECONDS.toMicros(r.end - r.start))
+                    .element("args", args));
+        }
+        synchronized (attained) {
+            for (Map.Entry<Milestone,Long> e : attained.entrySet()) {
+                if (e.getKey() instanceof InitMilestone) {
+                    events.add(new JSONObject().element("name", e.getKey().toString()).element("cat", "milestone").element("ph", "i")
+                            .element("s", "g").element("pid", 1).element("tid", 0).element("ts", TimeUnit.NANOSECONDS.toMicros(e.getValue())));
+                }
+            }
+        }
+        return new JSONObject().element("traceEvents", events).element("displayTimeUnit", "ms");
+    }
+
+    private static JSONArray toStrings(Collection<? extends Milestone> milestones) {
+        JSONArray a = new JSONArray();
+        for (Milestone m : milestones) {
+            a.add(m.toString());
+        }
+        return a;
+    }
+
+    /**
+     * One execution of a task.
+     */
+    public static final class TaskRecord {
+        private final String name;
+        private final Collection<? extends Milestone> requires, attains;
+        private final String thread;
+        /**
+         * Nanoseconds since the profiler was created.
+         */
+        private final long start;
+        private volatile long end;
+        private volatile boolean failed;
+
+        TaskRecord(String name, Collection<? extends Milestone> requires, Collection<? extends Milestone> attains, long start, String thread) {
+            this.name = name;
+            this.requires = requires;
+            this.attains = attains;
+            this.start = start;
+            this.thread = thread;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getThread() {
+            return thread;
+        }
+
+        public long getStartMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(start);
+        }
+
+        public long getDurationMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(end - start);
+        }
+
+        public boolean isFailed() {
+            return failed;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    /**
+     * The time until an {@link InitMilestone} was attained, since the previous one.
+     */
+    public static final class Phase {
+        private final String milestone;
+        private final long nanos;
+        private final double utilization;
+
+        Phase(String milestone, long nanos, double utilization) {
+            this.milestone = milestone;
+            this.nanos = nanos;
+            this.utilization = utilization;
+        }
+
+        public String getMilestone() {
+            return milestone;
+        }
+
+        public long getDurationMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(nanos);
+        }
+
+        /**
+         * Share of the time the threads spent running tasks during this phase, between 0 and 1;
+         * a low value on a long phase means its tasks waited on each other.
+         */
+        public double getUtilization() {
+            return utilization;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2018, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jenkins.management;
+
+import hudson.Extension;
+import hudson.model.ManagementLink;
+import jenkins.InitReactorProfiler;
+import jenkins.model.Jenkins;
+import org.jenkinsci.Symbol;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
+
+import javax.annotation.CheckForNull;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Shows what {@link InitReactorProfiler} recorded about the startup, when it is enabled.
+ *
+ * @since TODO
+ */
+@Extension(ordinal = Integer.MAX_VALUE - 720) @Symbol("initProfile")
+@Restricted(NoExternalUse.class)
+public class InitProfileLink extends ManagementLink {
+
+    @Override
+    public String getIconFileName() {
+        return getProfile() != null ? "monitor.png" : null;
+    }
+
+    public String getDisplayName() {
+        return Messages.InitProfileLink_DisplayName();
+    }
+
+    @Override
+    public String getDescription() {
+        return Messages.InitProfileLink_Description();
+    }
+
+    @Override
+    public String getUrlName() {
+        return "initProfile";
+    }
+
+    public @CheckForNull InitReactorProfiler getProfile() {
+        return InitReactorProfiler.getLatest();
+    }
+
+    /**
+     * The longest running tasks, longest first.
+     */
+    public List<InitReactorProfiler.TaskRecord> getSlowestTasks() {
+        InitReactorProfiler p = getProfile();
+        if (p == null) {
+            return Collections.emptyList();
+        }
+        return p.getTasks().stream()
+                .sorted(Comparator.comparingLong(InitReactorProfiler.TaskRecord::getDurationMillis).reversed())
+                .limit(SLOWEST_TASKS)
+                .collect(Collectors.toList());
+    }
+
+    public String percent(double ratio) {
+        return String.format("%.0f%%", ratio * 100);
+    }
+
+    /**
+     * Downloads the trace, to be opened in {@code chrome://tracing}.
+     */
+    public void doTrace(StaplerRequest req, StaplerResponse rsp) throws IOException {
+        Jenkins.getInstance().checkPermission(Jenkins.ADMINISTER);
+        InitReactorProfiler p = getProfile();
+        if (p == null) {
+            rsp.sendError(StaplerResponse.SC_NOT_FOUND);
+            return;
+        }
+        rsp.setContentType("application/json;charset=UTF-8");
+        rsp.setHeader("Content-Disposition", "attachment; filename=init-trace.json");
+        try (Writer w = rsp.getCompressedWriter(req)) {
+            p.toTrace().write(w);
+        }
+    }
+
+    private static final int SLOWEST_TASKS = 20;
+}
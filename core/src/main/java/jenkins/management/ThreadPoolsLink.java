@@ -0,0 +1,71 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2018, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jenkins.management;
+
+import hudson.Extension;
+import hudson.model.ManagementLink;
+import jenkins.util.ThreadPoolMXBean;
+import jenkins.util.ThreadPools;
+import org.jenkinsci.Symbol;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+import java.util.List;
+
+/**
+ * Shows how busy the {@linkplain ThreadPools thread pools} are.
+ *
+ * @since TODO
+ */
+@Extension(ordinal = Integer.MAX_VALUE - 710) @Symbol("threadPools")
+@Restricted(NoExternalUse.class)
+public class ThreadPoolsLink extends ManagementLink {
+
+    @Override
+    public String getIconFileName() {
+        return "monitor.png";
+    }
+
+    public String getDisplayName() {
+        return Messages.ThreadPoolsLink_DisplayName();
+    }
+
+    @Override
+    public String getDescription() {
+        return Messages.ThreadPoolsLink_Description();
+    }
+
+    @Override
+    public String getUrlName() {
+        return "threadPools";
+    }
+
+    public List<ThreadPoolMXBean> getPools() {
+        return ThreadPools.all();
+    }
+
+    public String format(double millis) {
+        return String.format("%.1f", millis);
+    }
+}
@@ -123,6 +123,7 @@ import hudson.security.HudsonFilter;
 import hudson.security.LegacyAuthorizationStrategy;
 import hudson.security.LegacySecurityRealm;
 import hudson.security.Permission;
+import hudson.security.PermissionCache;
 import hudson.security.PermissionGroup;
 import hudson.security.PermissionScope;
 import hudson.security.SecurityMode;
@@ -1459,20 +1460,25 @@ public class Jenkins extends AbstractCIBase implements DirectlyModifiableTopLeve
      */
     @SuppressWarnings({"unchecked", "rawtypes"}) // too late to fix
     public Descriptor getDescriptor(String id) {
+        ExtensionList<Descriptor> extensions = getExtensionList(Descriptor.class);
+        Descriptor found = extensions.getDescriptorById(id);
+        if (found != null) {
+            return found;
+        }
         // legacy descriptors that are registered manually doesn't show up in getExtensionList, so check them explicitly.
-        Iterable<Descriptor> descriptors = Iterators.sequence(getExtensionList(Descriptor.class), DescriptorExtensionList.listLegacyInstances());
-        for (Descriptor d : descriptors) {
+        Iterable<Descriptor> legacy = DescriptorExtensionList.listLegacyInstances();
+        for (Descriptor d : legacy) {
             if (d.getId().equals(id)) {
                 return d;
             }
         }
         Descriptor candidate = null;
-        for (Descriptor d : descriptors) {
+        for (Descriptor d : Iterators.sequence(extensions.getDescriptorsByShortId(id), legacy)) {
             String name = d.getId();
             if (name.substring(name.lastIndexOf('.') + 1).equals(id)) {
                 if (candidate == null) {
                     candidate = d;
-                } else {
+                } else if (candidate != d) {
                     throw new IllegalArgumentException(id + " is ambiguous; matches both " + name + " and " + candidate.getId());
                 }
             }
@@ -1495,10 +1501,7 @@ public class Jenkins extends AbstractCIBase implements DirectlyModifiableTopLeve
      */
     @CheckForNull
     public Descriptor getDescriptor(Class<? extends Describable> type) {
-        for( Descriptor d : getExtensionList(Descriptor.class) )
-            if(d.clazz==type)
-                return d;
-        return null;
+        return getExtensionList(Descriptor.class).getDescriptorByDescribable(type);
     }
 
     /**
@@ -1519,10 +1522,7 @@ public class Jenkins extends AbstractCIBase implements DirectlyModifiableTopLeve
      * Gets the {@link Descriptor} instance in the current Jenkins by its type.
      */
     public <T extends Descriptor> T getDescriptorByType(Class<T> type) {
-        for( Descriptor d : getExtensionList(Descriptor.class) )
-            if(d.getClass()==type)
-                return type.cast(d);
-        return null;
+        return getExtensionList(Descriptor.class).get(type);
     }
 
     /**
@@ -1696,13 +1696,7 @@ public class Jenkins extends AbstractCIBase implements DirectlyModifiableTopLeve
      */
     @Exported(name="jobs")
     public List<TopLevelItem> getItems() {
-        List<TopLevelItem> viewableItems = new ArrayList<TopLevelItem>();
-        for (TopLevelItem item : items.values()) {
-            if (item.hasPermission(Item.READ))
-                viewableItems.add(item);
-        }
-
-        return viewableItems;
+        return ACL.filter(items.values(), Item.READ);
     }
 
     /**
@@ -2510,6 +2504,7 @@ public class Jenkins extends AbstractCIBase implements DirectlyModifiableTopLeve
             a = AuthorizationStrategy.UNSECURED;
         useSecurity = true;
         authorizationStrategy = a;
+        PermissionCache.invalidate();
         saveQuietly();
     }
 
@@ -2525,6 +2520,7 @@ public class Jenkins extends AbstractCIBase implements DirectlyModifiableTopLeve
         useSecurity = null;
         setSecurityRealm(SecurityRealm.NO_AUTHENTICATION);
         authorizationStrategy = AuthorizationStrategy.UNSECURED;
+        PermissionCache.invalidate();
     }
 
     public void setProjectNamingStrategy(ProjectNamingStrategy ns) {
@@ -4050,6 +4046,7 @@ public class Jenkins extends AbstractCIBase implements DirectlyModifiableTopLeve
 
         User.reload();
         queue.load();
+        PermissionCache.invalidate();
         WebApp.get(servletContext).setApp(this);
     }
 
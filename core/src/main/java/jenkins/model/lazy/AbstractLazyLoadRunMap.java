@@ -496,8 +496,10 @@ public abstract class AbstractLazyLoadRunMap<R> extends AbstractMap<Integer,R> i
     private R load(File dataDir, Index editInPlace) {
         assert Thread.holdsLock(this);
         try {
+            long start = System.nanoTime();
             R r = retrieve(dataDir);
             if (r==null)    return null;
+            BuildCache.loaded(System.nanoTime() - start);
 
             Index copy = editInPlace!=null ? editInPlace : new Index(index);
 
@@ -0,0 +1,253 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2018, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jenkins.model.lazy;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.model.Run;
+import jenkins.model.lazy.BuildReference.Holder;
+import jenkins.model.lazy.BuildReference.HolderFactory;
+import jenkins.util.MBeans;
+import jenkins.util.SystemProperties;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.io.File;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link HolderFactory} keeping loaded builds in a single least-recently-used cache bounded by their estimated size.
+ *
+ * <p>
+ * With the {@link SoftReference}s of {@link BuildReference.DefaultHolderFactory}, the garbage collector decides
+ * which builds stay in memory, and a full collection drops all of them at once, after which pages showing build
+ * history stall while everything is loaded again. This cache instead keeps builds until their total estimated size
+ * exceeds {@link #MAX_BYTES}, evicting those not used for the longest time first, so that memory use is predictable
+ * and builds that are looked at often stay loaded.
+ *
+ * <p>
+ * A build evicted from the cache stays available for as long as something else holds on to it, such as the
+ * executor running it, and goes back into the cache when it is used again, so that there is never more than
+ * one loaded instance of a build, just like with {@link SoftReference}s.
+ *
+ * <p>
+ * The size of a build is estimated from the size of its {@code build.xml}, since that is what its object graph
+ * was unmarshalled from.
+ *
+ * <p>
+ * Disabled unless {@link #MAX_BYTES} is set, in which case {@link BuildReference.DefaultHolderFactory} is used.
+ * How well the cache does, and how long builds take to load either way, can be followed through {@link BuildCacheMXBean}.
+ *
+ * @since TODO
+ */
+@Restricted(NoExternalUse.class)
+@Extension(ordinal = -1000)
+public final class BuildCache implements HolderFactory, BuildCacheMXBean {
+
+    /**
+     * Total estimated size of the builds to keep in memory, in bytes; 0 disables the cache.
+     */
+    static long MAX_BYTES = SystemProperties.getLong(BuildCache.class.getName() + ".maxBytes", 0L);
+
+    /**
+     * Estimated size of a build beyond what its {@code build.xml} accounts for.
+     */
+    static int BASE_SIZE = 4 * 1024;
+
+    /**
+     * Estimated number of bytes of heap taken by each byte of {@code build.xml}.
+     */
+    static int EXPANSION = 3;
+
+    private static final AtomicLong loads = new AtomicLong();
+    private static final AtomicLong loadNanos = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong weight = new AtomicLong();
+
+    private final long maxBytes;
+    private final Cache<CachedHolder<?>,Object> builds;
+
+    public BuildCache() {
+        this(MAX_BYTES);
+        MBeans.register("type=BuildCache", this);
+    }
+
+    BuildCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+        this.builds = CacheBuilder.newBuilder()
+                .maximumWeight(Math.max(maxBytes, 0))
+                .weigher((CachedHolder<?> h, Object r) -> h.size)
+                .removalListener(new RemovalListener<CachedHolder<?>,Object>() {
+                    @Override
+                    public void onRemoval(RemovalNotification<CachedHolder<?>,Object> n) {
+                        CachedHolder<?> h = n.getKey();
+                        if (h != null) {
+                            weight.addAndGet(-h.size);
+                        }
+                    }
+                })
+                .build();
+    }
+
+    public static @Nonnull BuildCache get() {
+        return ExtensionList.lookupSingleton(BuildCache.class);
+    }
+
+    @Override
+    public <R> Holder<R> make(@Nonnull R referent) {
+        if (maxBytes <= 0) {
+            return null;
+        }
+        CachedHolder<R> h = new CachedHolder<R>(referent, estimateSize(referent));
+        h.cache(referent);
+        return h;
+    }
+
+    /**
+     * Estimates how much heap the given build takes.
+     */
+    static int estimateSize(@Nonnull Object referent) {
+        long size = BASE_SIZE;
+        if (referent instanceof Run) {
+            File dir = ((Run<?,?>) referent).getRootDir();
+            size += new File(dir, "build.xml").length() * EXPANSION;
+        }
+        return (int) Math.min(size, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Records the time it took to load a build from disk.
+     */
+    static void loaded(long nanos) {
+        loads.incrementAndGet();
+        loadNanos.addAndGet(nanos);
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return maxBytes > 0;
+    }
+
+    @Override
+    public void invalidate() {
+        builds.invalidateAll();
+    }
+
+    @Override
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    @Override
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    @Override
+    public double getHitRate() {
+        long h = hits.get(), m = misses.get();
+        return h + m == 0 ? 0 : (double) h / (h + m);
+    }
+
+    @Override
+    public long getLoadCount() {
+        return loads.get();
+    }
+
+    @Override
+    public double getAverageLoadMillis() {
+        long n = loads.get();
+        return n == 0 ? 0 : (double) TimeUnit.NANOSECONDS.toMicros(loadNanos.get()) / n / 1000;
+    }
+
+    @Override
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    @Override
+    public long getWeight() {
+        return weight.get();
+    }
+
+    @Override
+    public long getSize() {
+        return builds.size();
+    }
+
+    /**
+     * Refers to a build for as long as it stays in the cache, or is otherwise still in memory.
+     * Compared by identity, so there is one cache entry per loaded build.
+     */
+    final class CachedHolder<R> implements Holder<R> {
+        private final WeakReference<R> referent;
+        final int size;
+
+        CachedHolder(R referent, int size) {
+            this.referent = new WeakReference<R>(referent);
+            this.size = size;
+        }
+
+        private void cache(R r) {
+            weight.addAndGet(size);
+            builds.put(this, r);
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public @CheckForNull R get() {
+            R r = (R) builds.getIfPresent(this);
+            if (r == null) {
+                r = referent.get();
+                if (r == null) {
+                    misses.incrementAndGet();
+                    return null;
+                }
+                // evicted, but still in use elsewhere, so loading it again would create a second copy
+                cache(r);
+            }
+            hits.incrementAndGet();
+            return r;
+        }
+
+        /**
+         * Forgets the build, which is being deleted.
+         */
+        void clear() {
+            referent.clear();
+            builds.invalidate(this);
+        }
+    }
+}
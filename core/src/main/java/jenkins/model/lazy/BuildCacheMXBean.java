@@ -0,0 +1,85 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2018, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jenkins.model.lazy;
+
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Management interface of the {@link BuildCache}, registered as {@code jenkins:type=BuildCache}.
+ *
+ * @since TODO
+ */
+@Restricted(NoExternalUse.class)
+public interface BuildCacheMXBean {
+    /**
+     * Whether builds are being kept in the cache rather than by soft references.
+     */
+    boolean isEnabled();
+
+    /**
+     * Estimated size of the builds the cache may keep, in bytes.
+     */
+    long getMaxBytes();
+
+    /**
+     * Estimated size of the builds currently in the cache, in bytes.
+     */
+    long getWeight();
+
+    /**
+     * Number of builds currently in the cache.
+     */
+    long getSize();
+
+    /**
+     * Number of times a build reference found its build in the cache.
+     */
+    long getHitCount();
+
+    /**
+     * Number of times a build reference found its build evicted from the cache, so that it had to be loaded again.
+     */
+    long getMissCount();
+
+    /**
+     * Ratio of build lookups answered from the cache, between 0 and 1.
+     */
+    double getHitRate();
+
+    /**
+     * Number of builds loaded from disk, whether or not the cache is enabled.
+     */
+    long getLoadCount();
+
+    /**
+     * Average time it took to load a build from disk, in milliseconds.
+     */
+    double getAverageLoadMillis();
+
+    /**
+     * Drops all the builds from the cache.
+     */
+    void invalidate();
+}
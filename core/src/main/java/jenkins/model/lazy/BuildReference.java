@@ -59,7 +59,11 @@ public final class BuildReference<R> {
      * @see RunMixIn#dropLinks()
      */
     /*package*/ void clear() {
+        Holder<R> h = holder;
         holder = null;
+        if (h instanceof BuildCache.CachedHolder) {
+            ((BuildCache.CachedHolder<R>) h).clear();
+        }
     }
 
     @Override
@@ -133,6 +133,7 @@ public class ApiTokenProperty extends UserProperty {
         if(this.apiToken != null){
             this.tokenStore.regenerateTokenFromLegacyIfRequired(this.apiToken);
         }
+        this.tokenStore.setOwner(user.getId());
     }
     
     /**
@@ -200,7 +201,7 @@ public class ApiTokenProperty extends UserProperty {
             return false;
         }
         
-        tokenStats.updateUsageForId(matchingToken.getUuid());
+        tokenStats.recordUsage(matchingToken.getUuid());
         
         return true;
     }
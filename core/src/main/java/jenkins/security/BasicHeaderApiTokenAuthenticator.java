@@ -2,6 +2,7 @@ package jenkins.security;
 
 import hudson.Extension;
 import hudson.model.User;
+import jenkins.security.apitoken.ApiTokenStore;
 import org.acegisecurity.Authentication;
 import org.acegisecurity.userdetails.UserDetails;
 import org.acegisecurity.userdetails.UsernameNotFoundException;
@@ -29,7 +30,15 @@ public class BasicHeaderApiTokenAuthenticator extends BasicHeaderAuthenticator {
     @Override
     public Authentication authenticate(HttpServletRequest req, HttpServletResponse rsp, String username, String password) throws ServletException {
         // attempt to authenticate as API token
-        User u = User.getById(username, true);
+        User u = null;
+        String owner = password == null ? null : ApiTokenStore.findOwner(password);
+        if (owner != null && User.idStrategy().equals(owner, username)) {
+            // known token of an already loaded user, no need to go through user creation
+            u = User.getById(username, false);
+        }
+        if (u == null) {
+            u = User.getById(username, true);
+        }
         ApiTokenProperty t = u.getProperty(ApiTokenProperty.class);
         if (t!=null && t.matchesPassword(password)) {
             Authentication auth;
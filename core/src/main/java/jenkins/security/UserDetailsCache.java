@@ -38,6 +38,14 @@ import org.springframework.dao.DataAccessException;
 
 import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
@@ -58,8 +66,23 @@ public final class UserDetailsCache {
      * Should be able to set this value in script and then reload from disk to change in runtime.
      */
     private static /*not final*/ Integer EXPIRE_AFTER_WRITE_SEC = SystemProperties.getInteger(SYS_PROP_NAME, (int)TimeUnit.MINUTES.toSeconds(2));
+    /**
+     * Nr of seconds a successful password verification is remembered by {@link #getVerified(String, String)}.
+     */
+    private static /*not final*/ int VERIFIED_EXPIRE_AFTER_WRITE_SEC = SystemProperties.getInteger(UserDetailsCache.class.getName() + ".VERIFIED_EXPIRE_AFTER_WRITE_SEC", 60);
+    /**
+     * Maximum number of successful password verifications remembered, 0 disables it.
+     */
+    private static /*not final*/ int VERIFIED_MAX_SIZE = SystemProperties.getInteger(UserDetailsCache.class.getName() + ".VERIFIED_MAX_SIZE", 1000);
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
     private final Cache<String, UserDetails> detailsCache;
     private final Cache<String, Boolean> existenceCache;
+    private final Cache<VerifiedKey, UserDetails> verifiedCache;
+    /**
+     * Key for the HMAC of the passwords in {@link #verifiedCache}, so that the cache never holds them in clear
+     * and the digests are useless outside this JVM.
+     */
+    private final SecretKeySpec hmacKey;
 
     /**
      * Constructor intended to be instantiated by Jenkins only.
@@ -76,6 +99,10 @@ public final class UserDetailsCache {
         }
         detailsCache = newBuilder().softValues().expireAfterWrite(EXPIRE_AFTER_WRITE_SEC, TimeUnit.SECONDS).build();
         existenceCache = newBuilder().softValues().expireAfterWrite(EXPIRE_AFTER_WRITE_SEC, TimeUnit.SECONDS).build();
+        verifiedCache = newBuilder().maximumSize(Math.max(VERIFIED_MAX_SIZE, 0)).expireAfterWrite(VERIFIED_EXPIRE_AFTER_WRITE_SEC, TimeUnit.SECONDS).build();
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        hmacKey = new SecretKeySpec(key, HMAC_ALGORITHM);
     }
 
     /**
@@ -137,12 +164,57 @@ public final class UserDetailsCache {
         }
     }
 
+    /**
+     * Gets the user details remembered by {@link #putVerified(String, String, UserDetails)}
+     * for this username and password, so that the security realm can skip both the lookup and the password check.
+     * <p>
+     * The caller is still responsible for checking that the returned details are still current.
+     *
+     * @param username the username as presented by the client
+     * @param password the password as presented by the client
+     * @return {@code null} if this combination was not verified recently.
+     */
+    @Restricted(NoExternalUse.class)
+    @CheckForNull
+    public UserDetails getVerified(String username, String password) {
+        if (VERIFIED_MAX_SIZE <= 0 || password == null) {
+            return null;
+        }
+        return verifiedCache.getIfPresent(new VerifiedKey(username, hmac(password)));
+    }
+
+    /**
+     * Remembers that the given password was successfully verified for this username.
+     *
+     * @param username the username as presented by the client
+     * @param password the password that was verified
+     * @param details the details of the user
+     */
+    @Restricted(NoExternalUse.class)
+    public void putVerified(String username, String password, UserDetails details) {
+        if (VERIFIED_MAX_SIZE <= 0 || password == null) {
+            return;
+        }
+        verifiedCache.put(new VerifiedKey(username, hmac(password)), details);
+    }
+
+    private byte[] hmac(String password) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(hmacKey);
+            return mac.doFinal(password.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new AssertionError("There is no " + HMAC_ALGORITHM + " available in this system", e);
+        }
+    }
+
     /**
      * Discards all entries in the cache.
      */
     public void invalidateAll() {
         existenceCache.invalidateAll();
         detailsCache.invalidateAll();
+        verifiedCache.invalidateAll();
     }
 
     /**
@@ -152,6 +224,38 @@ public final class UserDetailsCache {
     public void invalidate(final String idOrFullName) {
         existenceCache.invalidate(idOrFullName);
         detailsCache.invalidate(idOrFullName);
+        for (Iterator<VerifiedKey> it = verifiedCache.asMap().keySet().iterator(); it.hasNext();) {
+            if (it.next().username.equals(idOrFullName)) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Username and HMAC of a successfully verified password.
+     */
+    private static final class VerifiedKey {
+        private final String username;
+        private final byte[] hmac;
+
+        private VerifiedKey(String username, byte[] hmac) {
+            this.username = username;
+            this.hmac = hmac;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof VerifiedKey)) {
+                return false;
+            }
+            VerifiedKey that = (VerifiedKey) o;
+            return username.equals(that.username) && MessageDigest.isEqual(hmac, that.hmac);
+        }
+
+        @Override
+        public int hashCode() {
+            return username.hashCode() * 31 + Arrays.hashCode(hmac);
+        }
     }
 
     /**
@@ -26,8 +26,12 @@ package jenkins.security.apitoken;
 import hudson.BulkChange;
 import hudson.Util;
 import hudson.XmlFile;
+import hudson.init.Terminator;
 import hudson.model.Saveable;
 import hudson.model.listeners.SaveableListener;
+import hudson.triggers.SafeTimerTask;
+import jenkins.util.SystemProperties;
+import jenkins.util.Timer;
 import org.kohsuke.accmod.Restricted;
 import org.kohsuke.accmod.restrictions.NoExternalUse;
 
@@ -41,6 +45,9 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -48,6 +55,12 @@ import java.util.logging.Logger;
 public class ApiTokenStats implements Saveable {
     private static final Logger LOGGER = Logger.getLogger(ApiTokenStats.class.getName());
     
+    /**
+     * How long {@link #recordUsage(String)} waits before saving, so that a token used many times a second
+     * causes a single save per period.
+     */
+    static long SAVE_DELAY_MILLIS = SystemProperties.getLong(ApiTokenStats.class.getName() + ".saveDelayMillis", 5000L);
+    
     /**
      * Normally a user will not have more 2-3 tokens at a time, 
      * so there is no need to store a map here
@@ -56,6 +69,16 @@ public class ApiTokenStats implements Saveable {
     
     private transient File parent;
     
+    /**
+     * Whether a save requested by {@link #recordUsage(String)} is pending.
+     */
+    private transient boolean saveScheduled;
+    
+    /**
+     * Instances with a pending save.
+     */
+    private static final Set<ApiTokenStats> PENDING = ConcurrentHashMap.newKeySet();
+    
     public ApiTokenStats() {
         this.init();
     }
@@ -124,12 +147,7 @@ public class ApiTokenStats implements Saveable {
             return new SingleTokenStats(tokenUuid);
         }
         
-        SingleTokenStats stats = findById(tokenUuid)
-                .orElseGet(() -> {
-                    SingleTokenStats result = new SingleTokenStats(tokenUuid);
-                    tokenStats.add(result);
-                    return result;
-                });
+        SingleTokenStats stats = findOrCreateById(tokenUuid);
         
         stats.notifyUse();
         save();
@@ -137,6 +155,56 @@ public class ApiTokenStats implements Saveable {
         return stats;
     }
     
+    /**
+     * Same as {@link #updateUsageForId(String)} but the save happens later in the background,
+     * together with the other uses in the meantime.
+     */
+    public synchronized void recordUsage(@Nonnull String tokenUuid) {
+        if(areStatsDisabled()){
+            return;
+        }
+        
+        findOrCreateById(tokenUuid).notifyUse();
+        
+        if (!saveScheduled) {
+            saveScheduled = true;
+            PENDING.add(this);
+            Timer.get().schedule(new SafeTimerTask() {
+                @Override
+                protected void doRun() {
+                    savePending();
+                }
+            }, SAVE_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+    
+    /**
+     * Saves the usage recorded by {@link #recordUsage(String)}, unless the user was deleted in the meantime,
+     * in which case writing the file would bring back the user directory.
+     */
+    private synchronized void savePending() {
+        PENDING.remove(this);
+        if (!saveScheduled) {
+            return;
+        }
+        saveScheduled = false;
+        if (parent != null && !parent.isDirectory()) {
+            LOGGER.log(Level.FINE, "Not saving the usage of API tokens from deleted {0}", parent);
+            return;
+        }
+        save();
+    }
+    
+    /**
+     * Saves the usage still waiting for {@link #SAVE_DELAY_MILLIS} so that it is not lost on shutdown.
+     */
+    @Terminator
+    public static void savePendingUsage() {
+        for (ApiTokenStats stats : PENDING) {
+            stats.savePending();
+        }
+    }
+    
     public synchronized @Nonnull SingleTokenStats findTokenStatsById(@Nonnull String tokenUuid) {
         if(areStatsDisabled()){
             return new SingleTokenStats(tokenUuid);
@@ -147,6 +215,15 @@ public class ApiTokenStats implements Saveable {
                 .orElse(new SingleTokenStats(tokenUuid));
     }
     
+    private @Nonnull SingleTokenStats findOrCreateById(@Nonnull String tokenUuid) {
+        return findById(tokenUuid)
+                .orElseGet(() -> {
+                    SingleTokenStats result = new SingleTokenStats(tokenUuid);
+                    tokenStats.add(result);
+                    return result;
+                });
+    }
+    
     private @Nonnull Optional<SingleTokenStats> findById(@Nonnull String tokenUuid) {
         return tokenStats.stream()
                 .filter(s -> s.tokenUuid.equals(tokenUuid))
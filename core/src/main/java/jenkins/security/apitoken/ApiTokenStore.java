@@ -42,13 +42,17 @@ import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
@@ -68,8 +72,21 @@ public class ApiTokenStore {
     
     private static final String HASH_ALGORITHM = "SHA-256";
     
+    /**
+     * Owners of the tokens of all the stores that know their owner, keyed by {@link HashValue#hash}.
+     */
+    private static final ConcurrentMap<String, String> OWNERS = new ConcurrentHashMap<>();
+    
     private List<HashedToken> tokenList;
     
+    /**
+     * Snapshot of {@link #tokenList} keyed by {@link HashValue#hash}, replaced on every change
+     * so that {@link #findMatchingToken(String)} does not need to lock.
+     */
+    private transient volatile Map<String, HashedToken> tokensByHash;
+    
+    private transient String owner;
+    
     public ApiTokenStore() {
         this.init();
     }
@@ -83,6 +100,66 @@ public class ApiTokenStore {
         if (this.tokenList == null) {
             this.tokenList = new ArrayList<>();
         }
+        reindex();
+    }
+    
+    /**
+     * Records the user owning this store, so that its tokens can be found by {@link #findOwner(String)}.
+     */
+    public synchronized void setOwner(@Nonnull String userId) {
+        unpublish();
+        this.owner = userId;
+        publish();
+    }
+    
+    /**
+     * Finds the user that a token belongs to, among the stores that have been loaded.
+     * <p>
+     * This does not check the token against the store; a {@code null} result does not mean the token is invalid,
+     * since stores of users that were not loaded yet are not known.
+     *
+     * @return the id of the user owning the token, or {@code null} if not known.
+     */
+    public static @CheckForNull String findOwner(@Nonnull String token) {
+        return OWNERS.get(hashOfTokenInHex(token));
+    }
+    
+    /**
+     * Forgets the tokens of a user that was deleted.
+     */
+    public static void forgetOwner(@Nonnull String userId) {
+        OWNERS.values().removeIf(userId::equals);
+    }
+    
+    /**
+     * Must be called after each change to {@link #tokenList}, while holding the lock.
+     */
+    private void reindex() {
+        unpublish();
+        Map<String, HashedToken> index = new HashMap<>();
+        for (HashedToken token : tokenList) {
+            if (token.value != null && token.value.hash != null) {
+                index.put(token.value.hash.toLowerCase(Locale.ENGLISH), token);
+            }
+        }
+        this.tokensByHash = Collections.unmodifiableMap(index);
+        publish();
+    }
+    
+    private void publish() {
+        if (owner != null) {
+            for (String hash : tokensByHash.keySet()) {
+                OWNERS.put(hash, owner);
+            }
+        }
+    }
+    
+    private void unpublish() {
+        if (owner != null && tokensByHash != null) {
+            for (String hash : tokensByHash.keySet()) {
+                OWNERS.remove(hash, owner);
+            }
+        }
     }
     
     @SuppressFBWarnings("NP_NONNULL_RETURN_VIOLATION")
@@ -94,6 +171,7 @@ public class ApiTokenStore {
     
     private void addToken(HashedToken token) {
         this.tokenList.add(token);
+        reindex();
     }
     
     /**
@@ -143,13 +221,15 @@ public class ApiTokenStore {
     
     private void deleteAllLegacyTokens() {
         // normally there is only one, but just in case
-        tokenList.removeIf(HashedToken::isLegacy);
+        if (tokenList.removeIf(HashedToken::isLegacy)) {
+            reindex();
+        }
     }
     
     private void addLegacyToken(@Nonnull Secret legacyToken, boolean migrationFromExistingLegacy) {
         String tokenUserUseNormally = Util.getDigestOf(legacyToken.getPlainText());
         
-        String secretValueHashed = this.plainSecretToHashInHex(tokenUserUseNormally);
+        String secretValueHashed = plainSecretToHashInHex(tokenUserUseNormally);
         
         HashValue hashValue = new HashValue(LEGACY_VERSION, secretValueHashed);
         HashedToken token = HashedToken.buildNewFromLegacy(hashValue, migrationFromExistingLegacy);
@@ -179,7 +259,7 @@ public class ApiTokenStore {
         String tokenTheUserWillUse = HASH_VERSION + secretValue;
         assert tokenTheUserWillUse.length() == 2 + 32;
         
-        String secretValueHashed = this.plainSecretToHashInHex(secretValue);
+        String secretValueHashed = plainSecretToHashInHex(secretValue);
         
         HashValue hashValue = new HashValue(HASH_VERSION, secretValueHashed);
         HashedToken token = HashedToken.buildNew(name, hashValue);
@@ -190,17 +270,17 @@ public class ApiTokenStore {
     }
     
     @SuppressFBWarnings("NP_NONNULL_RETURN_VIOLATION")
-    private @Nonnull String plainSecretToHashInHex(@Nonnull String secretValueInPlainText) {
+    private static @Nonnull String plainSecretToHashInHex(@Nonnull String secretValueInPlainText) {
         byte[] hashBytes = plainSecretToHashBytes(secretValueInPlainText);
         return Util.toHexString(hashBytes);
     }
     
-    private @Nonnull byte[] plainSecretToHashBytes(@Nonnull String secretValueInPlainText) {
+    private static @Nonnull byte[] plainSecretToHashBytes(@Nonnull String secretValueInPlainText) {
         // ascii is sufficient for hex-format
         return hashedBytes(secretValueInPlainText.getBytes(StandardCharsets.US_ASCII));
     }
     
-    private @Nonnull byte[] hashedBytes(byte[] tokenBytes) {
+    private static @Nonnull byte[] hashedBytes(byte[] tokenBytes) {
         MessageDigest digest;
         try {
             digest = MessageDigest.getInstance(HASH_ALGORITHM);
@@ -214,21 +294,35 @@ public class ApiTokenStore {
      * Search in the store if there is a token with the same secret as the one given
      * @return {@code null} iff there is no matching token
      */
-    public synchronized @CheckForNull HashedToken findMatchingToken(@Nonnull String token) {
-        String plainToken;
+    public @CheckForNull HashedToken findMatchingToken(@Nonnull String token) {
+        byte[] hashedBytes = plainSecretToHashBytes(getPlainSecret(token));
+        HashedToken candidate = tokensByHash.get(Util.toHexString(hashedBytes));
+        if (candidate != null && candidate.match(hashedBytes)) {
+            return candidate;
+        }
+        
+        return null;
+    }
+    
+    private static @Nonnull String hashOfTokenInHex(@Nonnull String token) {
+        return plainSecretToHashInHex(getPlainSecret(token));
+    }
+    
+    /**
+     * The part of the token whose hash is stored
+     */
+    private static @Nonnull String getPlainSecret(@Nonnull String token) {
         if (isLegacyToken(token)) {
-            plainToken = token;
+            return token;
         } else {
-            plainToken = getHashOfToken(token);
+            return getHashOfToken(token);
         }
-        
-        return searchMatch(plainToken);
     }
     
     /**
      * Determine if the given token was generated by the legacy system or the new one
      */
-    private boolean isLegacyToken(@Nonnull String token) {
+    private static boolean isLegacyToken(@Nonnull String token) {
         return token.length() != TOKEN_LENGTH_V2;
     }
     
@@ -237,7 +331,7 @@ public class ApiTokenStore {
      * @param token assumed the token is not a legacy one and represent the full token (version + hash)
      * @return the hash part
      */
-    private @Nonnull String getHashOfToken(@Nonnull String token) {
+    private static @Nonnull String getHashOfToken(@Nonnull String token) {
         /*
          * Structure of the token:
          * 
@@ -247,21 +341,6 @@ public class ApiTokenStore {
         return token.substring(2);
     }
     
-    /**
-     * Search in the store if there is a matching token that has the same secret.
-     * @return {@code null} iff there is no matching token
-     */
-    private @CheckForNull HashedToken searchMatch(@Nonnull String plainSecret) {
-        byte[] hashedBytes = plainSecretToHashBytes(plainSecret);
-        for (HashedToken token : tokenList) {
-            if (token.match(hashedBytes)) {
-                return token;
-            }
-        }
-        
-        return null;
-    }
-    
     /**
      * Remove a token given its identifier. Effectively make it unusable for future connection.
      * 
@@ -273,6 +352,7 @@ public class ApiTokenStore {
             HashedToken token = iterator.next();
             if (token.uuid.equals(tokenUuid)) {
                 iterator.remove();
+                reindex();
                 
                 return token;
             }
@@ -24,8 +24,12 @@
 package jenkins.security.apitoken;
 
 import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.XmlFile;
 import hudson.model.AdministrativeMonitor;
+import hudson.model.Saveable;
 import hudson.model.User;
+import hudson.model.listeners.SaveableListener;
 import hudson.node_monitors.AbstractAsyncNodeMonitorDescriptor;
 import hudson.util.HttpResponses;
 import jenkins.security.ApiTokenProperty;
@@ -64,13 +68,23 @@ public class LegacyApiTokenAdministrativeMonitor extends AdministrativeMonitor {
         return Messages.LegacyApiTokenAdministrativeMonitor_displayName();
     }
     
+    /**
+     * Whether some user had a legacy token when last checked, or {@code null} if it needs to be checked again.
+     * Spares going through, and possibly loading, all the users each time the monitors are displayed.
+     */
+    private volatile Boolean activated;
+
     @Override
     public boolean isActivated() {
-        return User.getAll().stream()
-                .anyMatch(user -> {
-                    ApiTokenProperty apiTokenProperty = user.getProperty(ApiTokenProperty.class);
-                    return (apiTokenProperty != null && apiTokenProperty.hasLegacyToken());
-                });
+        Boolean r = activated;
+        if (r == null) {
+            activated = r = User.getAll().stream()
+                    .anyMatch(user -> {
+                        ApiTokenProperty apiTokenProperty = user.getProperty(ApiTokenProperty.class);
+                        return (apiTokenProperty != null && apiTokenProperty.hasLegacyToken());
+                    });
+        }
+        return r;
     }
     
     public HttpResponse doIndex() throws IOException {
@@ -80,12 +94,14 @@ public class LegacyApiTokenAdministrativeMonitor extends AdministrativeMonitor {
     // used by Jelly view
     @Restricted(NoExternalUse.class)
     public List<User> getImpactedUserList() {
-        return User.getAll().stream()
+        List<User> r = User.getAll().stream()
                 .filter(user -> {
                     ApiTokenProperty apiTokenProperty = user.getProperty(ApiTokenProperty.class);
                     return (apiTokenProperty != null && apiTokenProperty.hasLegacyToken());
                 })
                 .collect(Collectors.toList());
+        activated = !r.isEmpty();
+        return r;
     }
     
     // used by Jelly view
@@ -197,4 +213,19 @@ public class LegacyApiTokenAdministrativeMonitor extends AdministrativeMonitor {
         public String userId;
         public String uuid;
     }
+
+    /**
+     * Checks the users again once one of them has been saved, which is how legacy tokens are added or revoked.
+     */
+    @Extension
+    public static final class SaveListenerImpl extends SaveableListener {
+        @Override
+        public void onChange(Saveable o, XmlFile file) {
+            if (o instanceof User) {
+                for (LegacyApiTokenAdministrativeMonitor monitor : ExtensionList.lookup(LegacyApiTokenAdministrativeMonitor.class)) {
+                    monitor.activated = null;
+                }
+            }
+        }
+    }
 }
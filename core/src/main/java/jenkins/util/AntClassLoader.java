@@ -47,11 +47,14 @@ import java.security.cert.Certificate;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Set;
 import java.util.StringTokenizer;
 import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.jar.Attributes;
 import java.util.jar.Attributes.Name;
 import java.util.jar.JarEntry;
@@ -225,6 +228,12 @@ public class AntClassLoader extends ClassLoader implements SubBuildListener {
      */
     private Hashtable jarFiles = new Hashtable();
 
+    /**
+     * Entries of the jars in {@link #pathComponents}, once {@link #indexJars(File)} has been called.
+     * Jars are assumed not to change while this loader uses them, as {@link #jarFiles} keeps them open anyway.
+     */
+    private final Map<File,JarEntryIndex> jarIndexes = new ConcurrentHashMap<File,JarEntryIndex>();
+
     /** Static map of jar file/time to manifest class-path entries */
     private static Map/*<String,String>*/ pathMap = Collections.synchronizedMap(new HashMap());
 
@@ -539,6 +548,70 @@ public class AntClassLoader extends ClassLoader implements SubBuildListener {
         }
     }
 
+    /**
+     * Indexes the entries of the jars in the class path, so that looking up a resource
+     * only opens the jars which have it.
+     *
+     * @param cache
+     *      file where the indexes are kept across restarts, or null to only keep them in memory.
+     *      Indexes of jars whose size and timestamp did not change are reused from there.
+     */
+    @Restricted(NoExternalUse.class)
+    public void indexJars(File cache) {
+        Map<String,JarEntryIndex> saved = cache != null ? JarEntryIndex.load(cache) : Collections.<String,JarEntryIndex>emptyMap();
+        Map<String,JarEntryIndex> current = new HashMap<String,JarEntryIndex>();
+        boolean changed = false;
+        for (Enumeration e = pathComponents.elements(); e.hasMoreElements();) {
+            File f = (File) e.nextElement();
+            if (!f.isFile()) {
+                continue;
+            }
+            String key = f.getAbsolutePath();
+            JarEntryIndex index = saved.get(key);
+            if (index == null || !index.isUpToDate(f)) {
+                try {
+                    index = JarEntryIndex.of(f);
+                } catch (IOException x) {
+                    log("Not indexing " + f + ": " + x, Project.MSG_VERBOSE);
+                    continue;
+                }
+                changed = true;
+            }
+            current.put(key, index);
+            jarIndexes.put(f, index);
+        }
+        if (cache != null && (changed || current.size() != saved.size())) {
+            try {
+                JarEntryIndex.save(current, cache);
+            } catch (IOException x) {
+                log("Failed to save " + cache + ": " + x, Project.MSG_VERBOSE);
+            }
+        }
+    }
+
+    /**
+     * Directories having files in the class path, such as {@code org/example}.
+     *
+     * @return null unless every component of the class path is an {@linkplain #indexJars(File) indexed} jar.
+     */
+    @Restricted(NoExternalUse.class)
+    public Set<String> getIndexedDirectories() {
+        Set<String> directories = new HashSet<String>();
+        for (Enumeration e = pathComponents.elements(); e.hasMoreElements();) {
+            JarEntryIndex index = jarIndexes.get((File) e.nextElement());
+            if (index == null) {
+                return null;
+            }
+            directories.addAll(index.getDirectories());
+        }
+        return directories;
+    }
+
+    private boolean mightContain(File jar, String resourceName) {
+        JarEntryIndex index = jarIndexes.get(jar);
+        return index == null || index.mightContain(resourceName);
+    }
+
     /**
      * Returns the classpath this classloader will consult.
      *
@@ -794,6 +867,9 @@ public class AntClassLoader extends ClassLoader implements SubBuildListener {
                     return Files.newInputStream(resource.toPath());
                 }
             } else {
+                if (!mightContain(file, resourceName)) {
+                    return null;
+                }
                 if (jarFile == null) {
                     if (file.exists()) {
                         jarFile = new JarFile(file);
@@ -1013,6 +1089,9 @@ public class AntClassLoader extends ClassLoader implements SubBuildListener {
                     }
                 }
             } else {
+                if (!mightContain(file, resourceName)) {
+                    return null;
+                }
                 if (jarFile == null) {
                     if (file.exists()) {
                         jarFile = new JarFile(file);
@@ -0,0 +1,137 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2018, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jenkins.util;
+
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link ThreadPoolExecutor} that keeps track of how long tasks wait for a thread and how long they run.
+ *
+ * @see ThreadPools
+ * @since TODO
+ */
+@Restricted(NoExternalUse.class)
+public class InstrumentedThreadPoolExecutor extends ThreadPoolExecutor implements ThreadPoolMXBean {
+
+    private final String name;
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong started = new AtomicLong();
+    private final AtomicLong finished = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong totalRunNanos = new AtomicLong();
+
+    public InstrumentedThreadPoolExecutor(@Nonnull String name, int corePoolSize, int maximumPoolSize, long keepAlive, TimeUnit unit,
+                                          @Nonnull BlockingQueue<Runnable> workQueue, @Nonnull ThreadFactory threadFactory) {
+        super(corePoolSize, maximumPoolSize, keepAlive, unit, workQueue, threadFactory);
+        this.name = name;
+    }
+
+    @Override
+    public void execute(@Nonnull Runnable command) {
+        submitted.incrementAndGet();
+        super.execute(new Timed(command));
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return getQueue().size();
+    }
+
+    @Override
+    public long getSubmittedTaskCount() {
+        return submitted.get();
+    }
+
+    @Override
+    public double getAverageQueueLatencyMillis() {
+        long n = started.get();
+        return n == 0 ? 0 : totalWaitNanos.get() / 1e6 / n;
+    }
+
+    @Override
+    public long getMaxQueueLatencyMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get());
+    }
+
+    @Override
+    public double getAverageRunMillis() {
+        long n = finished.get();
+        return n == 0 ? 0 : totalRunNanos.get() / 1e6 / n;
+    }
+
+    @Override
+    public String toString() {
+        return name + "[pool=" + getPoolSize() + "/" + getMaximumPoolSize() + ",active=" + getActiveCount() + ",queued=" + getQueueDepth() + "]";
+    }
+
+    /**
+     * Remembers when the task was submitted.
+     */
+    private final class Timed implements Runnable {
+        private final Runnable task;
+        private final long submittedAt = System.nanoTime();
+
+        Timed(Runnable task) {
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            long start = System.nanoTime();
+            long wait = start - submittedAt;
+            started.incrementAndGet();
+            totalWaitNanos.addAndGet(wait);
+            long max;
+            while (wait > (max = maxWaitNanos.get()) && !maxWaitNanos.compareAndSet(max, wait)) {
+                // retry
+            }
+            try {
+                task.run();
+            } finally {
+                totalRunNanos.addAndGet(System.nanoTime() - start);
+                finished.incrementAndGet();
+            }
+        }
+
+        @Override
+        public String toString() {
+            return task.toString();
+        }
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2018, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jenkins.util;
+
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+import javax.annotation.Nonnull;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Names of the entries of a jar file, so that {@link AntClassLoader} can tell that a jar does not have a resource
+ * without opening it.
+ *
+ * <p>
+ * Only 64-bit hashes of the names are kept, sorted, which makes the index compact and a lookup a binary search.
+ * A collision merely makes the class loader look in the jar.
+ * The directories having files are kept too, for {@link hudson.PluginManager.UberClassLoader}.
+ *
+ * <p>
+ * Indexes of several jars can be saved to a file and reused as long as the jars keep their size and timestamp.
+ *
+ * @since TODO
+ */
+@Restricted(NoExternalUse.class)
+public final class JarEntryIndex {
+    private final long length;
+    private final long lastModified;
+    private final long[] hashes;
+    private final Set<String> directories;
+
+    private JarEntryIndex(long length, long lastModified, long[] hashes, Set<String> directories) {
+        this.length = length;
+        this.lastModified = lastModified;
+        this.hashes = hashes;
+        this.directories = directories;
+    }
+
+    /**
+     * Reads the entries of the given jar.
+     */
+    public static @Nonnull JarEntryIndex of(@Nonnull File jar) throws IOException {
+        long length = jar.length(), lastModified = jar.lastModified();
+        try (ZipFile z = new ZipFile(jar)) {
+            long[] hashes = new long[z.size()];
+            Set<String> directories = new TreeSet<>();
+            int i = 0;
+            Enumeration<? extends ZipEntry> entries = z.entries();
+            while (entries.hasMoreElements()) {
+                String name = entries.nextElement().getName();
+                if (i == hashes.length) {
+                    hashes = Arrays.copyOf(hashes, i * 2 + 1);
+                }
+                hashes[i++] = hash(name);
+                if (!name.endsWith("/")) {
+                    int slash = name.lastIndexOf('/');
+                    directories.add(slash < 0 ? "" : name.substring(0, slash));
+                }
+            }
+            hashes = Arrays.copyOf(hashes, i);
+            Arrays.sort(hashes);
+            return new JarEntryIndex(length, lastModified, hashes, Collections.unmodifiableSet(directories));
+        }
+    }
+
+    /**
+     * Whether the jar may have an entry of the given name.
+     * Like {@link ZipFile#getEntry(String)}, a name without a trailing slash also matches a directory entry.
+     */
+    public boolean mightContain(@Nonnull String name) {
+        return Arrays.binarySearch(hashes, hash(name)) >= 0
+                || (!name.endsWith("/") && Arrays.binarySearch(hashes, hash(name + '/')) >= 0);
+    }
+
+    /**
+     * Directories having files in the jar, such as {@code org/example}, or the empty string for the root.
+     */
+    public @Nonnull Set<String> getDirectories() {
+        return directories;
+    }
+
+    /**
+     * Whether this is still the index of the given jar.
+     */
+    public boolean isUpToDate(@Nonnull File jar) {
+        return jar.length() == length && jar.lastModified() == lastModified;
+    }
+
+    /**
+     * 64-bit FNV-1a hash of the characters of the name.
+     */
+    static long hash(String name) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < name.length(); i++) {
+            h ^= name.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    /**
+     * Loads indexes saved by {@link #save}, keyed by the absolute path of the jar.
+     *
+     * @return an empty map if the file is missing or unreadable.
+     */
+    public static @Nonnull Map<String,JarEntryIndex> load(@Nonnull File file) {
+        Map<String,JarEntryIndex> indexes = new HashMap<>();
+        if (!file.isFile()) {
+            return indexes;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(toPath(file))))) {
+            if (in.readInt() != MAGIC) {
+                return indexes;
+            }
+            for (int n = in.readInt(); n > 0; n--) {
+                String jar = in.readUTF();
+                long length = in.readLong(), lastModified = in.readLong();
+                Set<String> directories = new TreeSet<>();
+                for (int i = in.readInt(); i > 0; i--) {
+                    directories.add(in.readUTF());
+                }
+                long[] hashes = new long[in.readInt()];
+                for (int i = 0; i < hashes.length; i++) {
+                    hashes[i] = in.readLong();
+                }
+                indexes.put(jar, new JarEntryIndex(length, lastModified, hashes, Collections.unmodifiableSet(directories)));
+            }
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.FINE, "Ignoring unreadable " + file, e);
+            indexes.clear();
+        }
+        return indexes;
+    }
+
+    /**
+     * Saves the given indexes, keyed by the absolute path of the jar.
+     */
+    public static void save(@Nonnull Map<String,JarEntryIndex> indexes, @Nonnull File file) throws IOException {
+        Path tmp = Files.createTempFile(toPath(file.getParentFile()), file.getName(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(indexes.size());
+                for (Map.Entry<String,JarEntryIndex> e : indexes.entrySet()) {
+                    JarEntryIndex index = e.getValue();
+                    out.writeUTF(e.getKey());
+                    out.writeLong(index.length);
+                    out.writeLong(index.lastModified);
+                    out.writeInt(index.directories.size());
+                    for (String d : index.directories) {
+                        out.writeUTF(d);
+                    }
+                    out.writeInt(index.hashes.length);
+                    for (long h : index.hashes) {
+                        out.writeLong(h);
+                    }
+                }
+            }
+            Files.move(tmp, toPath(file), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static Path toPath(File f) throws IOException {
+        try {
+            return f.toPath();
+        } catch (InvalidPathException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static final int MAGIC = 0x4a4a4931; // "JJI1"
+
+    private static final Logger LOGGER = Logger.getLogger(JarEntryIndex.class.getName());
+}
@@ -0,0 +1,76 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2018, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jenkins.util;
+
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+import javax.annotation.Nonnull;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Registers the management interfaces of Jenkins internals, such as {@link ThreadPoolMXBean},
+ * with the platform MBean server under the {@code jenkins} domain.
+ *
+ * @since TODO
+ */
+@Restricted(NoExternalUse.class)
+public final class MBeans {
+
+    private MBeans() {}
+
+    /**
+     * Registers the given object, replacing any earlier one of the same name, such as the one of a previous Jenkins instance in tests.
+     * Failures are only logged, since these interfaces are for monitoring.
+     *
+     * @param name
+     *      the key properties of the name, such as {@code type=ThreadPool,name=...}.
+     */
+    public static void register(@Nonnull String name, @Nonnull Object mbean) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = objectName(name);
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+            server.registerMBean(mbean, objectName);
+        } catch (JMException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Failed to register " + name, e);
+        }
+    }
+
+    /**
+     * Gets the full name under which {@link #register} registers an object.
+     */
+    public static @Nonnull ObjectName objectName(@Nonnull String name) throws JMException {
+        return new ObjectName("jenkins:" + name);
+    }
+
+    private static final Logger LOGGER = Logger.getLogger(MBeans.class.getName());
+}
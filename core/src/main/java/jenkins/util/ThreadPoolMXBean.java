@@ -0,0 +1,76 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2018, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jenkins.util;
+
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Management interface of the thread pools listed by {@link ThreadPools}.
+ *
+ * @since TODO
+ */
+@Restricted(NoExternalUse.class)
+public interface ThreadPoolMXBean {
+    String getName();
+
+    /**
+     * Threads currently in the pool.
+     */
+    int getPoolSize();
+
+    /**
+     * Most threads the pool may have, or {@link Integer#MAX_VALUE} if unbounded.
+     */
+    int getMaximumPoolSize();
+
+    /**
+     * Threads currently running a task.
+     */
+    int getActiveCount();
+
+    /**
+     * Tasks waiting for a thread.
+     */
+    int getQueueDepth();
+
+    long getSubmittedTaskCount();
+
+    long getCompletedTaskCount();
+
+    /**
+     * Average time tasks waited for a thread.
+     */
+    double getAverageQueueLatencyMillis();
+
+    /**
+     * Longest time a task waited for a thread.
+     */
+    long getMaxQueueLatencyMillis();
+
+    /**
+     * Average time tasks ran for.
+     */
+    double getAverageRunMillis();
+}
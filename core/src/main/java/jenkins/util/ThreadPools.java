@@ -0,0 +1,133 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2018, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jenkins.util;
+
+import hudson.model.Computer;
+import hudson.security.ACL;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.ExceptionCatchingThreadFactory;
+import hudson.util.NamingThreadFactory;
+import jenkins.security.ImpersonatingExecutorService;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+import javax.annotation.Nonnull;
+import javax.management.ObjectName;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Thread pools used by Jenkins itself for background work that used to share {@link Computer#threadPoolForRemoting}.
+ *
+ * <p>
+ * Each kind of work gets its own named and separately sized pool, so that for example hundreds of agents
+ * launching at once cannot starve channel termination or queue maintenance.
+ * Every pool is an {@link InstrumentedThreadPoolExecutor}, registered as an MBean named
+ * {@code jenkins:type=ThreadPool,name=...} and listed on the {@code threadPools} management page.
+ *
+ * @since TODO
+ */
+@Restricted(NoExternalUse.class)
+public final class ThreadPools {
+
+    private static final List<InstrumentedThreadPoolExecutor> POOLS = new CopyOnWriteArrayList<>();
+
+    /**
+     * Runs {@link hudson.slaves.ComputerLauncher}s.
+     * Not bounded, since launches may be kept waiting by {@link hudson.slaves.AgentAdmissionScheduler} for as long as it takes.
+     */
+    public static final ExecutorService AGENT_LAUNCH = wrap(newCachedPool("Agent launch"));
+
+    /**
+     * Closes the channels of agents being disconnected.
+     */
+    public static final ExecutorService CHANNEL_TERMINATION = wrap(newBoundedPool("Channel termination",
+            SystemProperties.getInteger(ThreadPools.class.getName() + ".channelTermination", 8)));
+
+    /**
+     * Short tasks updating the {@link hudson.model.Queue} or asking for it to be maintained.
+     * They wait for the {@link hudson.model.Queue} lock, so there are enough threads for some to get it
+     * while others are still waiting, or waiting for a {@link hudson.slaves.Cloud} to provision.
+     */
+    public static final ExecutorService QUEUE_MAINTENANCE = wrap(newBoundedPool("Queue maintenance",
+            SystemProperties.getInteger(ThreadPools.class.getName() + ".queueMaintenance", 8)));
+
+    private ThreadPools() {}
+
+    /**
+     * Creates and registers a pool with a fixed number of threads, which go away when idle.
+     */
+    public static @Nonnull InstrumentedThreadPoolExecutor newBoundedPool(@Nonnull String name, int size) {
+        InstrumentedThreadPoolExecutor pool = new InstrumentedThreadPoolExecutor(name, size, size, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), threadFactory(name));
+        pool.allowCoreThreadTimeOut(true);
+        register(pool);
+        return pool;
+    }
+
+    /**
+     * Creates and registers a pool which starts a new thread whenever all its threads are busy,
+     * for tasks that may wait on each other, such as those of remoting channels.
+     */
+    public static @Nonnull InstrumentedThreadPoolExecutor newCachedPool(@Nonnull String name) {
+        InstrumentedThreadPoolExecutor pool = new InstrumentedThreadPoolExecutor(name, 0, Integer.MAX_VALUE, 60, TimeUnit.SECONDS,
+                new SynchronousQueue<Runnable>(), threadFactory(name));
+        register(pool);
+        return pool;
+    }
+
+    /**
+     * All the pools created so far.
+     */
+    public static @Nonnull List<ThreadPoolMXBean> all() {
+        return new ArrayList<ThreadPoolMXBean>(POOLS);
+    }
+
+    private static ExecutorService wrap(ExecutorService pool) {
+        return new ContextResettingExecutorService(new ImpersonatingExecutorService(pool, ACL.SYSTEM));
+    }
+
+    private static ThreadFactory threadFactory(String name) {
+        return new ExceptionCatchingThreadFactory(new NamingThreadFactory(new DaemonThreadFactory(), name));
+    }
+
+    /**
+     * Lists the given pool, replacing any earlier pool of the same name, such as the one of a previous Jenkins instance in tests.
+     */
+    private static synchronized void register(InstrumentedThreadPoolExecutor pool) {
+        for (InstrumentedThreadPoolExecutor p : POOLS) {
+            if (p.getName().equals(pool.getName())) {
+                POOLS.remove(p);
+            }
+        }
+        POOLS.add(pool);
+        MBeans.register("type=ThreadPool,name=" + ObjectName.quote(pool.getName()), pool);
+    }
+}
@@ -0,0 +1,294 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2018, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jenkins.util.io;
+
+import jenkins.util.SystemProperties;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * {@link OutputStream} that hands data over to a shared background thread, which writes it to the
+ * underlying stream in batches.
+ *
+ * <p>
+ * Writes only append to an in-memory buffer, so small writes from a chatty process do not each turn into
+ * a system call, and a slow disk does not stall the writing thread. Data reaches the underlying stream
+ * within {@link #FLUSH_LATENCY_MILLIS}. Once more than the configured capacity is pending, the writing thread
+ * writes out the backlog itself, which is the only case where writers wait for I/O.
+ *
+ * <p>
+ * {@link #flush()} does not wait for the data to be written; {@link #close()} does.
+ *
+ * @since TODO
+ */
+@Restricted(NoExternalUse.class)
+public final class AsyncLogOutputStream extends OutputStream {
+
+    /**
+     * How long data may stay in memory before it is written to the underlying stream.
+     */
+    static long FLUSH_LATENCY_MILLIS = SystemProperties.getLong(AsyncLogOutputStream.class.getName() + ".flushLatencyMillis", 100L);
+
+    /**
+     * Default number of pending bytes per stream above which writers write out the backlog themselves.
+     */
+    static int CAPACITY = SystemProperties.getInteger(AsyncLogOutputStream.class.getName() + ".capacity", 1024 * 1024);
+
+    private static final int BATCH_SIZE = 64 * 1024;
+
+    /**
+     * Size of the chunks small writes are collected in before being queued.
+     */
+    private static final int CHUNK_SIZE = 8 * 1024;
+
+    private final OutputStream out;
+    private final int capacity;
+
+    private final ConcurrentLinkedQueue<byte[]> pending = new ConcurrentLinkedQueue<byte[]>();
+    private final AtomicLong pendingBytes = new AtomicLong();
+
+    /**
+     * Chunk being filled by writers, which goes to {@link #pending} once full or drained. Guarded by {@code this}.
+     */
+    private byte[] current;
+    private int currentSize;
+
+    /**
+     * Guards writes to {@link #out} and {@link #batch}.
+     */
+    private final Object drainLock = new Object();
+    private final byte[] batch = new byte[BATCH_SIZE];
+
+    private volatile boolean closed;
+    private volatile IOException failure;
+
+    public AsyncLogOutputStream(@Nonnull OutputStream out) {
+        this(out, CAPACITY);
+    }
+
+    public AsyncLogOutputStream(@Nonnull OutputStream out, int capacity) {
+        this.out = out;
+        this.capacity = capacity;
+        WriterThread.register(this);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        checkOpen();
+        synchronized (this) {
+            if (current != null && currentSize == current.length) {
+                seal();
+            }
+            if (current == null) {
+                current = new byte[CHUNK_SIZE];
+            }
+            current[currentSize++] = (byte) b;
+        }
+        added(1);
+    }
+
+    @Override
+    public void write(@Nonnull byte[] b, int off, int len) throws IOException {
+        checkOpen();
+        if (len == 0) {
+            return;
+        }
+        synchronized (this) {
+            if (current != null && currentSize + len > current.length) {
+                seal();
+            }
+            if (len >= CHUNK_SIZE) {
+                pending.add(Arrays.copyOfRange(b, off, off + len));
+            } else {
+                if (current == null) {
+                    current = new byte[CHUNK_SIZE];
+                }
+                System.arraycopy(b, off, current, currentSize, len);
+                currentSize += len;
+            }
+        }
+        added(len);
+    }
+
+    private void checkOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream is closed");
+        }
+        IOException x = failure;
+        if (x != null) {
+            throw new IOException("Failed to write log", x);
+        }
+    }
+
+    private void added(int len) throws IOException {
+        if (pendingBytes.addAndGet(len) > capacity) {
+            // the background thread is not keeping up, so slow down this writer
+            drain();
+        }
+    }
+
+    /**
+     * Queues what was collected in {@link #current}, keeping the chunk for further writes unless it was full.
+     */
+    private synchronized void seal() {
+        if (current == null || currentSize == 0) {
+            return;
+        }
+        if (currentSize == current.length) {
+            pending.add(current);
+            current = null;
+        } else {
+            pending.add(Arrays.copyOf(current, currentSize));
+        }
+        currentSize = 0;
+    }
+
+    /**
+     * Does not wait for the data to be written; it will be within {@link #FLUSH_LATENCY_MILLIS}.
+     */
+    @Override
+    public void flush() throws IOException {
+        IOException x = failure;
+        if (x != null) {
+            throw new IOException("Failed to write log", x);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        WriterThread.unregister(this);
+        try {
+            drain();
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Number of bytes written to this stream but not yet to the underlying stream.
+     */
+    long getPendingBytes() {
+        return pendingBytes.get();
+    }
+
+    /**
+     * Writes out everything that is pending.
+     */
+    private void drain() throws IOException {
+        synchronized (drainLock) {
+            seal();
+            int size = 0;
+            byte[] chunk;
+            while ((chunk = pending.poll()) != null) {
+                if (size + chunk.length > batch.length) {
+                    out.write(batch, 0, size);
+                    size = 0;
+                }
+                if (chunk.length > batch.length) {
+                    out.write(chunk);
+                } else {
+                    System.arraycopy(chunk, 0, batch, size, chunk.length);
+                    size += chunk.length;
+                }
+                pendingBytes.addAndGet(-chunk.length);
+            }
+            if (size > 0) {
+                out.write(batch, 0, size);
+            }
+            out.flush();
+        }
+    }
+
+    private void drainInBackground() {
+        if (pendingBytes.get() == 0 || failure != null) {
+            return;
+        }
+        try {
+            drain();
+        } catch (IOException e) {
+            failure = e;
+            LOGGER.log(Level.WARNING, "Failed to write log", e);
+        } catch (RuntimeException e) {
+            failure = new IOException(e);
+            LOGGER.log(Level.WARNING, "Failed to write log", e);
+        }
+    }
+
+    /**
+     * Single daemon thread that periodically drains every open stream.
+     */
+    private static final class WriterThread extends Thread {
+        private static final Set<AsyncLogOutputStream> STREAMS = ConcurrentHashMap.newKeySet();
+        private static WriterThread INSTANCE;
+
+        private WriterThread() {
+            super("Build log writer");
+            setDaemon(true);
+        }
+
+        static synchronized void register(AsyncLogOutputStream s) {
+            STREAMS.add(s);
+            if (INSTANCE == null) {
+                INSTANCE = new WriterThread();
+                INSTANCE.start();
+            }
+        }
+
+        static void unregister(AsyncLogOutputStream s) {
+            STREAMS.remove(s);
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                try {
+                    TimeUnit.MILLISECONDS.sleep(FLUSH_LATENCY_MILLIS);
+                } catch (InterruptedException e) {
+                    // keep going, open streams still need to be written out
+                }
+                for (AsyncLogOutputStream s : STREAMS) {
+                    s.drainInBackground();
+                }
+            }
+        }
+    }
+
+    private static final Logger LOGGER = Logger.getLogger(AsyncLogOutputStream.class.getName());
+}
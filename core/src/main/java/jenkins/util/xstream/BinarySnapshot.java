@@ -0,0 +1,191 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2018, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jenkins.util.xstream;
+
+import com.thoughtworks.xstream.io.HierarchicalStreamReader;
+import com.thoughtworks.xstream.io.binary.BinaryStreamReader;
+import com.thoughtworks.xstream.io.binary.BinaryStreamWriter;
+import com.thoughtworks.xstream.io.copy.HierarchicalStreamCopier;
+import hudson.XmlFile;
+import hudson.util.XStream2;
+import jenkins.util.SystemProperties;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+import javax.annotation.Nonnull;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Copy of an {@link XmlFile} in the compact binary encoding of XStream, kept next to it.
+ *
+ * <p>
+ * The snapshot holds exactly the same sequence of elements, attributes and values as the XML,
+ * with element names tokenized, so it unmarshals through the same converters while skipping the XML parser.
+ * It records the size and modification time of the XML file it was made from, along with a checksum
+ * of its own contents; a snapshot that does not match is ignored, and callers fall back to the XML,
+ * which remains the authoritative copy.
+ *
+ * @since TODO
+ */
+@Restricted(NoExternalUse.class)
+public final class BinarySnapshot {
+
+    /**
+     * Whether snapshots are written and used at all.
+     */
+    public static boolean ENABLED = SystemProperties.getBoolean(BinarySnapshot.class.getName() + ".enabled");
+
+    private BinarySnapshot() {}
+
+    /**
+     * Where the snapshot of the given XML file is kept.
+     */
+    public static @Nonnull File getSnapshotFile(@Nonnull XmlFile xml) {
+        File f = xml.getFile();
+        return new File(f.getParentFile(), f.getName() + ".bin");
+    }
+
+    /**
+     * Loads the snapshot of the given file into an existing object, like {@link XmlFile#unmarshal(Object)}.
+     *
+     * @return
+     *      false if there is no usable snapshot, in which case the caller should unmarshal the XML instead.
+     */
+    public static boolean unmarshal(@Nonnull XmlFile xml, @Nonnull Object o) {
+        File snapshot = getSnapshotFile(xml);
+        if (!snapshot.isFile()) {
+            return false;
+        }
+        byte[] payload = load(snapshot, xml.getFile());
+        if (payload == null) {
+            return false;
+        }
+        try {
+            xml.getXStream().unmarshal(new BinaryStreamReader(new ByteArrayInputStream(payload)), o);
+            return true;
+        } catch (RuntimeException | Error e) {
+            LOGGER.log(Level.WARNING, "Failed to load " + snapshot + ", falling back to " + xml, e);
+            snapshot.delete();
+            return false;
+        }
+    }
+
+    /**
+     * Writes the snapshot of the given file as it currently is on disk.
+     * Failures are logged, since the XML file is all that is needed.
+     */
+    public static void save(@Nonnull XmlFile xml) {
+        File f = xml.getFile();
+        File snapshot = getSnapshotFile(xml);
+        long length = f.length(), lastModified = f.lastModified();
+        try {
+            ByteArrayOutputStream payload = new ByteArrayOutputStream((int) Math.min(length, Integer.MAX_VALUE - 8));
+            try (InputStream in = new BufferedInputStream(Files.newInputStream(toPath(f)))) {
+                HierarchicalStreamReader r = XStream2.getDefaultDriver().createReader(in);
+                BinaryStreamWriter w = new BinaryStreamWriter(payload);
+                new HierarchicalStreamCopier().copy(r, w);
+                w.flush();
+            }
+            if (f.length() != length || f.lastModified() != lastModified) {
+                // rewritten while we were copying it; whoever did that can write a new snapshot
+                return;
+            }
+            CRC32 crc = new CRC32();
+            crc.update(payload.toByteArray());
+            Path tmp = Files.createTempFile(toPath(snapshot.getParentFile()), snapshot.getName(), ".tmp");
+            try {
+                try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(tmp))) {
+                    out.writeInt(MAGIC);
+                    out.writeLong(length);
+                    out.writeLong(lastModified);
+                    out.writeLong(crc.getValue());
+                    out.writeInt(payload.size());
+                    payload.writeTo(out);
+                }
+                Files.move(tmp, toPath(snapshot), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        } catch (IOException | RuntimeException e) {
+            // e.g. strings too long for the binary encoding
+            LOGGER.log(Level.FINE, "Failed to save " + snapshot, e);
+            snapshot.delete();
+        }
+    }
+
+    /**
+     * Reads the contents of a snapshot, if it was made from the given XML file as it currently is and is intact.
+     */
+    private static byte[] load(File snapshot, File xml) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(toPath(snapshot))))) {
+            if (in.readInt() != MAGIC || in.readLong() != xml.length() || in.readLong() != xml.lastModified()) {
+                return null;
+            }
+            long checksum = in.readLong();
+            int size = in.readInt();
+            if (size < 0 || size > snapshot.length()) {
+                LOGGER.log(Level.WARNING, "Ignoring corrupt {0}", snapshot);
+                return null;
+            }
+            byte[] payload = new byte[size];
+            in.readFully(payload);
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            if (crc.getValue() != checksum) {
+                LOGGER.log(Level.WARNING, "Ignoring corrupt {0}", snapshot);
+                return null;
+            }
+            return payload;
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.FINE, "Ignoring unreadable " + snapshot, e);
+            return null;
+        }
+    }
+
+    private static Path toPath(File f) throws IOException {
+        try {
+            return f.toPath();
+        } catch (InvalidPathException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static final int MAGIC = 0x4a584231; // "JXB1"
+
+    private static final Logger LOGGER = Logger.getLogger(BinarySnapshot.class.getName());
+}
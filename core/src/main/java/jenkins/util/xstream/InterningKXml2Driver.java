@@ -0,0 +1,118 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2018, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jenkins.util.xstream;
+
+import com.thoughtworks.xstream.core.util.XmlHeaderAwareReader;
+import com.thoughtworks.xstream.io.HierarchicalStreamReader;
+import com.thoughtworks.xstream.io.StreamException;
+import com.thoughtworks.xstream.io.naming.NameCoder;
+import com.thoughtworks.xstream.io.xml.KXml2Driver;
+import com.thoughtworks.xstream.io.xml.XppReader;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link KXml2Driver} whose readers hand out a single {@link String} instance for each element and attribute name.
+ *
+ * <p>
+ * Configuration and build records use a small vocabulary of names over and over, yet the parser creates
+ * new strings for every element. With shared instances, the many map lookups done by the mappers and converters
+ * for each element find their key by identity instead of comparing characters, and fewer short lived strings are created.
+ *
+ * @since TODO
+ */
+@Restricted(NoExternalUse.class)
+public class InterningKXml2Driver extends KXml2Driver {
+
+    /**
+     * Names handed out so far; once full, further names are not shared, so that unusual input cannot make it grow forever.
+     */
+    private static final ConcurrentHashMap<String,String> NAMES = new ConcurrentHashMap<>();
+
+    private static final int MAX_NAMES = 10000;
+
+    public InterningKXml2Driver() {
+    }
+
+    public InterningKXml2Driver(NameCoder nameCoder) {
+        super(nameCoder);
+    }
+
+    @Override
+    public HierarchicalStreamReader createReader(Reader in) {
+        try {
+            return new InterningReader(in, createParser(), getNameCoder());
+        } catch (XmlPullParserException e) {
+            throw new StreamException("Cannot create XmlPullParser", e);
+        }
+    }
+
+    @Override
+    public HierarchicalStreamReader createReader(InputStream in) {
+        try {
+            // detects the encoding from the XML declaration
+            return createReader(new XmlHeaderAwareReader(in));
+        } catch (IOException e) {
+            throw new StreamException(e);
+        }
+    }
+
+    static String intern(String name) {
+        if (name == null) {
+            return null;
+        }
+        String shared = NAMES.get(name);
+        if (shared != null) {
+            return shared;
+        }
+        if (NAMES.size() >= MAX_NAMES) {
+            return name;
+        }
+        shared = NAMES.putIfAbsent(name, name);
+        return shared != null ? shared : name;
+    }
+
+    private static final class InterningReader extends XppReader {
+        InterningReader(Reader in, XmlPullParser parser, NameCoder nameCoder) {
+            super(in, parser, nameCoder);
+        }
+
+        @Override
+        protected String pullElementName() {
+            return intern(super.pullElementName());
+        }
+
+        @Override
+        public String getAttributeName(int index) {
+            return intern(super.getAttributeName(index));
+        }
+    }
+}
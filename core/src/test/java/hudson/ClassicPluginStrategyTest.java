@@ -24,10 +24,21 @@
 package hudson;
 
 import hudson.util.VersionNumber;
+import org.apache.commons.io.FileUtils;
 import org.junit.Assert;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
 
 import static hudson.ClassicPluginStrategy.DetachedPlugin;
 
@@ -36,6 +47,9 @@ import static hudson.ClassicPluginStrategy.DetachedPlugin;
  */
 public class ClassicPluginStrategyTest {
 
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
     @Test
     public void test_getDetachedPlugins() {
         List<DetachedPlugin> list = ClassicPluginStrategy.getDetachedPlugins(new VersionNumber("1.296"));
@@ -57,6 +71,58 @@ public class ClassicPluginStrategyTest {
         Assert.assertNull(findPlugin("subversion", list));
     }
 
+    @Test
+    public void explode() throws Exception {
+        File archive = tmp.newFile("sample.jpi");
+        zip(archive, "META-INF/MANIFEST.MF", "Manifest-Version: 1.0\n",
+                "index.jelly", "<div/>",
+                "WEB-INF/lib/dep.jar", "not really a jar",
+                "WEB-INF/classes/org/acme/Thing.class", "bytecode",
+                "WEB-INF/classes/index.jelly", "<p/>");
+        File dest = new File(tmp.getRoot(), "sample");
+        ClassicPluginStrategy.explode(archive, dest);
+
+        Assert.assertEquals("<div/>", FileUtils.readFileToString(new File(dest, "index.jelly"), StandardCharsets.UTF_8));
+        Assert.assertTrue(new File(dest, "META-INF/MANIFEST.MF").isFile());
+        Assert.assertTrue(new File(dest, "WEB-INF/lib/dep.jar").isFile());
+        Assert.assertFalse("classes are only packaged into classes.jar", new File(dest, "WEB-INF/classes").exists());
+        try (ZipFile classes = new ZipFile(new File(dest, "WEB-INF/lib/classes.jar"))) {
+            Assert.assertNotNull(classes.getEntry("org/acme/Thing.class"));
+            Assert.assertNotNull(classes.getEntry("index.jelly"));
+            Assert.assertNull(classes.getEntry("WEB-INF/classes/index.jelly"));
+        }
+        Assert.assertEquals(archive.lastModified(), new File(dest, ".timestamp2").lastModified());
+
+        // up to date, so left alone
+        File marker = new File(dest, "marker");
+        Assert.assertTrue(marker.createNewFile());
+        ClassicPluginStrategy.explode(archive, dest);
+        Assert.assertTrue(marker.exists());
+    }
+
+    @Test
+    public void explodeRejectsEntriesOutsideOfTheDirectory() throws Exception {
+        File archive = tmp.newFile("evil.jpi");
+        zip(archive, "../evil.txt", "boo");
+        try {
+            ClassicPluginStrategy.explode(archive, new File(tmp.getRoot(), "evil"));
+            Assert.fail();
+        } catch (IOException e) {
+            // expected
+        }
+        Assert.assertFalse(new File(tmp.getRoot(), "evil.txt").exists());
+    }
+
+    private static void zip(File archive, String... namesAndContents) throws IOException {
+        try (OutputStream os = Files.newOutputStream(archive.toPath()); ZipOutputStream zos = new ZipOutputStream(os)) {
+            for (int i = 0; i < namesAndContents.length; i += 2) {
+                zos.putNextEntry(new ZipEntry(namesAndContents[i]));
+                zos.write(namesAndContents[i + 1].getBytes(StandardCharsets.UTF_8));
+                zos.closeEntry();
+            }
+        }
+    }
+
     private DetachedPlugin findPlugin(String shortName, List<DetachedPlugin> list) {
         for (DetachedPlugin detachedPlugin : list) {
             if (detachedPlugin.getShortName().equals(shortName)) {
@@ -0,0 +1,88 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2018, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson;
+
+import java.io.File;
+import java.util.Arrays;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+
+public class ExtensionIndexCacheTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void reusedForTheSamePlugins() throws Exception {
+        File f = new File(tmp.getRoot(), "extensions.cache");
+        ExtensionIndexCache c = new ExtensionIndexCache(f, "abc");
+        assertFalse(c.isValid());
+        c.add(new ExtensionIndexCache.Entry("hudson.Extension", "org.acme.Thing", null));
+        c.add(new ExtensionIndexCache.Entry("hudson.Extension", "org.acme.Factory", "create"));
+        c.save();
+
+        c = new ExtensionIndexCache(f, "abc");
+        assertTrue(c.isValid());
+        assertTrue(c.isKnown("hudson.Extension", "org.acme.Thing", null));
+        assertTrue(c.isKnown("hudson.Extension", "org.acme.Factory", "create"));
+        assertFalse(c.isKnown("hudson.Extension", "org.acme.Factory", null));
+        assertFalse(c.isKnown("hudson.Extension", "org.acme.Other", null));
+
+        c.invalidate();
+        assertFalse(c.isValid());
+        assertFalse(c.isKnown("hudson.Extension", "org.acme.Thing", null));
+    }
+
+    @Test
+    public void ignoredWhenPluginsChange() throws Exception {
+        File archive = tmp.newFile("acme.jpi");
+        assertTrue(archive.setLastModified(1000000L));
+        String before = ExtensionIndexCache.fingerprint("2.100", Arrays.asList(ExtensionIndexCache.describe("acme", "1.0", true, archive)));
+        assertEquals(before, ExtensionIndexCache.fingerprint("2.100", Arrays.asList(ExtensionIndexCache.describe("acme", "1.0", true, archive))));
+        assertNotEquals(before, ExtensionIndexCache.fingerprint("2.101", Arrays.asList(ExtensionIndexCache.describe("acme", "1.0", true, archive))));
+        assertNotEquals(before, ExtensionIndexCache.fingerprint("2.100", Arrays.asList(ExtensionIndexCache.describe("acme", "1.1", true, archive))));
+        assertNotEquals(before, ExtensionIndexCache.fingerprint("2.100", Arrays.asList(ExtensionIndexCache.describe("acme", "1.0", false, archive))));
+        assertTrue(archive.setLastModified(2000000L));
+        String after = ExtensionIndexCache.fingerprint("2.100", Arrays.asList(ExtensionIndexCache.describe("acme", "1.0", true, archive)));
+        assertNotEquals("archive was replaced", before, after);
+
+        File core = tmp.newFile("jenkins-core.jar");
+        assertTrue(core.setLastModified(1000000L));
+        String java8 = ExtensionIndexCache.describeCore("2.100", "Oracle 1.8.0_181", core);
+        assertNotEquals("JVM was upgraded", java8, ExtensionIndexCache.describeCore("2.100", "Oracle 11.0.1", core));
+        assertTrue(core.setLastModified(2000000L));
+        assertNotEquals("snapshot was rebuilt", java8, ExtensionIndexCache.describeCore("2.100", "Oracle 1.8.0_181", core));
+
+        File f = new File(tmp.getRoot(), "extensions.cache");
+        ExtensionIndexCache c = new ExtensionIndexCache(f, before);
+        c.add(new ExtensionIndexCache.Entry("hudson.Extension", "org.acme.Thing", null));
+        c.save();
+        c = new ExtensionIndexCache(f, after);
+        assertFalse(c.isValid());
+        assertFalse(c.isKnown("hudson.Extension", "org.acme.Thing", null));
+    }
+}
@@ -35,6 +35,8 @@ import java.io.InputStream;
 import java.net.JarURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Collections;
 import java.util.jar.Attributes;
 import java.util.jar.Manifest;
 import java.util.zip.ZipEntry;
@@ -112,6 +114,46 @@ public class PluginManagerTest {
                 equalTo(jar.lastModified()));
     }
     
+    @Test
+    public void uberClassLoaderSearchesPluginsByPackage() throws Exception {
+        PluginManager pm = new LocalPluginManager(tmp.newFolder());
+        pm.activePlugins.add(fakePlugin(pm, "a", "org/example/a/x.txt", "org/example/shared/y.txt"));
+        pm.activePlugins.add(fakePlugin(pm, "b", "org/example/b/x.txt", "org/example/shared/y.txt", "top.txt"));
+
+        assertThat(pm.uberClassLoader.getResource("org/example/a/x.txt").toString(), containsString("a.jar!"));
+        assertThat(pm.uberClassLoader.getResource("org/example/b/x.txt").toString(), containsString("b.jar!"));
+        assertThat("first plugin wins", pm.uberClassLoader.getResource("org/example/shared/y.txt").toString(), containsString("a.jar!"));
+        assertEquals(2, Collections.list(pm.uberClassLoader.getResources("org/example/shared/y.txt")).size());
+        assertThat(pm.uberClassLoader.getResource("top.txt").toString(), containsString("b.jar!"));
+        assertNull(pm.uberClassLoader.getResource("org/example/a/missing.txt"));
+        assertNull(pm.uberClassLoader.getResource("org/example/c/x.txt"));
+
+        // a plugin added later is seen
+        pm.activePlugins.add(fakePlugin(pm, "c", "org/example/c/x.txt"));
+        assertThat(pm.uberClassLoader.getResource("org/example/c/x.txt").toString(), containsString("c.jar!"));
+        try {
+            pm.uberClassLoader.loadClass("org.example.c.Missing");
+            fail();
+        } catch (ClassNotFoundException x) {
+            // expected
+        }
+    }
+
+    private PluginWrapper fakePlugin(PluginManager pm, String name, String... entries) throws IOException {
+        File jar = new File(tmp.getRoot(), name + ".jar");
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(jar))) {
+            for (String e : entries) {
+                out.putNextEntry(new ZipEntry(e));
+                out.closeEntry();
+            }
+        }
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().putValue("Short-Name", name);
+        return new PluginWrapper(pm, new File(tmp.getRoot(), name + ".jpi"), manifest, null,
+                new URLClassLoader(new URL[] {jar.toURI().toURL()}, null), new File(tmp.getRoot(), name + ".jpi.disabled"),
+                Collections.<PluginWrapper.Dependency>emptyList(), Collections.<PluginWrapper.Dependency>emptyList());
+    }
+
     private static void assertAttribute(Manifest manifest, String attributeName, String value) throws AssertionError {
         Attributes attributes = manifest.getMainAttributes();
         assertThat("Main attributes must not be empty", attributes, notNullValue());
@@ -0,0 +1,153 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2018, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.jar.Attributes;
+import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Loads classes through {@link PluginManager.UberClassLoader} from several threads with many plugins active,
+ * the way XStream and Groovy scripts do: mostly known classes, with a steady trickle of names no plugin has.
+ *
+ * <p>
+ * Not run as part of the test suite; run {@link #main(String[])} from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class UberClassLoaderBenchmark {
+
+    private static final int PLUGINS = 250;
+    private static final int CLASSES = 20;
+
+    @Param({"true", "false"})
+    public boolean packageIndex;
+
+    private File dir;
+    private PluginManager pluginManager;
+    private boolean originalPackageIndex;
+    private final AtomicLong unknown = new AtomicLong();
+
+    /**
+     * Plugin class loader which pretends to define the classes listed in its jar, and really looks in the jar for others.
+     */
+    private static final class FakePluginClassLoader extends URLClassLoader {
+        FakePluginClassLoader(File jar) throws IOException {
+            super(new URL[] {jar.toURI().toURL()}, null);
+        }
+
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            if (findResource(name.replace('.', '/') + ".class") != null) {
+                return FakePluginClassLoader.class;
+            }
+            return super.findClass(name);
+        }
+    }
+
+    @Setup
+    public void setUp() throws Exception {
+        originalPackageIndex = PluginManager.PACKAGE_INDEX;
+        PluginManager.PACKAGE_INDEX = packageIndex;
+        dir = Files.createTempDirectory("plugins").toFile();
+        pluginManager = new LocalPluginManager(dir);
+        for (int i = 0; i < PLUGINS; i++) {
+            File jar = new File(dir, "plugin" + i + ".jar");
+            try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(jar))) {
+                for (int j = 0; j < CLASSES; j++) {
+                    out.putNextEntry(new ZipEntry("org/example/plugin" + i + "/C" + j + ".class"));
+                    out.closeEntry();
+                }
+                out.putNextEntry(new ZipEntry("org/example/plugin" + i + "/Messages.properties"));
+                out.closeEntry();
+            }
+            Manifest manifest = new Manifest();
+            manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+            manifest.getMainAttributes().putValue("Short-Name", "plugin" + i);
+            pluginManager.activePlugins.add(new PluginWrapper(pluginManager, new File(dir, "plugin" + i + ".jpi"), manifest, null,
+                    new FakePluginClassLoader(jar), new File(dir, "plugin" + i + ".jpi.disabled"),
+                    Collections.<PluginWrapper.Dependency>emptyList(), Collections.<PluginWrapper.Dependency>emptyList()));
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        for (PluginWrapper p : pluginManager.activePlugins) {
+            ((URLClassLoader) p.classLoader).close();
+        }
+        FileUtils.deleteDirectory(dir);
+        PluginManager.PACKAGE_INDEX = originalPackageIndex;
+    }
+
+    @Benchmark
+    public Class<?> loadClass() throws Exception {
+        ThreadLocalRandom r = ThreadLocalRandom.current();
+        String pkg = "org.example.plugin" + r.nextInt(PLUGINS);
+        if (r.nextInt(10) == 0) {
+            try {
+                // e.g. a class of a plugin that has been removed, never seen before so not cached as a miss
+                return pluginManager.uberClassLoader.loadClass(pkg + ".Gone" + unknown.incrementAndGet());
+            } catch (ClassNotFoundException e) {
+                return null;
+            }
+        }
+        return pluginManager.uberClassLoader.loadClass(pkg + ".C" + r.nextInt(CLASSES));
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(UberClassLoaderBenchmark.class.getName()).build()).run();
+    }
+}
@@ -2,21 +2,30 @@ package hudson;
 
 import hudson.model.Node;
 import hudson.util.XStream2;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 
 import jenkins.model.Jenkins;
+import org.apache.commons.io.FileUtils;
 import org.junit.Ignore;
+import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
 import org.xml.sax.SAXParseException;
 
+import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertThat;
 
 public class XmlFileTest {
 
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
     @Test
     public void canReadXml1_0Test() throws IOException {
         URL configUrl = getClass().getResource("/hudson/config_1_0.xml");
@@ -76,4 +85,26 @@ public class XmlFileTest {
             assertThat(n.getLabelString(), is("LESS_TERMCAP_mb=\u001B[01;31m"));
         }
     }
+
+    @Test
+    public void rawContentsFollowChanges() throws Exception {
+        File f = tmp.newFile("config.xml");
+        FileUtils.writeStringToFile(f, "<?xml version='1.1' encoding='UTF-8'?>\n<string>1</string>", StandardCharsets.UTF_8);
+        f.setLastModified(System.currentTimeMillis() - 60000);
+        XmlFile xmlFile = new XmlFile(f);
+        assertThat(xmlFile.asString(), is("<?xml version='1.1' encoding='UTF-8'?>\n<string>1</string>"));
+        assertThat(xmlFile.sniffEncoding(), is("UTF-8"));
+
+        // same size, different timestamp
+        FileUtils.writeStringToFile(f, "<?xml version='1.1' encoding='UTF-8'?>\n<string>2</string>", StandardCharsets.UTF_8);
+        f.setLastModified(System.currentTimeMillis() - 30000);
+        assertThat(xmlFile.asString(), containsString("<string>2</string>"));
+        assertThat(xmlFile.read(), is((Object) "2"));
+
+        xmlFile.write("3");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        xmlFile.writeRawTo(out);
+        assertThat(out.toString("UTF-8"), containsString("<string>3</string>"));
+        assertThat(xmlFile.read(), is((Object) "3"));
+    }
 }
@@ -0,0 +1,69 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2018, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.console;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+
+public class ConsoleNoteIndexTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void stripsNotes() throws Exception {
+        String note = ConsoleNote.PREAMBLE_STR + "AAAAJB+LCAAAAAAAAP8=" + ConsoleNote.POSTAMBLE_STR;
+        String log = "Started by " + note + "admin\n"
+                + note + note + "two notes\n"
+                + "no notes \u001B[8mha: but not terminated\n"
+                + "last line without newline" + note;
+        File f = tmp.newFile("log");
+        FileUtils.writeStringToFile(f, log, StandardCharsets.UTF_8);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ConsoleNoteIndex.writePlainText(f, out);
+        assertEquals("Started by admin\ntwo notes\nno notes \u001B[8mha: but not terminated\nlast line without newline",
+                out.toString("UTF-8"));
+        assertEquals(4, ConsoleNoteIndex.of(f).size());
+    }
+
+    @Test
+    public void sidecarIsReusedUntilTheLogChanges() throws Exception {
+        File f = tmp.newFile("log");
+        FileUtils.writeStringToFile(f, "plain\n", StandardCharsets.UTF_8);
+        assertEquals(0, ConsoleNoteIndex.of(f).size());
+        File sidecar = ConsoleNoteIndex.getIndexFile(f);
+        assertTrue(sidecar.isFile());
+
+        FileUtils.writeStringToFile(f, "x" + ConsoleNote.PREAMBLE_STR + ConsoleNote.POSTAMBLE_STR + "\n", StandardCharsets.UTF_8);
+        assertEquals(1, ConsoleNoteIndex.of(f).size());
+    }
+}
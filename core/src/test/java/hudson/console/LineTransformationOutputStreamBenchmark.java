@@ -0,0 +1,126 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2018, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.console;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.output.CountingOutputStream;
+import org.apache.commons.io.output.NullOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures the throughput of build output going through a chain of line based filters,
+ * the way it does when several {@link ConsoleLogFilter}s decorate the build log.
+ *
+ * <p>
+ * Not run as part of the test suite; run {@link #main(String[])} from the test classpath.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LineTransformationOutputStreamBenchmark {
+
+    private static final int LOG_SIZE = 8 * 1024 * 1024;
+
+    /**
+     * Size of the writes coming from the build, as if read from a process pipe.
+     */
+    private static final int CHUNK_SIZE = 4096;
+
+    /**
+     * Length of each line of output, from regular compiler output to minified files.
+     */
+    @Param({"80", "1000", "1000000"})
+    public int lineLength;
+
+    /**
+     * Maximum line length of the filters, 0 for no limit.
+     */
+    @Param({"0", "65536"})
+    public int maxLineLength;
+
+    private byte[] log;
+
+    @Setup
+    public void setUp() {
+        log = new byte[LOG_SIZE];
+        for (int i = 0; i < log.length; i++) {
+            log[i] = (byte) ((i + 1) % lineLength == 0 ? '\n' : 'a' + i % 26);
+        }
+    }
+
+    @Benchmark
+    public long filterChain() throws IOException {
+        CountingOutputStream sink = new CountingOutputStream(new NullOutputStream());
+        try (OutputStream out = new PlainTextConsoleOutputStream(new Filter(new Filter(new Filter(sink))))) {
+            for (int i = 0; i < log.length; i += CHUNK_SIZE) {
+                out.write(log, i, Math.min(CHUNK_SIZE, log.length - i));
+            }
+        }
+        return sink.getByteCount();
+    }
+
+    /**
+     * Passes each line through unchanged, like a typical {@link ConsoleLogFilter} that only inspects output.
+     */
+    private final class Filter extends LineTransformationOutputStream {
+        private final OutputStream out;
+
+        Filter(OutputStream out) {
+            super(maxLineLength);
+            this.out = out;
+        }
+
+        @Override
+        protected void eol(byte[] b, int len) throws IOException {
+            out.write(b, 0, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            super.close();
+            out.close();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(LineTransformationOutputStreamBenchmark.class.getName()).build()).run();
+    }
+}
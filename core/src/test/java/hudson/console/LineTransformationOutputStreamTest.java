@@ -0,0 +1,121 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2018, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.console;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class LineTransformationOutputStreamTest {
+
+    private static class Lines extends LineTransformationOutputStream {
+        final List<String> lines = new ArrayList<>();
+
+        Lines(int maxLineLength) {
+            super(maxLineLength);
+        }
+
+        @Override
+        protected void eol(byte[] b, int len) throws IOException {
+            lines.add(new String(b, 0, len, StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void bulkAndSingleByteWritesAgree() throws Exception {
+        byte[] text = "first\nsecond line\n\nno newline".getBytes(StandardCharsets.US_ASCII);
+        Lines bulk = new Lines(0);
+        bulk.write(text, 0, text.length);
+        bulk.close();
+        Lines single = new Lines(0);
+        for (byte b : text) {
+            single.write(b);
+        }
+        single.close();
+        List<String> expected = Arrays.asList("first\n", "second line\n", "\n", "no newline");
+        assertEquals(expected, bulk.lines);
+        assertEquals(expected, single.lines);
+    }
+
+    @Test
+    public void linesAcrossWrites() throws Exception {
+        Lines out = new Lines(0);
+        out.write("par".getBytes(StandardCharsets.US_ASCII));
+        out.write("tial\nnext".getBytes(StandardCharsets.US_ASCII));
+        out.write('\n');
+        assertEquals(Arrays.asList("partial\n", "next\n"), out.lines);
+    }
+
+    @Test
+    public void longLinesAreSplit() throws Exception {
+        Lines out = new Lines(4);
+        out.write("abcdefghij\nxyz\n".getBytes(StandardCharsets.US_ASCII));
+        assertEquals(Arrays.asList("abcd", "efgh", "ij\n", "xyz\n"), out.lines);
+
+        out.lines.clear();
+        for (byte b : "abcdefg\n".getBytes(StandardCharsets.US_ASCII)) {
+            out.write(b);
+        }
+        assertEquals(Arrays.asList("abcd", "efg\n"), out.lines);
+    }
+
+    @Test
+    public void longLinesAreNotSplitWithinCharacters() throws Exception {
+        Lines out = new Lines(4);
+        out.write("a\u00e9\u00e9\n".getBytes(StandardCharsets.UTF_8));
+        assertEquals(Arrays.asList("a\u00e9", "\u00e9\n"), out.lines);
+    }
+
+    @Test
+    public void longLinesAreNotSplitWithinNotes() throws Exception {
+        String line = "abcdefgh" + ConsoleNote.PREAMBLE_STR + "xy" + ConsoleNote.POSTAMBLE_STR + "\n";
+        List<String> expected = Arrays.asList("abcdefgh", ConsoleNote.PREAMBLE_STR + "xy" + ConsoleNote.POSTAMBLE_STR + "\n");
+        Lines bulk = new Lines(16);
+        bulk.write(line.getBytes(StandardCharsets.UTF_8));
+        assertEquals(expected, bulk.lines);
+        Lines single = new Lines(16);
+        for (byte b : line.getBytes(StandardCharsets.UTF_8)) {
+            single.write(b);
+        }
+        assertEquals(expected, single.lines);
+    }
+
+    @Test
+    public void hugeLinesAreBuffered() throws Exception {
+        Lines out = new Lines(0);
+        byte[] chunk = new byte[1000];
+        Arrays.fill(chunk, (byte) 'x');
+        for (int i = 0; i < 100; i++) {
+            out.write(chunk);
+        }
+        out.write('\n');
+        assertEquals(1, out.lines.size());
+        assertEquals(100001, out.lines.get(0).length());
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2018, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.security;
+
+import java.util.Arrays;
+import java.util.List;
+import jenkins.util.NonLocalizable;
+import org.acegisecurity.Authentication;
+import org.acegisecurity.providers.UsernamePasswordAuthenticationToken;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ACLFilterTest {
+
+    private static final PermissionGroup GROUP = new PermissionGroup(ACLFilterTest.class, new NonLocalizable("Test"));
+    private static final Permission READ = new Permission(GROUP, "Read", null, null, PermissionScope.JENKINS);
+
+    private static class CountingACL extends ACL {
+        private final boolean allowed;
+        int calls;
+
+        CountingACL(boolean allowed) {
+            this.allowed = allowed;
+        }
+
+        @Override
+        public boolean hasPermission(Authentication a, Permission permission) {
+            calls++;
+            return allowed;
+        }
+    }
+
+    private static class Thing implements AccessControlled {
+        private final ACL acl;
+
+        Thing(ACL acl) {
+            this.acl = acl;
+        }
+
+        @Override
+        public ACL getACL() {
+            return acl;
+        }
+    }
+
+    private static class Special extends Thing {
+        Special(ACL acl) {
+            super(acl);
+        }
+
+        @Override
+        public boolean hasPermission(Authentication a, Permission permission) {
+            return true;
+        }
+    }
+
+    @Test
+    public void eachACLIsEvaluatedOnce() {
+        CountingACL visible = new CountingACL(true), hidden = new CountingACL(false);
+        Thing a = new Thing(visible), b = new Thing(hidden), c = new Thing(visible), d = new Thing(hidden), e = new Thing(visible);
+        Authentication alice = new UsernamePasswordAuthenticationToken("alice", "");
+
+        assertEquals(Arrays.asList(a, c, e), ACL.filter(Arrays.asList(a, b, c, d, e), alice, READ));
+        assertEquals(1, visible.calls);
+        assertEquals(1, hidden.calls);
+    }
+
+    @Test
+    public void overriddenChecksAreRespected() {
+        CountingACL hidden = new CountingACL(false);
+        Thing a = new Thing(hidden), b = new Special(hidden);
+        Authentication alice = new UsernamePasswordAuthenticationToken("alice", "");
+
+        List<Thing> r = ACL.filter(Arrays.asList(a, b), alice, READ);
+        assertEquals(Arrays.asList(b), r);
+    }
+
+    @Test
+    public void systemSeesEverything() {
+        CountingACL hidden = new CountingACL(false);
+        Thing a = new Thing(hidden);
+
+        assertEquals(Arrays.asList(a), ACL.filter(Arrays.asList(a), ACL.SYSTEM, READ));
+        assertEquals(0, hidden.calls);
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2018, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.security;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import jenkins.util.NonLocalizable;
+import org.acegisecurity.Authentication;
+import org.acegisecurity.GrantedAuthority;
+import org.acegisecurity.GrantedAuthorityImpl;
+import org.acegisecurity.acls.sid.GrantedAuthoritySid;
+import org.acegisecurity.acls.sid.PrincipalSid;
+import org.acegisecurity.acls.sid.Sid;
+import org.acegisecurity.providers.UsernamePasswordAuthenticationToken;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Simulates the permission checks of a view rendering many jobs, for a user in many groups,
+ * with jobs inheriting their permissions from a handful of folders.
+ *
+ * <p>
+ * Not run as part of the test suite; run {@link #main(String[])} from the test classpath.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SidACLBenchmark {
+
+    private static final PermissionGroup GROUP = new PermissionGroup(SidACLBenchmark.class, new NonLocalizable("Benchmark"));
+    private static final Permission READ = new Permission(GROUP, "Read", null, null, PermissionScope.ITEM);
+
+    @Param({"20", "200"})
+    public int groups;
+
+    @Param({"true", "false"})
+    public boolean cache;
+
+    private static final int JOBS = 2000;
+    private static final int FOLDERS = 10;
+
+    private Authentication user;
+    private SidACL[] jobACLs;
+    private boolean originalEnabled;
+
+    /**
+     * Matrix-like ACL granting permissions to a single group.
+     */
+    private static final class MatrixACL extends SidACL {
+        private final Map<String,Boolean> grants = new HashMap<>();
+
+        MatrixACL(String group) {
+            grants.put(group, true);
+        }
+
+        @Override
+        protected Boolean hasPermission(Sid p, Permission permission) {
+            String name = p instanceof GrantedAuthoritySid ? ((GrantedAuthoritySid) p).getGrantedAuthority()
+                    : p instanceof PrincipalSid ? ((PrincipalSid) p).getPrincipal() : null;
+            return name != null ? grants.get(name) : null;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        originalEnabled = PermissionCache.ENABLED;
+        PermissionCache.ENABLED = cache;
+
+        GrantedAuthority[] authorities = new GrantedAuthority[groups];
+        for (int i = 0; i < groups; i++) {
+            authorities[i] = new GrantedAuthorityImpl("group" + i);
+        }
+        user = new UsernamePasswordAuthenticationToken("alice", "", authorities);
+
+        SidACL root = new MatrixACL("group" + (groups - 1));
+        SidACL[] folders = new SidACL[FOLDERS];
+        for (int i = 0; i < FOLDERS; i++) {
+            folders[i] = new MatrixACL("nobody");
+        }
+        jobACLs = new SidACL[JOBS];
+        for (int i = 0; i < JOBS; i++) {
+            jobACLs[i] = folders[i % FOLDERS].newInheritingACL(root);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        PermissionCache.ENABLED = originalEnabled;
+    }
+
+    @Benchmark
+    public int renderView() {
+        int visible = 0;
+        for (SidACL acl : jobACLs) {
+            // a typical row checks a few permissions
+            for (int j = 0; j < 5; j++) {
+                if (acl.hasPermission(user, READ)) {
+                    visible++;
+                }
+            }
+        }
+        return visible;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(SidACLBenchmark.class.getName()).build()).run();
+    }
+}
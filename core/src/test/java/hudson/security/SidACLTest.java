@@ -0,0 +1,137 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2018, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.security;
+
+import jenkins.util.MBeans;
+import jenkins.util.NonLocalizable;
+import org.acegisecurity.Authentication;
+import org.acegisecurity.GrantedAuthority;
+import org.acegisecurity.GrantedAuthorityImpl;
+import org.acegisecurity.acls.sid.GrantedAuthoritySid;
+import org.acegisecurity.acls.sid.Sid;
+import org.acegisecurity.providers.UsernamePasswordAuthenticationToken;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.management.JMX;
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.*;
+
+public class SidACLTest {
+
+    private static final PermissionGroup GROUP = new PermissionGroup(SidACLTest.class, new NonLocalizable("Test"));
+    private static final Permission READ = new Permission(GROUP, "Read", null, null, PermissionScope.JENKINS);
+
+    private static class CountingACL extends SidACL {
+        int calls;
+        volatile String allowed = "dev";
+
+        @Override
+        protected Boolean hasPermission(Sid p, Permission permission) {
+            calls++;
+            if (p instanceof GrantedAuthoritySid && ((GrantedAuthoritySid) p).getGrantedAuthority().equals(allowed)) {
+                return true;
+            }
+            return null;
+        }
+    }
+
+    private boolean originalEnabled;
+
+    @Before
+    public void enableCache() {
+        originalEnabled = PermissionCache.ENABLED;
+        PermissionCache.ENABLED = true;
+    }
+
+    @After
+    public void restoreCache() {
+        PermissionCache.ENABLED = originalEnabled;
+        PermissionCache.invalidate();
+    }
+
+    private static Authentication user(String... groups) {
+        GrantedAuthority[] authorities = new GrantedAuthority[groups.length];
+        for (int i = 0; i < groups.length; i++) {
+            authorities[i] = new GrantedAuthorityImpl(groups[i]);
+        }
+        return new UsernamePasswordAuthenticationToken("alice", "", authorities);
+    }
+
+    @Test
+    public void decisionsAreCached() throws Exception {
+        CountingACL acl = new CountingACL();
+        Authentication alice = user("ops", "dev");
+        long hits = PermissionCache.getHitCount();
+
+        assertTrue(acl.hasPermission(alice, READ));
+        int calls = acl.calls;
+        assertTrue(acl.hasPermission(alice, READ));
+        assertEquals("answered from the cache", calls, acl.calls);
+        assertEquals(hits + 1, PermissionCache.getHitCount());
+        PermissionCacheMXBean mbean = JMX.newMXBeanProxy(ManagementFactory.getPlatformMBeanServer(),
+                MBeans.objectName("type=PermissionCache"), PermissionCacheMXBean.class);
+        assertEquals(hits + 1, mbean.getHitCount());
+        assertEquals(PermissionCache.getHitRate(), mbean.getHitRate(), 0);
+        assertTrue(mbean.isEnabled());
+
+        Authentication bob = user("ops");
+        assertFalse("other authentications are not affected", acl.hasPermission(bob, READ));
+
+        acl.allowed = "ops";
+        PermissionCache.invalidate();
+        assertTrue(acl.hasPermission(bob, READ));
+        assertTrue(acl.calls > calls);
+    }
+
+    @Test
+    public void disabledByDefault() {
+        assertNull(System.getProperty(PermissionCache.class.getName() + ".enabled"));
+        assertFalse(originalEnabled);
+    }
+
+    @Test
+    public void notRememberedWhenDisabled() {
+        PermissionCache.ENABLED = false;
+        CountingACL acl = new CountingACL();
+        Authentication alice = user("dev");
+        assertTrue(acl.hasPermission(alice, READ));
+        acl.allowed = "ops";
+        assertFalse("not remembered", acl.hasPermission(alice, READ));
+    }
+
+    @Test
+    public void inheritingACLIsReused() {
+        CountingACL child = new CountingACL(), parent = new CountingACL(), other = new CountingACL();
+        SidACL combined = child.newInheritingACL(parent);
+        assertSame(combined, child.newInheritingACL(parent));
+        assertNotSame(combined, child.newInheritingACL(other));
+
+        parent.allowed = "ops";
+        child.allowed = "nobody";
+        assertTrue(child.newInheritingACL(parent).hasPermission(user("ops"), READ));
+    }
+}
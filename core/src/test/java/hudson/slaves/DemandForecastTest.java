@@ -0,0 +1,89 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2018, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.slaves;
+
+import hudson.model.Label;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import static org.junit.Assert.*;
+
+public class DemandForecastTest {
+
+    private static final long MINUTE = TimeUnit.MINUTES.toMillis(1);
+
+    /**
+     * Every day, 10 builds per minute are scheduled from 09:00 to 09:05.
+     */
+    @Test
+    public void dailyBurstIsAnticipated() {
+        DemandForecast f = new DemandForecast(5 * MINUTE, TimeUnit.DAYS.toMillis(1));
+        Label label = Mockito.mock(Label.class);
+        double[] beforeBurst = new double[3];
+        double[] errorAfterBurst = new double[3];
+        for (int day = 0; day < 3; day++) {
+            for (int minute = 0; minute < 24 * 60; minute++) {
+                long now = (day * 24 * 60 + minute) * MINUTE;
+                DemandForecast.Forecast forecast = f.forecast(label, now);
+                if (minute == 9 * 60) {
+                    beforeBurst[day] = forecast.arrivals;
+                }
+                if (minute >= 9 * 60 && minute < 9 * 60 + 5) {
+                    for (int i = 0; i < 10; i++) {
+                        f.recordArrival(label, now, TimeUnit.MINUTES.toMillis(10));
+                    }
+                }
+                if (minute == 9 * 60 + 5) {
+                    errorAfterBurst[day] = f.getMeanAbsoluteError(label);
+                    assertEquals(TimeUnit.MINUTES.toMillis(10), forecast.duration);
+                }
+            }
+        }
+        assertEquals("nothing to go by on the first day", 0, beforeBurst[0], 0);
+        assertTrue("the trend and last season are trusted alike at first", beforeBurst[1] > 0 && beforeBurst[1] < 50);
+        assertEquals("the season has proven right", 50, beforeBurst[2], 0.01);
+        assertTrue(errorAfterBurst[0] > errorAfterBurst[1]);
+        assertTrue(errorAfterBurst[2] < 0.01);
+    }
+
+    @Test
+    public void labelsAreForecastSeparately() {
+        DemandForecast f = new DemandForecast(5 * MINUTE, TimeUnit.HOURS.toMillis(1));
+        Label linux = Mockito.mock(Label.class);
+        assertEquals(-1, f.getMeanAbsoluteError(linux), 0);
+        for (int i = 0; i < 4; i++) {
+            f.recordArrival(linux, MINUTE, -1);
+        }
+        f.recordArrival(null, MINUTE, -1);
+        DemandForecast.Forecast forecast = f.forecast(linux, 2 * MINUTE);
+        assertEquals(4, forecast.arrivals, 0);
+        assertEquals(-1, forecast.duration);
+        assertEquals(1, f.forecast(null, 2 * MINUTE).arrivals, 0);
+
+        // once the horizon has gone by without further arrivals, the forecast was off by all of them
+        f.forecast(linux, 7 * MINUTE);
+        assertEquals(4, f.getMeanAbsoluteError(linux), 0);
+    }
+}
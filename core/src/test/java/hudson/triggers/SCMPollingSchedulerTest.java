@@ -0,0 +1,103 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2018, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.triggers;
+
+import hudson.model.Item;
+import org.junit.After;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import static org.junit.Assert.*;
+
+public class SCMPollingSchedulerTest {
+
+    @After
+    public void reset() {
+        SCMPollingScheduler.ADAPTIVE = false;
+        SCMPollingScheduler.JITTER_SECONDS = 0;
+    }
+
+    @Test
+    public void hostOf() {
+        assertEquals("github.com", SCMPollingScheduler.hostOf("git https://github.com/jenkinsci/jenkins.git"));
+        assertEquals("scm.example.org", SCMPollingScheduler.hostOf("svn svn://user@SCM.example.org:3690/repo/trunk"));
+        assertEquals("github.com", SCMPollingScheduler.hostOf("git git@github.com:jenkinsci/jenkins.git"));
+        assertNull(SCMPollingScheduler.hostOf("hudson.scm.NullSCM"));
+    }
+
+    @Test
+    public void hostLimit() {
+        SCMPollingScheduler s = new SCMPollingScheduler();
+        Item job = Mockito.mock(Item.class);
+        assertTrue(s.tryAcquire("github.com", 2));
+        assertTrue(s.tryAcquire("github.com", 2));
+        assertFalse(s.tryAcquire("github.com", 2));
+        assertTrue("other hosts are not affected", s.tryAcquire("example.org", 2));
+        s.release("github.com", job, false, 100);
+        assertTrue(s.tryAcquire("github.com", 2));
+        assertTrue("0 means no limit", s.tryAcquire("github.com", 0));
+
+        SCMPollingScheduler.HostStatistics h = s.getHostStatistics().get(1);
+        assertEquals("github.com", h.getHost());
+        assertEquals(3, h.getActive());
+        assertEquals(1, h.getDeferred());
+        assertEquals(100, h.getAverageMillis());
+    }
+
+    @Test
+    public void adaptiveInterval() {
+        SCMPollingScheduler.ADAPTIVE = true;
+        SCMPollingScheduler s = new SCMPollingScheduler();
+        Item job = Mockito.mock(Item.class);
+        for (int i = 0; i < SCMPollingScheduler.ADAPTIVE_IDLE_POLLS; i++) {
+            assertTrue(s.shouldPoll(job));
+            s.release("", job, false, 0);
+        }
+        assertEquals(2, s.getInterval(job));
+        assertFalse(s.shouldPoll(job));
+        assertTrue(s.shouldPoll(job));
+
+        for (int i = 0; i < 100; i++) {
+            s.release("", job, false, 0);
+        }
+        assertEquals(SCMPollingScheduler.ADAPTIVE_MAX_BACKOFF, s.getInterval(job));
+
+        s.release("", job, true, 0);
+        assertEquals(1, s.getInterval(job));
+        assertTrue(s.shouldPoll(job));
+    }
+
+    @Test
+    public void jitterIsStable() {
+        SCMPollingScheduler s = new SCMPollingScheduler();
+        Item job = Mockito.mock(Item.class);
+        Mockito.when(job.getFullName()).thenReturn("folder/job");
+        assertEquals(0, s.getJitterMillis(job));
+
+        SCMPollingScheduler.JITTER_SECONDS = 600;
+        long jitter = s.getJitterMillis(job);
+        assertTrue(jitter >= 0 && jitter < 600000);
+        assertEquals(jitter, s.getJitterMillis(job));
+    }
+}
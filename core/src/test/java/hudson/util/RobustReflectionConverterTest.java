@@ -27,6 +27,7 @@ import static org.junit.Assert.*;
 
 import com.thoughtworks.xstream.XStream;
 import com.thoughtworks.xstream.converters.ConversionException;
+import com.thoughtworks.xstream.converters.basic.IntConverter;
 
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
@@ -56,6 +57,33 @@ public class RobustReflectionConverterTest {
         return (Point) xs.fromXML("<" + clsName + "><x>1</x><y>2</y><z>3</z></" + clsName + '>');
     }
 
+    @Test
+    public void fieldLookupsFollowLaterChanges() {
+        XStream2 xs = new XStream2();
+        String clsName = Point.class.getName();
+        String broken = "<" + clsName + "><x>oops</x><y>2</y></" + clsName + '>';
+        Point p = (Point) xs.fromXML(broken);
+        assertEquals(0, p.x);
+        assertEquals(2, p.y);
+
+        xs.addCriticalField(Point.class, "x");
+        try {
+            xs.fromXML(broken);
+            fail();
+        } catch (ConversionException e) {
+            // expected now that the field is critical
+        }
+
+        xs.registerLocalConverter(Point.class, "y", new IntConverter() {
+            @Override
+            public Object fromString(String str) {
+                return 40 + (Integer) super.fromString(str);
+            }
+        });
+        p = (Point) xs.fromXML("<" + clsName + "><x>1</x><y>2</y></" + clsName + '>');
+        assertEquals(42, p.y);
+    }
+
     @Test
     public void ifWorkaroundNeeded() {
         try {
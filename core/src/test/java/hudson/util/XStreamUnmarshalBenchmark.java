@@ -0,0 +1,225 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2018, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.util;
+
+import com.thoughtworks.xstream.io.HierarchicalStreamDriver;
+import com.thoughtworks.xstream.io.xml.KXml2Driver;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import jenkins.util.xstream.InterningKXml2Driver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Unmarshals XML shaped like a job's {@code config.xml} and a build's {@code build.xml},
+ * the way {@link hudson.XmlFile} does when loading them.
+ *
+ * <p>
+ * Not run as part of the test suite; run {@link #main(String[])} from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class XStreamUnmarshalBenchmark {
+
+    @Param({"kxml2", "interning"})
+    public String driver;
+
+    private HierarchicalStreamDriver d;
+    private XStream2 xs;
+    private String jobXml;
+    private String buildXml;
+
+    // simplified versions of the model objects, with their usual nesting and class hierarchies
+
+    public static abstract class Item {
+        String description;
+        boolean disabled;
+        List<Object> properties = new ArrayList<>();
+    }
+    public static abstract class AbstractProject extends Item {
+        String assignedNode;
+        boolean concurrentBuild;
+        Scm scm;
+        List<Object> triggers = new ArrayList<>();
+    }
+    public static class Project extends AbstractProject {
+        List<Object> builders = new ArrayList<>();
+        List<Object> publishers = new ArrayList<>();
+    }
+    public static class Scm {
+        String url;
+        String branch;
+        String credentialsId;
+    }
+    public static class Parameter {
+        String name;
+        String defaultValue;
+        String description;
+    }
+    public static class ParametersProperty {
+        List<Parameter> parameterDefinitions = new ArrayList<>();
+    }
+    public static class Trigger {
+        String spec;
+    }
+    public static class Shell {
+        String command;
+    }
+    public static class Publisher {
+        String artifacts;
+        boolean allowEmpty;
+        boolean fingerprint;
+    }
+
+    public static abstract class Run {
+        int number;
+        long timestamp;
+        long duration;
+        String result;
+        String charset;
+        List<Object> actions = new ArrayList<>();
+    }
+    public static class Build extends Run {
+        String builtOn;
+        String workspace;
+        List<Object> culprits = new ArrayList<>();
+    }
+    public static class Cause {
+        String userId;
+        String shortDescription;
+    }
+    public static class CauseAction {
+        List<Cause> causes = new ArrayList<>();
+    }
+    public static class ParameterValue {
+        String name;
+        String value;
+    }
+    public static class ParametersAction {
+        List<ParameterValue> parameters = new ArrayList<>();
+    }
+    public static class TestResultAction {
+        int failCount;
+        int skipCount;
+        int totalCount;
+        boolean healthScaleFactor;
+    }
+
+    @Setup
+    public void setUp() {
+        d = driver.equals("interning") ? new InterningKXml2Driver() : new KXml2Driver();
+        xs = new XStream2();
+
+        Project p = new Project();
+        p.description = "Builds & tests the project";
+        p.assignedNode = "linux && docker";
+        p.scm = new Scm();
+        p.scm.url = "https://example.org/repo.git";
+        p.scm.branch = "*/master";
+        p.scm.credentialsId = "deploy-key";
+        ParametersProperty pp = new ParametersProperty();
+        for (int i = 0; i < 5; i++) {
+            Parameter param = new Parameter();
+            param.name = "PARAM_" + i;
+            param.defaultValue = "value" + i;
+            param.description = "Parameter number " + i;
+            pp.parameterDefinitions.add(param);
+        }
+        p.properties.add(pp);
+        Trigger t = new Trigger();
+        t.spec = "H/15 * * * *";
+        p.triggers.add(t);
+        for (int i = 0; i < 3; i++) {
+            Shell s = new Shell();
+            s.command = "make step" + i;
+            p.builders.add(s);
+        }
+        Publisher pub = new Publisher();
+        pub.artifacts = "target/*.jar";
+        pub.fingerprint = true;
+        p.publishers.add(pub);
+        jobXml = xs.toXML(p);
+
+        Build b = new Build();
+        b.number = 1234;
+        b.timestamp = 1540000000000L;
+        b.duration = 345678;
+        b.result = "SUCCESS";
+        b.charset = "UTF-8";
+        b.builtOn = "agent-17";
+        b.workspace = "/home/jenkins/workspace/project";
+        CauseAction ca = new CauseAction();
+        Cause c = new Cause();
+        c.userId = "alice";
+        c.shortDescription = "Started by user alice";
+        ca.causes.add(c);
+        b.actions.add(ca);
+        ParametersAction pa = new ParametersAction();
+        for (int i = 0; i < 5; i++) {
+            ParameterValue v = new ParameterValue();
+            v.name = "PARAM_" + i;
+            v.value = "value" + i;
+            pa.parameters.add(v);
+        }
+        b.actions.add(pa);
+        TestResultAction tra = new TestResultAction();
+        tra.totalCount = 1500;
+        tra.skipCount = 12;
+        b.actions.add(tra);
+        b.culprits.add("alice");
+        b.culprits.add("bob");
+        buildXml = xs.toXML(b);
+    }
+
+    @Benchmark
+    public Object job() {
+        return xs.unmarshal(d.createReader(new StringReader(jobXml)));
+    }
+
+    @Benchmark
+    public Object build() {
+        return xs.unmarshal(d.createReader(new StringReader(buildXml)));
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(XStreamUnmarshalBenchmark.class.getName()).build()).run();
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2018, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jenkins;
+
+import hudson.init.InitMilestone;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+import org.jvnet.hudson.reactor.Milestone;
+import org.jvnet.hudson.reactor.Task;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static hudson.init.InitMilestone.*;
+import static org.junit.Assert.*;
+
+public class InitReactorProfilerTest {
+
+    private final InitReactorProfiler p = new InitReactorProfiler(true, 0);
+
+    @Test
+    public void criticalPathAndUtilization() {
+        Task a = task("a", STARTED, PLUGINS_LISTED);
+        Task b = task("b", STARTED, PLUGINS_LISTED);
+        Task c = task("c", PLUGINS_LISTED, PLUGINS_PREPARED);
+        Task d = task("d", PLUGINS_LISTED, null);
+        run(a, 0, 100, "t1");
+        run(b, 0, 50, "t2");
+        p.attained(PLUGINS_LISTED, ms(100));
+        run(d, 110, 150, "t2");
+        run(c, 100, 300, "t1");
+        p.attained(PLUGINS_PREPARED, ms(300));
+
+        assertEquals("[a, c]", p.getCriticalPath().toString());
+        assertEquals(300, p.getElapsedMillis());
+        assertEquals(2, p.getThreadCount());
+        assertEquals(390.0 / 600, p.getUtilization(), 0.001);
+
+        List<InitReactorProfiler.Phase> phases = p.getPhases();
+        assertEquals(2, phases.size());
+        assertEquals(PLUGINS_LISTED.toString(), phases.get(0).getMilestone());
+        assertEquals(100, phases.get(0).getDurationMillis());
+        assertEquals(150.0 / 200, phases.get(0).getUtilization(), 0.001);
+        assertEquals(200, phases.get(1).getDurationMillis());
+        assertEquals(240.0 / 400, phases.get(1).getUtilization(), 0.001);
+    }
+
+    @Test
+    public void trace() {
+        Task a = task("a", STARTED, PLUGINS_LISTED);
+        Task b = task("b", PLUGINS_LISTED, null);
+        run(a, 0, 10, "t1");
+        p.attained(PLUGINS_LISTED, ms(10));
+        p.started(b, ms(10), "t2");
+        p.finished(b, ms(15), true);
+
+        JSONArray events = p.toTrace().getJSONArray("traceEvents");
+        // two thread names, two tasks and one milestone
+        assertEquals(5, events.size());
+        JSONObject ea = events.getJSONObject(1);
+        assertEquals("a", ea.getString("name"));
+        assertEquals("X", ea.getString("ph"));
+        assertEquals("init,critical", ea.getString("cat"));
+        assertEquals(10000, ea.getLong("dur"));
+        JSONObject eb = events.getJSONObject(3);
+        assertEquals("b", eb.getString("name"));
+        assertEquals(10000, eb.getLong("ts"));
+        assertTrue(eb.getJSONObject("args").getBoolean("failed"));
+        assertEquals("i", events.getJSONObject(4).getString("ph"));
+    }
+
+    @Test
+    public void disabled() {
+        InitReactorProfiler off = new InitReactorProfiler(false, 0);
+        Task a = task("a", STARTED, PLUGINS_LISTED);
+        off.onTaskStarted(a);
+        off.onTaskCompleted(a);
+        assertTrue(off.getTasks().isEmpty());
+    }
+
+    private void run(Task t, long start, long end, String thread) {
+        p.started(t, ms(start), thread);
+        p.finished(t, ms(end), false);
+    }
+
+    private static long ms(long millis) {
+        return TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Task task(String name, InitMilestone requires, InitMilestone attains) {
+        Task t = Mockito.mock(Task.class);
+        Mockito.when(t.getDisplayName()).thenReturn(name);
+        Mockito.when((Collection) t.requires()).thenReturn(Collections.<Milestone>singletonList(requires));
+        Mockito.when((Collection) t.attains()).thenReturn(attains == null ? Collections.<Milestone>emptyList() : Arrays.<Milestone>asList(attains));
+        return t;
+    }
+}
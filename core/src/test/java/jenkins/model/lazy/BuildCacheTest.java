@@ -0,0 +1,115 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2018, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jenkins.model.lazy;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import javax.management.JMX;
+import jenkins.util.MBeans;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class BuildCacheTest {
+
+    @Test
+    public void disabledByDefault() {
+        assertNull(new BuildCache(0).make(new Object()));
+    }
+
+    @Test
+    public void keepsBuildsStillInUse() {
+        BuildCache cache = new BuildCache(1024 * 1024);
+        Object build = new Object();
+        BuildReference.Holder<Object> h = cache.make(build);
+        assertSame(build, h.get());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(BuildCache.BASE_SIZE, cache.getWeight());
+
+        cache.invalidate();
+        assertEquals(0, cache.getWeight());
+        // still strongly reachable from here, so it must not be loaded a second time
+        assertSame(build, h.get());
+        assertEquals(BuildCache.BASE_SIZE, cache.getWeight());
+    }
+
+    @Test
+    public void forgetsDeletedBuilds() {
+        BuildCache cache = new BuildCache(1024 * 1024);
+        Object build = new Object();
+        BuildReference.Holder<Object> h = cache.make(build);
+        ((BuildCache.CachedHolder<Object>) h).clear();
+        assertNull(h.get());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(0, cache.getWeight());
+    }
+
+    @Test
+    public void staysWithinBudget() {
+        BuildCache cache = new BuildCache(1024 * 1024);
+        List<Object> builds = new ArrayList<>();
+        List<BuildReference.Holder<Object>> holders = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            Object build = new Object();
+            builds.add(build);
+            holders.add(cache.make(build));
+        }
+        assertTrue(cache.getSize() < 1000);
+        assertTrue(cache.getWeight() <= 1024 * 1024);
+        assertEquals(cache.getSize() * BuildCache.BASE_SIZE, cache.getWeight());
+        // evicted builds that are still referenced are not lost
+        for (int i = 0; i < 1000; i++) {
+            assertSame(builds.get(i), holders.get(i).get());
+        }
+    }
+
+    @Test
+    public void metricsThroughJmx() throws Exception {
+        long originalMaxBytes = BuildCache.MAX_BYTES;
+        BuildCache.MAX_BYTES = 1024 * 1024;
+        BuildCache cache;
+        try {
+            cache = new BuildCache();
+        } finally {
+            BuildCache.MAX_BYTES = originalMaxBytes;
+        }
+        BuildCacheMXBean mbean = JMX.newMXBeanProxy(ManagementFactory.getPlatformMBeanServer(),
+                MBeans.objectName("type=BuildCache"), BuildCacheMXBean.class);
+        assertTrue(mbean.isEnabled());
+        assertEquals(1024 * 1024, mbean.getMaxBytes());
+
+        Object build = new Object();
+        BuildReference.Holder<Object> h = cache.make(build);
+        h.get();
+        h.get();
+        assertEquals(2, mbean.getHitCount());
+        assertEquals(1.0, mbean.getHitRate(), 0);
+        assertEquals(1, mbean.getSize());
+        assertEquals(BuildCache.BASE_SIZE, mbean.getWeight());
+
+        mbean.invalidate();
+        assertEquals(0, cache.getSize());
+    }
+}
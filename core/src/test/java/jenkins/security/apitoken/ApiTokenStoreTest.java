@@ -0,0 +1,69 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2018, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jenkins.security.apitoken;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ApiTokenStoreTest {
+
+    @Test
+    public void lookupFollowsChanges() {
+        ApiTokenStore store = new ApiTokenStore();
+        ApiTokenStore.TokenUuidAndPlainValue first = store.generateNewToken("first");
+        ApiTokenStore.TokenUuidAndPlainValue second = store.generateNewToken("second");
+
+        assertEquals(first.tokenUuid, store.findMatchingToken(first.plainValue).getUuid());
+        assertEquals(second.tokenUuid, store.findMatchingToken(second.plainValue).getUuid());
+        assertNull(store.findMatchingToken("11" + "0123456789abcdef0123456789abcdef"));
+        assertNull(store.findMatchingToken("not a token"));
+
+        assertTrue(store.renameToken(first.tokenUuid, "renamed"));
+        assertEquals("renamed", store.findMatchingToken(first.plainValue).getName());
+
+        assertNotNull(store.revokeToken(first.tokenUuid));
+        assertNull(store.findMatchingToken(first.plainValue));
+        assertNotNull(store.findMatchingToken(second.plainValue));
+    }
+
+    @Test
+    public void ownerIndex() {
+        ApiTokenStore store = new ApiTokenStore();
+        ApiTokenStore.TokenUuidAndPlainValue before = store.generateNewToken("before");
+        assertNull("owner not known yet", ApiTokenStore.findOwner(before.plainValue));
+
+        store.setOwner("alice");
+        assertEquals("alice", ApiTokenStore.findOwner(before.plainValue));
+        ApiTokenStore.TokenUuidAndPlainValue after = store.generateNewToken("after");
+        assertEquals("alice", ApiTokenStore.findOwner(after.plainValue));
+
+        store.revokeToken(before.tokenUuid);
+        assertNull(ApiTokenStore.findOwner(before.plainValue));
+        assertEquals("alice", ApiTokenStore.findOwner(after.plainValue));
+
+        ApiTokenStore.forgetOwner("alice");
+        assertNull("user deleted", ApiTokenStore.findOwner(after.plainValue));
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2018, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jenkins.util;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class InstrumentedThreadPoolExecutorTest {
+
+    @Test
+    public void metrics() throws Exception {
+        InstrumentedThreadPoolExecutor pool = new InstrumentedThreadPoolExecutor("test", 1, 1, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), Executors.defaultThreadFactory());
+        try {
+            final CountDownLatch started = new CountDownLatch(1);
+            final CountDownLatch release = new CountDownLatch(1);
+            pool.execute(new Runnable() {
+                @Override
+                public void run() {
+                    started.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+            started.await();
+            pool.submit(new Runnable() {
+                @Override
+                public void run() {}
+            });
+            assertEquals(1, pool.getActiveCount());
+            assertEquals(1, pool.getQueueDepth());
+            assertEquals(2, pool.getSubmittedTaskCount());
+            Thread.sleep(50);
+            release.countDown();
+            pool.shutdown();
+            assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+            assertEquals(0, pool.getQueueDepth());
+            assertEquals(2, pool.getCompletedTaskCount());
+            assertTrue("second task waited for the first", pool.getMaxQueueLatencyMillis() >= 50);
+            assertTrue(pool.getAverageQueueLatencyMillis() >= 20);
+            assertTrue(pool.getAverageRunMillis() >= 20);
+            assertEquals("test", pool.getName());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
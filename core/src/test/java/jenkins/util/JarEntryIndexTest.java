@@ -0,0 +1,87 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2018, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jenkins.util;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+
+public class JarEntryIndexTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void lookup() throws Exception {
+        JarEntryIndex index = JarEntryIndex.of(jar("a.jar", "org/", "org/example/", "org/example/Foo.class", "index.jelly"));
+        assertTrue(index.mightContain("org/example/Foo.class"));
+        assertTrue(index.mightContain("index.jelly"));
+        assertTrue("directories are found with or without a slash", index.mightContain("org/example"));
+        assertTrue(index.mightContain("org/example/"));
+        assertFalse(index.mightContain("org/example/Bar.class"));
+        assertFalse(index.mightContain("Foo.class"));
+        assertEquals(new HashSet<>(Arrays.asList("", "org/example")), index.getDirectories());
+    }
+
+    @Test
+    public void saveAndLoad() throws Exception {
+        File jar = jar("a.jar", "org/example/Foo.class");
+        File cache = new File(tmp.getRoot(), ".jarIndex");
+        assertTrue(JarEntryIndex.load(cache).isEmpty());
+
+        JarEntryIndex.save(Collections.singletonMap(jar.getAbsolutePath(), JarEntryIndex.of(jar)), cache);
+        Map<String,JarEntryIndex> loaded = JarEntryIndex.load(cache);
+        JarEntryIndex index = loaded.get(jar.getAbsolutePath());
+        assertTrue(index.isUpToDate(jar));
+        assertTrue(index.mightContain("org/example/Foo.class"));
+        assertFalse(index.mightContain("org/example/Bar.class"));
+        assertEquals(Collections.singleton("org/example"), index.getDirectories());
+
+        jar("a.jar", "org/example/Foo.class", "org/example/Bar.class");
+        assertTrue(jar.setLastModified(jar.lastModified() + 2000));
+        assertFalse(index.isUpToDate(jar));
+    }
+
+    private File jar(String name, String... entries) throws IOException {
+        File jar = new File(tmp.getRoot(), name);
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(jar))) {
+            for (String e : entries) {
+                out.putNextEntry(new ZipEntry(e));
+                out.closeEntry();
+            }
+        }
+        return jar;
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2018, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jenkins.util.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class AsyncLogOutputStreamTest {
+
+    @Test
+    public void writtenInBackground() throws Exception {
+        ByteArrayOutputStream sink = new ByteArrayOutputStream();
+        AsyncLogOutputStream out = new AsyncLogOutputStream(sink);
+        out.write("hello\n".getBytes(StandardCharsets.US_ASCII));
+        long deadline = System.currentTimeMillis() + 10000;
+        while (out.getPendingBytes() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals("visible without closing the stream", "hello\n", sink.toString("US-ASCII"));
+        out.close();
+    }
+
+    @Test
+    public void singleBytesMixedWithArrays() throws Exception {
+        ByteArrayOutputStream sink = new ByteArrayOutputStream();
+        AsyncLogOutputStream out = new AsyncLogOutputStream(sink);
+        StringBuilder expected = new StringBuilder();
+        byte[] line = new byte[20000];
+        Arrays.fill(line, (byte) 'x');
+        for (int i = 0; i < 20000; i++) {
+            out.write('a' + i % 26);
+            expected.append((char) ('a' + i % 26));
+            if (i % 5000 == 0) {
+                out.write(line);
+                expected.append(new String(line, StandardCharsets.US_ASCII));
+            }
+        }
+        out.close();
+        assertEquals(expected.toString(), sink.toString("US-ASCII"));
+    }
+
+    @Test
+    public void concurrentWritersAndBatching() throws Exception {
+        final AtomicInteger writes = new AtomicInteger();
+        ByteArrayOutputStream sink = new ByteArrayOutputStream() {
+            @Override
+            public synchronized void write(byte[] b, int off, int len) {
+                writes.incrementAndGet();
+                super.write(b, off, len);
+            }
+        };
+        final AsyncLogOutputStream out = new AsyncLogOutputStream(sink);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            final byte c = (byte) ('a' + t);
+            Thread thread = new Thread(() -> {
+                try {
+                    for (int i = 0; i < 10000; i++) {
+                        out.write(c);
+                    }
+                } catch (IOException e) {
+                    throw new AssertionError(e);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        out.close();
+
+        String s = sink.toString("US-ASCII");
+        assertEquals(40000, s.length());
+        for (char c = 'a'; c <= 'd'; c++) {
+            assertEquals(10000, s.length() - s.replace(String.valueOf(c), "").length());
+        }
+        assertTrue("single bytes were written in batches, not " + writes.get() + " times", writes.get() < 1000);
+    }
+
+    @Test
+    public void backpressureWhenFull() throws Exception {
+        ByteArrayOutputStream sink = new ByteArrayOutputStream();
+        AsyncLogOutputStream out = new AsyncLogOutputStream(sink, 100);
+        out.write(new byte[60]);
+        out.write(new byte[60]);
+        assertEquals("writer drained the backlog itself", 0, out.getPendingBytes());
+        assertEquals(120, sink.size());
+        out.close();
+    }
+
+    @Test
+    public void failuresAreReported() throws Exception {
+        AsyncLogOutputStream out = new AsyncLogOutputStream(new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("disk full");
+            }
+        }, 10);
+        try {
+            out.write(new byte[20]);
+            fail();
+        } catch (IOException e) {
+            assertEquals("disk full", e.getMessage());
+        }
+    }
+}
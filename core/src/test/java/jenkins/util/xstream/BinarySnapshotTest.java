@@ -0,0 +1,93 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2018, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jenkins.util.xstream;
+
+import hudson.XmlFile;
+import hudson.util.XStream2;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+
+public class BinarySnapshotTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private XmlFile xml;
+
+    public static class Foo {
+        String name;
+        int number;
+        List<String> tags = new ArrayList<>();
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        XStream2 xs = new XStream2();
+        xs.alias("foo", Foo.class);
+        xml = new XmlFile(xs, new File(tmp.getRoot(), "build.xml"));
+        Foo foo = new Foo();
+        foo.name = "control chars \u0001 & <markup>";
+        foo.number = 42;
+        foo.tags.addAll(Arrays.asList("a", "b"));
+        xml.write(foo);
+        BinarySnapshot.save(xml);
+    }
+
+    @Test
+    public void roundTrip() throws Exception {
+        assertTrue(BinarySnapshot.getSnapshotFile(xml).isFile());
+        Foo foo = new Foo();
+        assertTrue(BinarySnapshot.unmarshal(xml, foo));
+        assertEquals("control chars \u0001 & <markup>", foo.name);
+        assertEquals(42, foo.number);
+        assertEquals(Arrays.asList("a", "b"), foo.tags);
+    }
+
+    @Test
+    public void ignoredOnceTheXmlChanges() throws Exception {
+        Foo foo = new Foo();
+        foo.name = "changed";
+        xml.write(foo);
+        xml.getFile().setLastModified(xml.getFile().lastModified() - 10000);
+        assertFalse(BinarySnapshot.unmarshal(xml, new Foo()));
+    }
+
+    @Test
+    public void ignoredWhenCorrupt() throws Exception {
+        File snapshot = BinarySnapshot.getSnapshotFile(xml);
+        byte[] bytes = Files.readAllBytes(snapshot.toPath());
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(snapshot.toPath(), bytes);
+        assertFalse(BinarySnapshot.unmarshal(xml, new Foo()));
+    }
+}
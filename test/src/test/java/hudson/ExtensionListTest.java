@@ -3,6 +3,7 @@ package hudson;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
@@ -174,6 +175,28 @@ public class ExtensionListTest {
         assertEquals(0,LIST.size());
     }
 
+    @Test
+    public void descriptorIndex() throws Exception {
+        ExtensionList<Descriptor> all = j.jenkins.getExtensionList(Descriptor.class);
+        Descriptor tai = all.get(Tai.DescriptorImpl.class);
+        assertNotNull(tai);
+        assertSame(tai, j.jenkins.getDescriptorByType(Tai.DescriptorImpl.class));
+        assertSame(tai, j.jenkins.getDescriptor(Tai.class));
+        assertSame(tai, j.jenkins.getDescriptor(Tai.class.getName()));
+        assertSame(tai, j.jenkins.getDescriptor("ExtensionListTest$Tai"));
+        assertSame(tai, j.jenkins.getDescriptorList(Fish.class).findByName(Tai.class.getName()));
+        assertSame(tai, all.getDynamic(Tai.DescriptorImpl.class.getName()));
+
+        // the index follows changes to the list
+        Descriptor<Fish> sishamo = new Sishamo.DescriptorImpl();
+        all.add(sishamo);
+        assertSame(sishamo, all.get(Sishamo.DescriptorImpl.class));
+        assertSame(sishamo, j.jenkins.getDescriptor(Sishamo.class.getName()));
+        all.remove(sishamo);
+        assertNull(all.get(Sishamo.DescriptorImpl.class));
+        assertNull(j.jenkins.getDescriptor(Sishamo.class.getName()));
+    }
+
     public static class Car implements ExtensionPoint {
         final String name;
 
@@ -7,6 +7,8 @@ import com.gargoylesoftware.htmlunit.html.HtmlPage;
 import hudson.remoting.Base64;
 
 import java.io.IOException;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
 import java.security.KeyFactory;
 import java.security.KeyPair;
 import java.security.KeyPairGenerator;
@@ -16,6 +18,8 @@ import java.security.interfaces.RSAPrivateKey;
 import java.security.interfaces.RSAPublicKey;
 import java.security.spec.InvalidKeySpecException;
 import java.security.spec.PKCS8EncodedKeySpec;
+import java.util.ArrayList;
+import java.util.List;
 import javax.annotation.Nullable;
 
 import jenkins.model.Jenkins;
@@ -66,4 +70,33 @@ public class TcpSlaveAgentListenerTest {
             assertThat(e.getStatusCode(),equalTo(404));
         }
     }
+
+    @Test(timeout = 60000)
+    public void slowClientsDoNotBlockOthers() throws Exception {
+        r.getInstance().setSlaveAgentPort(0);
+        TcpSlaveAgentListener listener = r.jenkins.getTcpSlaveAgentListener();
+        int p = listener.getPort();
+        List<Socket> stalled = new ArrayList<>();
+        try {
+            for (int i = 0; i < 50; i++) {
+                Socket s = new Socket("localhost", p);
+                // incomplete header
+                s.getOutputStream().write("Proto".getBytes(StandardCharsets.US_ASCII));
+                s.getOutputStream().flush();
+                stalled.add(s);
+            }
+            while (listener.getHandshakeBacklog() < stalled.size()) {
+                Thread.sleep(10);
+            }
+
+            Socket ping = new Socket("localhost", p);
+            ping.setSoTimeout(10000);
+            assertThat(new TcpSlaveAgentListener.PingAgentProtocol().connect(ping), is(true));
+            assertThat(listener.getRejectedConnections(), is(0L));
+        } finally {
+            for (Socket s : stalled) {
+                s.close();
+            }
+        }
+    }
 }
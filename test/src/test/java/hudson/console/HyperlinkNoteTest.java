@@ -25,6 +25,8 @@
 package hudson.console;
 
 import hudson.model.FreeStyleProject;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
 import java.io.IOException;
 import java.io.StringReader;
 import java.io.StringWriter;
@@ -37,6 +39,10 @@ import org.jvnet.hudson.test.JenkinsRule;
 
 import static org.hamcrest.Matchers.allOf;
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
 
 public class HyperlinkNoteTest {
@@ -73,6 +79,27 @@ public class HyperlinkNoteTest {
                 containsString(">" + noteTextSanitized + "</a>")));
     }
 
+    @Test
+    public void compactEncodingAndDecodedCache() throws Exception {
+        FreeStyleProject p = r.createFreeStyleProject();
+        String note = new ModelHyperlinkNote("/" + p.getUrl(), 4).encode();
+        // a serialized and gzipped note takes several hundred bytes
+        assertThat(note.length(), lessThan(150));
+
+        ConsoleNote first = read(note);
+        assertThat(first, instanceOf(ModelHyperlinkNote.class));
+        assertEquals("/" + p.getUrl(), ((HyperlinkNote) first).getUrl());
+        assertEquals(4, ((HyperlinkNote) first).getLength());
+        assertSame(first, read(note));
+
+        String output = annotate(note + "link");
+        assertThat(output, containsString("href='" + r.getURL().toString() + p.getUrl() + "'"));
+    }
+
+    private static ConsoleNote read(String note) throws Exception {
+        return ConsoleNote.readFrom(new DataInputStream(new ByteArrayInputStream(note.getBytes(StandardCharsets.US_ASCII))));
+    }
+
     private static String annotate(String text) throws IOException {
         StringWriter writer = new StringWriter();
         try (ConsoleAnnotationOutputStream out = new ConsoleAnnotationOutputStream(writer, null, null, StandardCharsets.UTF_8)) {
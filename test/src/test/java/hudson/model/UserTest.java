@@ -705,6 +705,54 @@ public class UserTest {
         assertSame("'user2' should resolve to u2", u2, u);
     }
 
+    @Test
+    public void lazyLoading() throws Exception {
+        for (String id : new String[] {"carol", "alice", "bob"}) {
+            User.getById(id, true).save();
+        }
+        // the kind of registry is decided when it is created, as it would be at startup
+        ExtensionList<User.AllUsers> registries = ExtensionList.lookup(User.AllUsers.class);
+        User.AllUsers eager = registries.get(0);
+        User.LAZY_LOAD = true;
+        User.AllUsers lazy;
+        try {
+            lazy = new User.AllUsers();
+        } finally {
+            User.LAZY_LOAD = false;
+        }
+        registries.remove(eager);
+        registries.add(lazy);
+        try {
+            assertTrue(User.AllUsers.isLazy());
+            User.AllUsers.scanAll();
+            assertFalse("not loaded at startup", User.AllUsers.byName().containsKey("alice"));
+            assertEquals(3, User.getAll().size());
+
+            List<String> ids = new ArrayList<>();
+            for (User u : User.getAll()) {
+                ids.add(u.getId());
+            }
+            assertEquals(Arrays.asList("alice", "bob", "carol"), ids);
+            assertTrue(User.AllUsers.byName().containsKey("bob"));
+            assertNotNull("kept in memory once loaded", User.AllUsers.recent().getIfPresent("bob"));
+
+            User alice = User.getById("alice", false);
+            assertNotNull(alice);
+            assertSame(alice, User.getById("alice", false));
+            alice.delete();
+            assertNull(User.getById("alice", false));
+            assertNull(User.AllUsers.recent().getIfPresent("alice"));
+            assertEquals(2, User.getAll().size());
+
+            User.getById("dave", true);
+            assertThat(User.getAll(), hasItem(User.getById("dave", false)));
+        } finally {
+            registries.remove(lazy);
+            registries.add(eager);
+            User.reload();
+        }
+    }
+
     @Test
     @Issue("SECURITY-514")
     public void getAllPropertiesRequiresAdmin() {
@@ -0,0 +1,158 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2018, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.node_monitors;
+
+import hudson.model.Computer;
+import hudson.model.ComputerSet;
+import hudson.remoting.Callable;
+import hudson.slaves.DumbSlave;
+import hudson.slaves.SlaveComputer;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import jenkins.security.MasterToSlaveCallable;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.TestExtension;
+
+import static org.junit.Assert.*;
+
+public class NodeMonitorSchedulerTest {
+
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    @Test
+    public void builtInMonitorsAreBatched() {
+        assertTrue(NodeMonitorScheduler.isBatched(ClockMonitor.DESCRIPTOR));
+        assertTrue(NodeMonitorScheduler.isBatched(DiskSpaceMonitor.DESCRIPTOR));
+        assertTrue(NodeMonitorScheduler.isBatched(ResponseTimeMonitor.DESCRIPTOR));
+    }
+
+    @Test
+    public void resultsArePublishedPerAgent() throws Exception {
+        DumbSlave agent = j.createOnlineSlave();
+        SlaveComputer c = agent.getComputer();
+        j.jenkins.getExtensionList(NodeMonitorScheduler.class).get(0).monitor(c);
+
+        assertNotNull(ClockMonitor.DESCRIPTOR.get(c));
+        assertNotNull(DiskSpaceMonitor.DESCRIPTOR.get(c));
+        ResponseTimeMonitor.Data rt = ResponseTimeMonitor.DESCRIPTOR.get(c);
+        assertNotNull(rt);
+        assertTrue(rt.getAverage() >= 0);
+        assertTrue(ClockMonitor.DESCRIPTOR.getTimestamp() > 0);
+    }
+
+    @Test
+    public void failingCallableDoesNotSpoilTheBatch() throws Exception {
+        List<Callable<?,?>> callables = Arrays.<Callable<?,?>>asList(new Answer("a"), new Broken(), new Answer("c"));
+        List<Object> results = new NodeMonitorScheduler.Batch(callables, Arrays.asList(1000L, 1000L, 1000L)).call();
+        assertEquals("a", results.get(0));
+        assertTrue(results.get(1) instanceof NodeMonitorScheduler.Failure);
+        assertEquals("c", results.get(2));
+    }
+
+    @Test
+    public void slowCallableOnlyLosesItsOwnResult() throws Exception {
+        List<Callable<?,?>> callables = Arrays.<Callable<?,?>>asList(new Answer("a"), new Sleeper(), new Answer("c"));
+        long start = System.currentTimeMillis();
+        List<Object> results = new NodeMonitorScheduler.Batch(callables, Arrays.asList(5000L, 200L, 5000L)).call();
+        assertTrue("did not wait for the slow callable", System.currentTimeMillis() - start < 5000);
+        assertEquals("a", results.get(0));
+        assertTrue(results.get(1) instanceof NodeMonitorScheduler.Failure);
+        assertEquals("c", results.get(2));
+    }
+
+    @Test
+    public void slowMonitorDoesNotAffectOthers() throws Exception {
+        DumbSlave agent = j.createOnlineSlave();
+        SlaveComputer c = agent.getComputer();
+        SlowMonitor.DescriptorImpl slow = j.jenkins.getDescriptorByType(SlowMonitor.DescriptorImpl.class);
+        assertNotNull(ComputerSet.getMonitors().get(slow));
+        j.jenkins.getExtensionList(NodeMonitorScheduler.class).get(0).monitor(c);
+
+        assertNull(slow.get(c));
+        assertNotNull(ClockMonitor.DESCRIPTOR.get(c));
+        assertNotNull(DiskSpaceMonitor.DESCRIPTOR.get(c));
+        ResponseTimeMonitor.Data rt = ResponseTimeMonitor.DESCRIPTOR.get(c);
+        assertNotNull(rt);
+        assertTrue("no time out recorded: " + rt, rt.toString().endsWith("ms"));
+        assertTrue(rt.getAverage() < SlowMonitor.SLEEP_MILLIS);
+    }
+
+    public static final class SlowMonitor extends NodeMonitor {
+        static final long SLEEP_MILLIS = 3000;
+
+        @TestExtension("slowMonitorDoesNotAffectOthers")
+        public static final class DescriptorImpl extends AbstractAsyncNodeMonitorDescriptor<String> {
+            @Override
+            protected Callable<String,IOException> createCallable(Computer c) {
+                return new Sleeper();
+            }
+
+            @Override
+            protected long getMonitoringTimeOut() {
+                return 500;
+            }
+
+            @Override
+            public String getDisplayName() {
+                return "Slow";
+            }
+        }
+    }
+
+    private static final class Sleeper extends MasterToSlaveCallable<String,IOException> {
+        @Override
+        public String call() throws IOException {
+            try {
+                Thread.sleep(SlowMonitor.SLEEP_MILLIS);
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+            return "done";
+        }
+    }
+
+    private static final class Answer extends MasterToSlaveCallable<String,IOException> {
+        private final String answer;
+
+        Answer(String answer) {
+            this.answer = answer;
+        }
+
+        @Override
+        public String call() {
+            return answer;
+        }
+    }
+
+    private static final class Broken extends MasterToSlaveCallable<String,IOException> {
+        @Override
+        public String call() throws IOException {
+            throw new IOException("broken");
+        }
+    }
+}
@@ -54,6 +54,8 @@ import static org.junit.Assert.*;
 import jenkins.security.apitoken.ApiTokenPropertyConfiguration;
 import jenkins.security.SecurityListener;
 import jenkins.security.apitoken.ApiTokenTestHelper;
+import org.acegisecurity.BadCredentialsException;
+import org.acegisecurity.userdetails.UsernameNotFoundException;
 import org.apache.commons.lang.StringUtils;
 
 import java.io.UnsupportedEncodingException;
@@ -484,6 +486,39 @@ public class HudsonPrivateSecurityRealmTest {
         }
     }
     
+    @Test
+    public void verifiedPasswordIsRemembered() throws Exception {
+        HudsonPrivateSecurityRealm securityRealm = new HudsonPrivateSecurityRealm(false, false, null);
+        j.jenkins.setSecurityRealm(securityRealm);
+        User alice = securityRealm.createAccount("alice", "secret");
+
+        HudsonPrivateSecurityRealm.Details details = securityRealm.authenticate("alice", "secret");
+        assertSame("answered without checking the password again", details, securityRealm.authenticate("alice", "secret"));
+        try {
+            securityRealm.authenticate("alice", "wrong");
+            fail("other passwords are still checked");
+        } catch (BadCredentialsException e) {
+            // expected
+        }
+
+        alice.addProperty(HudsonPrivateSecurityRealm.Details.fromPlainPassword("changed"));
+        try {
+            securityRealm.authenticate("alice", "secret");
+            fail("the old password is not accepted anymore");
+        } catch (BadCredentialsException e) {
+            // expected
+        }
+        assertNotNull(securityRealm.authenticate("alice", "changed"));
+
+        alice.delete();
+        try {
+            securityRealm.authenticate("alice", "changed");
+            fail("deleted users cannot log in");
+        } catch (UsernameNotFoundException e) {
+            // expected
+        }
+    }
+
     private void checkUserCanBeCreatedWith(HudsonPrivateSecurityRealm securityRealm, String id, String password, String fullName, String email) throws Exception {
         JenkinsRule.WebClient wc = j.createWebClient();
         SignupPage signup = new SignupPage(wc.goTo("signup"));
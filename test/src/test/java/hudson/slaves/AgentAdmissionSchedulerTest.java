@@ -0,0 +1,164 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2018, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.slaves;
+
+import hudson.model.Computer;
+import hudson.model.FreeStyleProject;
+import hudson.model.Label;
+import hudson.model.TaskListener;
+import hudson.remoting.Channel;
+import hudson.remoting.FastPipedInputStream;
+import hudson.remoting.FastPipedOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.TestExtension;
+
+import static org.junit.Assert.*;
+
+public class AgentAdmissionSchedulerTest {
+
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    private ExecutorService executors;
+
+    @Before
+    public void setUp() {
+        executors = Executors.newCachedThreadPool();
+        Onlines.order.clear();
+    }
+
+    @After
+    public void tearDown() {
+        AgentAdmissionScheduler.PERMITS_PER_SECOND = 0;
+        AgentAdmissionScheduler.BURST = 0;
+        executors.shutdownNow();
+    }
+
+    @Test
+    public void moreDemandedAgentsComeOnlineFirst() throws Exception {
+        AgentAdmissionScheduler.PERMITS_PER_SECOND = 1;
+        AgentAdmissionScheduler.BURST = 1;
+        for (String name : new String[] {"busy1", "busy2", "some"}) {
+            FreeStyleProject p = j.createFreeStyleProject(name);
+            p.setAssignedLabel(Label.get(name.startsWith("busy") ? "busy" : "some"));
+            p.scheduleBuild2(0);
+        }
+        while (j.jenkins.getQueue().getBuildableItems().size() < 3) {
+            j.jenkins.getQueue().scheduleMaintenance().get();
+            Thread.sleep(100);
+        }
+
+        // takes the only token, so that the others have to wait for it together
+        connect(addAgent("warmup", "")).get();
+
+        List<Future<?>> connections = new ArrayList<>();
+        for (SlaveComputer c : new SlaveComputer[] {addAgent("idle", ""), addAgent("someAgent", "some"), addAgent("busyAgent", "busy")}) {
+            connections.add(connect(c));
+        }
+        AgentAdmissionScheduler scheduler = AgentAdmissionScheduler.get();
+        for (Future<?> f : connections) {
+            f.get();
+        }
+        assertEquals(Arrays.asList("warmup", "busyAgent", "someAgent", "idle"), Onlines.order);
+        assertTrue(scheduler.getDelayed() >= 3);
+        assertEquals(0, scheduler.getWaiting());
+    }
+
+    @Test
+    public void manyAgentsConnectAtOnce() throws Exception {
+        AgentAdmissionScheduler.PERMITS_PER_SECOND = 20;
+        List<Future<?>> connections = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            connections.add(connect(addAgent("agent" + i, "")));
+        }
+        long start = System.nanoTime();
+        for (Future<?> f : connections) {
+            f.get();
+        }
+        assertEquals(40, Onlines.order.size());
+        for (int i = 0; i < 40; i++) {
+            assertTrue(j.jenkins.getComputer("agent" + i).isOnline());
+        }
+        assertTrue("the second half has to wait for tokens", System.nanoTime() - start >= 500_000_000L);
+    }
+
+    @Test
+    public void maintenanceIsCoalesced() throws Exception {
+        AgentAdmissionScheduler scheduler = new AgentAdmissionScheduler();
+        scheduler.scheduleMaintenance();
+        assertEquals("not coalesced without a rate limit", 0, scheduler.getCoalescedMaintenance());
+
+        AgentAdmissionScheduler.PERMITS_PER_SECOND = 1000;
+        scheduler.scheduleMaintenance(); // runs right away
+        scheduler.scheduleMaintenance(); // deferred
+        scheduler.scheduleMaintenance();
+        scheduler.scheduleMaintenance();
+        assertEquals(2, scheduler.getCoalescedMaintenance());
+    }
+
+    private SlaveComputer addAgent(String name, String labels) throws Exception {
+        DumbSlave agent = new DumbSlave(name, j.createTmpDir().getPath(), new JNLPLauncher(true));
+        agent.setLabelString(labels);
+        j.jenkins.addNode(agent);
+        return agent.getComputer();
+    }
+
+    /**
+     * Connects the agent through a loopback channel, with the agent side running in this JVM.
+     */
+    private Future<?> connect(final SlaveComputer c) {
+        return executors.submit(() -> {
+            FastPipedInputStream toMaster = new FastPipedInputStream();
+            FastPipedInputStream toAgent = new FastPipedInputStream();
+            Future<Channel> agentSide = executors.submit(() -> new Channel(c.getName() + " agent side", executors, toAgent, new FastPipedOutputStream(toMaster)));
+            Channel masterSide = new Channel(c.getName(), executors, toMaster, new FastPipedOutputStream(toAgent));
+            agentSide.get();
+            c.setChannel(masterSide, null, null);
+            return null;
+        });
+    }
+
+    @TestExtension
+    public static class Onlines extends ComputerListener {
+        static final List<String> order = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public void onOnline(Computer c, TaskListener listener) {
+            if (c instanceof SlaveComputer) {
+                order.add(c.getName());
+            }
+        }
+    }
+}
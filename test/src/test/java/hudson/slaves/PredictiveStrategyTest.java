@@ -0,0 +1,116 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2018, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.slaves;
+
+import hudson.model.Label;
+import hudson.model.LoadStatistics;
+import hudson.model.Node;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.LoggerRule;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.*;
+
+public class PredictiveStrategyTest {
+
+    private static final long MINUTE = TimeUnit.MINUTES.toMillis(1);
+
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    @Rule
+    public LoggerRule logging = new LoggerRule().record(NodeProvisioner.class, Level.FINE).capture(100);
+
+    @Test
+    public void provisionsAheadOfDailyBurst() throws Exception {
+        FakeCloud cloud = new FakeCloud();
+        j.jenkins.clouds.add(cloud);
+        Label label = Label.get("burst");
+        AtomicLong clock = new AtomicLong();
+        NodeProvisioner.PredictiveStrategyImpl strategy = new NodeProvisioner.PredictiveStrategyImpl(
+                new DemandForecast(5 * MINUTE, TimeUnit.DAYS.toMillis(1)), clock::get);
+        LoadStatistics.LoadStatisticsSnapshot idle = LoadStatistics.LoadStatisticsSnapshot.builder().build();
+
+        // two days with 10 builds of 10 minutes each per minute from 09:00 to 09:05
+        for (int minute = 0; minute < 2 * 24 * 60; minute++) {
+            clock.set(minute * MINUTE);
+            strategy.getExcessWorkload(label, idle, 0); // forecasts like the provisioner would on every tick
+            if (minute % (24 * 60) >= 9 * 60 && minute % (24 * 60) < 9 * 60 + 5) {
+                for (int i = 0; i < 10; i++) {
+                    strategy.recordArrival(label, TimeUnit.MINUTES.toMillis(10));
+                }
+            }
+        }
+        assertEquals(0, cloud.provisioned);
+
+        // third day, 08:58, nothing queued yet
+        clock.set((2 * 24 * 60 + 8 * 60 + 58) * MINUTE);
+        Collection<NodeProvisioner.PlannedNode> planned = strategy.provisionAhead(label, idle, 0);
+        assertEquals("the builds arriving by 09:03 are provisioned for", 30, cloud.provisioned);
+        assertEquals(30, planned.size());
+
+        assertTrue("already planned", strategy.provisionAhead(label, idle, 30).isEmpty());
+        assertEquals(30, cloud.provisioned);
+        List<String> forecasts = new ArrayList<>();
+        for (String m : logging.getMessages()) {
+            if (m.startsWith("Forecast for burst")) {
+                forecasts.add(m);
+            }
+        }
+        assertFalse(forecasts.isEmpty());
+        assertThat("forecasts have been checked", forecasts.get(forecasts.size() - 1), not(containsString("mean absolute error -1")));
+    }
+
+    private static final class FakeCloud extends Cloud {
+        int provisioned;
+
+        FakeCloud() {
+            super("fake");
+        }
+
+        @Override
+        public Collection<NodeProvisioner.PlannedNode> provision(Label label, int excessWorkload) {
+            List<NodeProvisioner.PlannedNode> r = new ArrayList<>();
+            for (int i = 0; i < excessWorkload; i++) {
+                r.add(new NodeProvisioner.PlannedNode("fake-" + provisioned++, new CompletableFuture<Node>(), 1));
+            }
+            return r;
+        }
+
+        @Override
+        public boolean canProvision(Label label) {
+            return true;
+        }
+    }
+}